@@ -0,0 +1,66 @@
+package cz.ememsoft.dbdrift.benchmark;
+
+import cz.ememsoft.dbdrift.jpa.EntityDiscovery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Entity discovery over synthetic jars with 10% entities.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntityDiscoveryBenchmark {
+    
+    @Param({"1000", "10000", "50000"})
+    int classCount;
+    
+    @Param({"BYTECODE", "REFLECTION"})
+    EntityDiscovery.ScanMode scanMode;
+    
+    private Path directory;
+    private String classpath;
+    private EntityDiscovery discovery;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("dbdrift-discovery-bench");
+        classpath = SyntheticClasses.writeJar(directory, classCount).toString();
+        discovery = new EntityDiscovery(scanMode);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+    
+    @Benchmark
+    public Set<Class<?>> findEntities() throws Exception {
+        return discovery.findEntitiesInPackage(classpath, SyntheticClasses.PACKAGE_NAME);
+    }
+}
@@ -0,0 +1,69 @@
+package cz.ememsoft.dbdrift.benchmark;
+
+import cz.ememsoft.dbdrift.db.H2MetadataExtractor;
+import cz.ememsoft.dbdrift.model.DatabaseSchema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metadata extraction from an in-memory H2 schema with 20 columns per table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class H2MetadataExtractorBenchmark {
+    
+    private static final int COLUMNS_PER_TABLE = 20;
+    
+    @Param({"500", "2000"})
+    int tableCount;
+    
+    private final H2MetadataExtractor extractor = new H2MetadataExtractor();
+    private Connection connection;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:bench" + tableCount + ";MODE=Oracle;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            for (int table = 0; table < tableCount; table++) {
+                StringBuilder ddl = new StringBuilder("CREATE TABLE TABLE_" + table + " (ID NUMBER PRIMARY KEY");
+                for (int column = 1; column < COLUMNS_PER_TABLE; column++) {
+                    ddl.append(", COLUMN_").append(column).append(" VARCHAR2(100)");
+                }
+                statement.execute(ddl.append(")").toString());
+            }
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+    
+    @Benchmark
+    public DatabaseSchema extractSchema() {
+        return extractor.extractDatabaseSchema(connection, "PUBLIC");
+    }
+}
@@ -0,0 +1,187 @@
+package cz.ememsoft.dbdrift.benchmark;
+
+import cz.ememsoft.dbdrift.jpa.JpaEntityAnalyzer;
+import cz.ememsoft.dbdrift.model.ColumnName;
+import cz.ememsoft.dbdrift.model.TableName;
+import jakarta.persistence.Column;
+import jakarta.persistence.DiscriminatorColumn;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.Embedded;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Inheritance;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.Table;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Analysis of an entity at the bottom of a five level hierarchy with embedded types. The warm-cache cases
+ * analyse the same classes again, so after the first call their mappings come from the per-class cache;
+ * the cache-miss case analyses synthetic hierarchies loaded by a new class loader for every iteration,
+ * so every class in them is resolved from scratch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JpaEntityAnalyzerBenchmark {
+    
+    private final JpaEntityAnalyzer analyzer = new JpaEntityAnalyzer();
+    
+    @Benchmark
+    public Map<TableName, Set<ColumnName>> analyzeDeepHierarchyWarmCache() {
+        return analyzer.analyzeEntity(RetailCustomer.class);
+    }
+    
+    @Benchmark
+    public Map<TableName, Set<ColumnName>> analyzeSiblingEntitiesWarmCache() {
+        // Siblings share the whole hierarchy above them
+        analyzer.analyzeEntity(RetailCustomer.class);
+        return analyzer.analyzeEntity(CorporateCustomer.class);
+    }
+    
+    /**
+     * One shot per iteration: every entity and superclass is new to the analyzer, so its time includes
+     * resolving each class of the hierarchy once.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 10)
+    @Measurement(iterations = 20)
+    @OperationsPerInvocation(FreshHierarchies.HIERARCHY_COUNT)
+    public void analyzeDeepHierarchyCacheMiss(FreshHierarchies hierarchies, Blackhole blackhole) {
+        for (Class<?> entity : hierarchies.entities) {
+            blackhole.consume(analyzer.analyzeEntity(entity));
+        }
+    }
+    
+    @State(Scope.Benchmark)
+    public static class FreshHierarchies {
+        static final int HIERARCHY_COUNT = 200;
+        private static final int DEPTH = 5;
+        
+        private Path directory;
+        private URL jar;
+        private URLClassLoader classLoader;
+        Class<?>[] entities;
+        
+        @Setup(Level.Trial)
+        public void writeClasses() throws Exception {
+            directory = Files.createTempDirectory("dbdrift-analyzer-bench");
+            jar = SyntheticClasses.writeHierarchyJar(directory, HIERARCHY_COUNT, DEPTH).toUri().toURL();
+        }
+        
+        /**
+         * Loading defines the superclasses too, so only the analysis is timed.
+         */
+        @Setup(Level.Iteration)
+        public void loadClasses() throws Exception {
+            classLoader = new URLClassLoader(new URL[] {jar}, JpaEntityAnalyzerBenchmark.class.getClassLoader());
+            entities = new Class<?>[HIERARCHY_COUNT];
+            for (int i = 0; i < HIERARCHY_COUNT; i++) {
+                entities[i] = Class.forName(SyntheticClasses.hierarchyEntity(i), false, classLoader);
+            }
+        }
+        
+        @TearDown(Level.Iteration)
+        public void unloadClasses() throws Exception {
+            entities = null;
+            classLoader.close();
+        }
+        
+        @TearDown(Level.Trial)
+        public void deleteClasses() throws Exception {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+    
+    @Embeddable
+    public static class Address {
+        private String street;
+        private String city;
+        @Column(name = "zip")
+        private String postalCode;
+        private String countryCode;
+    }
+    
+    @MappedSuperclass
+    public abstract static class AuditedEntity {
+        private Long id;
+        private Instant createdAt;
+        private String createdBy;
+        private Instant updatedAt;
+        private String updatedBy;
+        private Long version;
+    }
+    
+    @MappedSuperclass
+    public abstract static class TenantEntity extends AuditedEntity {
+        private String tenantId;
+        @ManyToOne
+        @JoinColumn(name = "owner_ref")
+        private AuditedEntity owner;
+    }
+    
+    @Entity
+    @Table(name = "customer")
+    @Inheritance
+    @DiscriminatorColumn(name = "customer_type")
+    public abstract static class Customer extends TenantEntity {
+        private String displayName;
+        @Embedded
+        private Address billingAddress;
+        @Embedded
+        private Address shippingAddress;
+    }
+    
+    @Entity
+    public abstract static class PrivateCustomer extends Customer {
+        private String firstName;
+        private String lastName;
+        private String nationalID;
+    }
+    
+    @Entity
+    public static class RetailCustomer extends PrivateCustomer {
+        private String loyaltyCardNumber;
+        private Integer loyaltyLevel2;
+    }
+    
+    @Entity
+    public static class CorporateCustomer extends Customer {
+        private String registrationNumber;
+        private String vatId;
+    }
+}
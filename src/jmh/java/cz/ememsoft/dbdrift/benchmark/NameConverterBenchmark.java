@@ -0,0 +1,72 @@
+package cz.ememsoft.dbdrift.benchmark;
+
+import cz.ememsoft.dbdrift.util.NameConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of typical entity field names, reported per name. In the warm-cache case the same names are
+ * converted again and answered from the memo cache. The cache-miss case converts a corpus eight times larger
+ * than the cache can hold, so seven of eight names run through the single-pass converter on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NameConverterBenchmark {
+    
+    private static final String[] PREFIXES = {"created", "updated", "customer", "order", "invoice", "XML", "html", "legacy"};
+    private static final String[] SUFFIXES = {"Id", "At", "By", "Name", "URL", "Version2", "Status", "Amount"};
+    
+    private static final int NAME_COUNT = 64;
+    // The converter caches at most 8192 names
+    private static final int CORPUS_SIZE = 8 * 8192;
+    
+    private String[] names;
+    private String[] corpus;
+    
+    @Setup
+    public void setUp() {
+        names = new String[NAME_COUNT];
+        int i = 0;
+        for (String prefix : PREFIXES) {
+            for (String suffix : SUFFIXES) {
+                names[i++] = prefix + suffix;
+            }
+        }
+        corpus = new String[CORPUS_SIZE];
+        for (i = 0; i < CORPUS_SIZE; i++) {
+            corpus[i] = PREFIXES[i % PREFIXES.length] + "Field" + i + SUFFIXES[i / PREFIXES.length % SUFFIXES.length];
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(NAME_COUNT)
+    public void camelToSnakeWarmCache(Blackhole blackhole) {
+        for (String name : names) {
+            blackhole.consume(NameConverter.camelToSnake(name));
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(CORPUS_SIZE)
+    public void camelToSnakeCacheMiss(Blackhole blackhole) {
+        for (String name : corpus) {
+            blackhole.consume(NameConverter.camelToSnake(name));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package cz.ememsoft.dbdrift.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Writes jars of minimal class files, every tenth of them annotated with {@code @Entity},
+ * so that discovery can be measured on classpaths far larger than the test entities. Jars of
+ * entity hierarchies give the analyzer classes it has not resolved yet when loaded by a new class loader.
+ */
+final class SyntheticClasses {
+    
+    static final String PACKAGE_NAME = "bench.model";
+    static final String HIERARCHY_PACKAGE_NAME = "bench.hierarchy";
+    
+    private static final int JAVA_17_MAJOR_VERSION = 61;
+    private static final int ACC_PUBLIC_SUPER = 0x0021;
+    private static final int ACC_PRIVATE = 0x0002;
+    
+    private SyntheticClasses() {}
+    
+    static Path writeJar(Path directory, int classCount) throws IOException {
+        Path jar = directory.resolve("synthetic-" + classCount + ".jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            for (int i = 0; i < classCount; i++) {
+                String internalName = PACKAGE_NAME.replace('.', '/') + "/module" + (i % 50) + "/Class" + i;
+                out.putNextEntry(new JarEntry(internalName + ".class"));
+                writeClass(out, internalName, "java/lang/Object",
+                    i % 10 == 0 ? "Ljakarta/persistence/Entity;" : "Ljava/lang/Deprecated;", "attribute");
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+    
+    /**
+     * Writes {@code hierarchyCount} entities, each at the bottom of its own chain of {@code depth - 1}
+     * {@code @MappedSuperclass} classes. Returns the jar; the entities are named by {@link #hierarchyEntity}.
+     */
+    static Path writeHierarchyJar(Path directory, int hierarchyCount, int depth) throws IOException {
+        Path jar = directory.resolve("hierarchies-" + hierarchyCount + "x" + depth + ".jar");
+        String packagePath = HIERARCHY_PACKAGE_NAME.replace('.', '/');
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            for (int hierarchy = 0; hierarchy < hierarchyCount; hierarchy++) {
+                String superName = "java/lang/Object";
+                for (int level = 0; level < depth; level++) {
+                    boolean entity = level == depth - 1;
+                    String internalName = entity ? hierarchyEntity(hierarchy).replace('.', '/')
+                        : packagePath + "/Base" + hierarchy + "Level" + level;
+                    out.putNextEntry(new JarEntry(internalName + ".class"));
+                    writeClass(out, internalName, superName,
+                        entity ? "Ljakarta/persistence/Entity;" : "Ljakarta/persistence/MappedSuperclass;",
+                        "level" + level + "Attribute");
+                    out.closeEntry();
+                    superName = internalName;
+                }
+            }
+        }
+        return jar;
+    }
+    
+    static String hierarchyEntity(int hierarchy) {
+        return HIERARCHY_PACKAGE_NAME + ".Entity" + hierarchy;
+    }
+    
+    private static void writeClass(OutputStream target, String internalName, String superName,
+                                   String annotationDescriptor, String fieldPrefix) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);
+        out.writeShort(JAVA_17_MAJOR_VERSION);
+        
+        // Constant pool: #1 name, #2 class, #3 super name, #4 super class, #5 attribute name,
+        // #6 annotation type, #7 field descriptor, #8.. field names
+        int fieldCount = 8;
+        out.writeShort(8 + fieldCount);
+        utf8(out, internalName);
+        classRef(out, 1);
+        utf8(out, superName);
+        classRef(out, 3);
+        utf8(out, "RuntimeVisibleAnnotations");
+        utf8(out, annotationDescriptor);
+        utf8(out, "Ljava/lang/String;");
+        for (int i = 0; i < fieldCount; i++) {
+            utf8(out, fieldPrefix + i);
+        }
+        
+        out.writeShort(ACC_PUBLIC_SUPER);
+        out.writeShort(2);
+        out.writeShort(4);
+        out.writeShort(0);
+        
+        out.writeShort(fieldCount);
+        for (int i = 0; i < fieldCount; i++) {
+            out.writeShort(ACC_PRIVATE);
+            out.writeShort(8 + i);
+            out.writeShort(7);
+            out.writeShort(0);
+        }
+        out.writeShort(0);
+        
+        out.writeShort(1);
+        out.writeShort(5);
+        out.writeInt(6);
+        out.writeShort(1);
+        out.writeShort(6);
+        out.writeShort(0);
+        
+        out.flush();
+        bytes.writeTo(target);
+    }
+    
+    private static void utf8(DataOutputStream out, String value) throws IOException {
+        out.writeByte(1);
+        out.writeUTF(value);
+    }
+    
+    private static void classRef(DataOutputStream out, int nameIndex) throws IOException {
+        out.writeByte(7);
+        out.writeShort(nameIndex);
+    }
+}
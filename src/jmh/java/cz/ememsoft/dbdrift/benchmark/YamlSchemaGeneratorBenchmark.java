@@ -0,0 +1,74 @@
+package cz.ememsoft.dbdrift.benchmark;
+
+import cz.ememsoft.dbdrift.generator.YamlSchemaGenerator;
+import cz.ememsoft.dbdrift.model.ColumnName;
+import cz.ememsoft.dbdrift.model.DatabaseSchema;
+import cz.ememsoft.dbdrift.model.TableName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * YAML output of large schemas, written to a temporary file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class YamlSchemaGeneratorBenchmark {
+    
+    private static final int COLUMNS_PER_TABLE = 20;
+    
+    @Param({"1000", "10000"})
+    int tableCount;
+    
+    private final YamlSchemaGenerator generator = new YamlSchemaGenerator();
+    private DatabaseSchema schema;
+    private Path outputFile;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Map<TableName, Set<ColumnName>> tables = new LinkedHashMap<>();
+        // Reverse order so that the generator has to sort tables and columns
+        for (int table = tableCount - 1; table >= 0; table--) {
+            Set<ColumnName> columns = new LinkedHashSet<>();
+            for (int column = COLUMNS_PER_TABLE - 1; column >= 0; column--) {
+                columns.add(new ColumnName("COLUMN_" + column));
+            }
+            tables.put(new TableName("TABLE_" + table), columns);
+        }
+        schema = new DatabaseSchema(tables);
+        outputFile = Files.createTempFile("dbdrift-yaml-bench", ".yaml");
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(outputFile);
+    }
+    
+    @Benchmark
+    public Path generateDatabaseSchemaYaml() throws Exception {
+        generator.generateDatabaseSchemaYaml(schema, outputFile.toString());
+        return outputFile;
+    }
+}
@@ -1,31 +1,70 @@
 package cz.ememsoft.dbdrift.cli;
 
+import cz.ememsoft.dbdrift.db.ConnectionPool;
 import lombok.Getter;
 import lombok.ToString;
 import picocli.CommandLine.Option;
 
+import java.nio.file.Path;
+
 /**
  * Dátová trieda, ktorá uchováva spracované argumenty z príkazového riadka pomocou Picocli.
  */
 @Getter
 @ToString(exclude = "password")
 public class CliArguments {
-    @Option(names = "--classpath", required = true, description = "Cesta k kompilovaným triedam (napr. target/classes alebo JAR súbor).")
+    @Option(names = "--classpath", required = true, description = "Classpath s kompilovanými triedami: adresáre a JAR súbory oddelené oddeľovačom ciest (napr. target/classes:lib/model.jar). Podporuje aj Spring Boot JAR s BOOT-INF/lib.")
     private String classpath;
     @Option(names = "--package", required = true, description = "Koreňový balíček pre vyhľadávanie JPA entít (napr. com.example.entities).")
     private String rootPackage;
-    @Option(names = "--db-type", required = true, description = "Typ databázy. Musí byť 'oracle'.")
+    @Option(names = "--db-type", required = true, description = "Typ databázy: oracle, postgresql, mysql, mariadb alebo h2. Ďalšie typy pridávajú extraktory metadát na classpath (MetadataExtractor.Provider cez ServiceLoader).")
     private String dbType;
-    @Option(names = "--host", required = true, description = "Adresa databázového servera.")
+    @Option(names = "--host", description = "Adresa databázového servera. Povinné, ak nie je zadané --targets.")
     private String host;
-    @Option(names = "--port", required = true, description = "Port databázového servera.")
+    @Option(names = "--port", description = "Port databázového servera.")
     private int port;
-    @Option(names = "--user", required = true, description = "Používateľské meno pre pripojenie k databáze.")
+    @Option(names = "--user", description = "Používateľské meno pre pripojenie k databáze.")
     private String user;
-    @Option(names = "--password", required = true, description = "Heslo pre pripojenie k databáze.", interactive = true)
+    @Option(names = "--password", defaultValue = "${env:DB_DRIFT_PASSWORD}", description = "Heslo pre pripojenie k databáze. Z bezpečnostných dôvodov sa vyžiada interaktívne; bez voľby sa vezme z premennej prostredia DB_DRIFT_PASSWORD.", interactive = true, arity = "0")
     private String password;
-    @Option(names = "--dbname", required = true, description = "Názov služby (Service Name) alebo SID Oracle databázy.")
+    @Option(names = "--dbname", description = "Názov služby (Service Name) alebo SID Oracle databázy.")
     private String dbName;
-    @Option(names = "--schema", required = true, description = "Názov schémy (vlastníka objektov) v Oracle (napr. HR).")
+    @Option(names = "--schema", description = "Názov schémy (vlastníka objektov), v MySQL a MariaDB databázy (napr. HR). Prevedie sa na veľkosť písmen, v ktorej databáza ukladá neuvedené identifikátory.")
     private String schema;
+    @Option(names = "--cache-dir", description = "Adresár pre perzistentný index JPA entít. Pri nezmenených triedach sa analýza entít preskočí.")
+    private Path cacheDir;
+    @Option(names = "--analysis-threads", defaultValue = "1", description = "Počet vlákien pre analýzu JPA entít. Výsledok je rovnaký pri ľubovoľnom počte vlákien (predvolené: ${DEFAULT-VALUE}).")
+    private int analysisThreads;
+    @Option(names = "--drift-file", description = "Súbor, do ktorého sa zapíše nájdený drift (chýbajúce a nadbytočné tabuľky a stĺpce) vo formáte YAML.")
+    private Path driftFile;
+    @Option(names = "--fail-on-drift", description = "Ukončí aplikáciu s návratovým kódom 2, ak sa JPA entity a databáza líšia.")
+    private boolean failOnDrift;
+    @Option(names = "--fetch-size", defaultValue = "1000", description = "Počet riadkov prenesených z databázy jednou sieťovou výmenou pri čítaní metadát (predvolené: ${DEFAULT-VALUE}, 0 ponechá predvolenú hodnotu ovládača). Vyššia hodnota výrazne zrýchli extrakciu cez linky s vysokou latenciou.")
+    private int fetchSize;
+    @Option(names = "--extraction-connections", defaultValue = "1", description = "Počet súbežných pripojení pre čítanie metadát z Oracle. Pri hodnote väčšej ako 1 sa tabuľky rozdelia podľa ORA_HASH do vedierok čítaných paralelne (predvolené: ${DEFAULT-VALUE}).")
+    private int extractionConnections;
+    @Option(names = "--snapshot-dir", description = "Adresár pre snapshoty databázovej schémy. Ak sa odtlačok schémy vypočítaný v databáze nezmenil, extrakcia metadát sa preskočí.")
+    private Path snapshotDir;
+    @Option(names = "--incremental", description = "Pri zmenenom odtlačku schémy znovu načíta iba tabuľky vytvorené alebo zmenené od posledného snapshotu podľa ALL_OBJECTS.LAST_DDL_TIME. Vyžaduje --snapshot-dir.")
+    private boolean incremental;
+    @Option(names = "--max-connections-per-host", defaultValue = "" + ConnectionPool.DEFAULT_MAX_CONNECTIONS_PER_HOST, description = "Najvyšší počet súčasne používaných pripojení k jednému databázovému serveru. Pripojenia sa držia v poole a znovu použijú bez nového prihlásenia (predvolené: ${DEFAULT-VALUE}).")
+    private int maxConnectionsPerHost;
+    @Option(names = "--targets", description = "Súbor YAML so zoznamom cieľových databáz a schém. Zapne flotilový režim: JPA entity sa analyzujú raz a všetky ciele sa porovnajú súbežne v jednom procese. Voľby --host, --port, --user, --password, --dbname a --schema sa vtedy nepoužijú.")
+    private Path targets;
+    @Option(names = "--secrets-file", description = "Súbor s heslami cieľov flotilového režimu vo formáte kľúč=heslo. Cieľ s passwordEnv berie heslo z premennej prostredia.")
+    private Path secretsFile;
+    @Option(names = "--fleet-parallelism", defaultValue = "32", description = "Najvyšší počet cieľov porovnávaných naraz vo flotilovom režime (predvolené: ${DEFAULT-VALUE}).")
+    private int fleetParallelism;
+    @Option(names = "--target-timeout", defaultValue = "600", description = "Časový limit jedného cieľa vo flotilovom režime v sekundách. Cieľ, ktorý ho prekročí, sa preruší a označí ako TIMED_OUT (predvolené: ${DEFAULT-VALUE}).")
+    private long targetTimeoutSeconds;
+    @Option(names = "--output-dir", defaultValue = ".", description = "Adresár pre výstupy flotilového režimu: jpa-schema.yaml, fleet-summary.yaml a podadresár structures/<prvých 16 znakov hashu>/ s database-schema.yaml a drift.yaml pre každú odlišnú štruktúru schémy, ktorý zdieľajú všetky ciele s rovnakou štruktúrou (predvolené: ${DEFAULT-VALUE}).")
+    private Path outputDir;
+    @Option(names = "--daemon", description = "Spustí démona, ktorý drží JVM, pool pripojení, index JPA entít a snapshoty v pamäti a vykonáva kontroly driftu na požiadanie cez lokálne HTTP rozhranie (POST /check) s odpoveďou vo formáte JSON.")
+    private boolean daemon;
+    @Option(names = "--daemon-port", defaultValue = "" + DaemonServer.DEFAULT_PORT, description = "Port HTTP rozhrania démona na adrese loopback (predvolené: ${DEFAULT-VALUE}).")
+    private int daemonPort;
+    @Option(names = "--daemon-token-file", defaultValue = "db-drift-daemon.token", description = "Súbor, do ktorého démon pri štarte zapíše náhodný token s právami 0600. Požiadavky ho posielajú v hlavičke Authorization: Bearer <token> (predvolené: ${DEFAULT-VALUE}).")
+    private Path daemonTokenFile;
+    @Option(names = "--watch", description = "Sleduje adresáre classpath a po každej zmene súborov tried znovu analyzuje iba zmenené JPA entity a ich závislé entity a vypíše drift voči schéme databázy načítanej raz pri štarte.")
+    private boolean watch;
 }
\ No newline at end of file
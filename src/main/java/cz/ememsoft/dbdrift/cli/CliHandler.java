@@ -1,11 +1,30 @@
 package cz.ememsoft.dbdrift.cli;
 
+import cz.ememsoft.dbdrift.config.ComparisonOptions;
 import cz.ememsoft.dbdrift.config.DatabaseConfig;
-import cz.ememsoft.dbdrift.db.DatabaseConnectionFactory;
+import cz.ememsoft.dbdrift.config.FleetConfigLoader;
+import cz.ememsoft.dbdrift.config.FleetTarget;
+import cz.ememsoft.dbdrift.db.ConnectionPool;
+import cz.ememsoft.dbdrift.db.MetadataExtractors;
+import cz.ememsoft.dbdrift.jpa.ClassFileWatcher;
+import cz.ememsoft.dbdrift.model.DatabaseSchema;
+import cz.ememsoft.dbdrift.model.FleetTargetResult;
+import cz.ememsoft.dbdrift.model.SchemaDrift;
+import cz.ememsoft.dbdrift.service.FleetComparisonService;
 import cz.ememsoft.dbdrift.service.SchemaComparisonService;
 import lombok.extern.slf4j.Slf4j;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Mixin;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.Callable;
 
 /**
@@ -20,38 +39,257 @@ public class CliHandler implements Callable<Integer> {
     @Override
     public Integer call() {
         log.info("Spúšťam generovanie YAML súborov pre schému databázy a JPA entity...");
-        log.debug("Prijaté argumenty (bez hesla): Host={}, Port={}, DBName={}, User={}, Schema={}, Classpath={}, Package={}",
+        log.debug("Prijaté argumenty (bez hesla): Host={}, Port={}, DBName={}, User={}, Schema={}, Classpath={}, Package={}, CacheDir={}, AnalysisThreads={}, DriftFile={}, FailOnDrift={}, FetchSize={}, ExtractionConnections={}, SnapshotDir={}, Incremental={}, MaxConnectionsPerHost={}, Targets={}, SecretsFile={}, FleetParallelism={}, TargetTimeout={}, OutputDir={}, Daemon={}, DaemonPort={}, Watch={}",
                 arguments.getHost(), arguments.getPort(), arguments.getDbName(), arguments.getUser(), 
-                arguments.getSchema(), arguments.getClasspath(), arguments.getRootPackage());
+                arguments.getSchema(), arguments.getClasspath(), arguments.getRootPackage(), arguments.getCacheDir(),
+                arguments.getAnalysisThreads(), arguments.getDriftFile(), arguments.isFailOnDrift(),
+                arguments.getFetchSize(), arguments.getExtractionConnections(),
+                arguments.getSnapshotDir(), arguments.isIncremental(), arguments.getMaxConnectionsPerHost(), arguments.getTargets(),
+                arguments.getSecretsFile(), arguments.getFleetParallelism(), arguments.getTargetTimeoutSeconds(),
+                arguments.getOutputDir(), arguments.isDaemon(), arguments.getDaemonPort(), arguments.isWatch());
 
-        if (!"oracle".equalsIgnoreCase(arguments.getDbType())) {
-            log.error("Nepodporovaný typ databázy: '{}'. Podporovaný je iba 'oracle'.", arguments.getDbType());
+        String dbType = arguments.getDbType().toLowerCase(Locale.ROOT);
+        if (!MetadataExtractors.databaseTypes().contains(dbType)) {
+            log.error("Nepodporovaný typ databázy: '{}'. Podporované sú: {}.", arguments.getDbType(),
+                    String.join(", ", MetadataExtractors.databaseTypes()));
+            return 1;
+        }
+        if (!ComparisonOptions.DEFAULT_DATABASE_TYPE.equals(dbType)
+                && (arguments.getSnapshotDir() != null || arguments.getExtractionConnections() > 1)) {
+            log.error("Voľby --snapshot-dir, --incremental a --extraction-connections sú podporované iba pre 'oracle'.");
+            return 1;
+        }
+        if (arguments.isIncremental() && arguments.getSnapshotDir() == null) {
+            log.error("Voľba --incremental vyžaduje --snapshot-dir.");
+            return 1;
+        }
+        int connectionsPerExtraction = connectionsPerExtraction();
+        if (arguments.getMaxConnectionsPerHost() < connectionsPerExtraction) {
+            log.error("Voľba --max-connections-per-host musí byť aspoň {} pre zvolené --extraction-connections.", connectionsPerExtraction);
+            return 1;
+        }
+        if (arguments.getTargets() == null && (arguments.getHost() == null || arguments.getPort() == 0
+                || arguments.getUser() == null || arguments.getPassword() == null || arguments.getDbName() == null
+                || arguments.getSchema() == null)) {
+            log.error("Chýbajú voľby --host, --port, --user, --password, --dbname a --schema, alebo --targets pre flotilový režim.");
+            return 1;
+        }
+        if (arguments.isWatch() && (arguments.isDaemon() || arguments.getTargets() != null)) {
+            log.error("Voľbu --watch nemožno kombinovať s --daemon ani s --targets.");
+            return 1;
+        }
+        if (arguments.getDaemonPort() < 0 || arguments.getDaemonPort() > 65535) {
+            log.error("Voľba --daemon-port musí byť v rozsahu 0 až 65535.");
             return 1;
         }
 
-        try {
-            var dbConfig = new DatabaseConfig(
-                    arguments.getHost(), arguments.getPort(), arguments.getDbName(),
-                    arguments.getUser(), arguments.getPassword(), arguments.getSchema().toUpperCase()
-            );
+        try (var connectionPool = new ConnectionPool(arguments.getMaxConnectionsPerHost())) {
+            var options = ComparisonOptions.builder()
+                    .cacheDirectory(arguments.getCacheDir())
+                    .analysisThreads(arguments.getAnalysisThreads())
+                    .driftFile(arguments.getDriftFile())
+                    .fetchSize(arguments.getFetchSize())
+                    .extractionConnections(arguments.getExtractionConnections())
+                    .snapshotDirectory(arguments.getSnapshotDir())
+                    .incrementalExtraction(arguments.isIncremental())
+                    .databaseType(dbType)
+                    .daemon(arguments.isDaemon() || arguments.isWatch())
+                    .build();
+            var comparisonService = new SchemaComparisonService(options);
+            if (arguments.isDaemon()) {
+                return runDaemon(comparisonService, connectionPool, dbType);
+            }
+            if (arguments.isWatch()) {
+                return runWatch(comparisonService, connectionPool, dbType);
+            }
+            if (arguments.getTargets() != null) {
+                return compareFleet(comparisonService, connectionPool, dbType);
+            }
             
-            var connectionFactory = new DatabaseConnectionFactory();
-            var comparisonService = new SchemaComparisonService();
+            var dbConfig = databaseConfig(dbType);
             
-            try (var connection = connectionFactory.createConnection(dbConfig)) {
-                comparisonService.generateSchemaYamls(
-                    arguments.getClasspath(), 
-                    arguments.getRootPackage(), 
-                    connection, 
-                    arguments.getSchema().toUpperCase()
-                );
-            }
+            SchemaDrift drift = comparisonService.generateSchemaYamls(
+                arguments.getClasspath(), 
+                arguments.getRootPackage(), 
+                connectionPool.connections(dbConfig, connectionsPerExtraction()), 
+                schemaName(dbType, arguments.getSchema())
+            );
             
             log.info("Generovanie YAML súborov bolo úspešne dokončené.");
+            if (arguments.isFailOnDrift() && drift.hasDrift()) {
+                log.error("JPA entity a databázová schéma sa líšia (--fail-on-drift).");
+                return 2;
+            }
             return 0;
         } catch (Exception e) {
             log.error("Počas generovania YAML súborov nastala kritická chyba.", e);
             return 1;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Flotilový režim: porovná JPA entity so všetkými cieľmi zo súboru {@code --targets}.
+     * Vráti 1, ak niektorý cieľ zlyhal alebo prekročil časový limit, 2 pri drifte s {@code --fail-on-drift}.
+     */
+    private int compareFleet(SchemaComparisonService comparisonService, ConnectionPool connectionPool, String dbType) throws Exception {
+        return fleetExitCode(compareFleet(comparisonService, connectionPool, dbType, arguments.getClasspath(), arguments.getRootPackage()));
+    }
+    
+    private List<FleetTargetResult> compareFleet(SchemaComparisonService comparisonService, ConnectionPool connectionPool,
+                                                 String dbType, String classpath, String packageName) throws Exception {
+        var loader = new FleetConfigLoader();
+        List<FleetTarget> fleetTargets = loader.loadTargets(arguments.getTargets());
+        Properties secrets = loader.loadSecrets(arguments.getSecretsFile());
+        
+        List<FleetComparisonService.Target> targets = new ArrayList<>();
+        for (FleetTarget target : fleetTargets) {
+            var dbConfig = new DatabaseConfig(
+                    dbType, target.host(), target.port(), target.serviceName(), target.user(),
+                    loader.resolvePassword(target, secrets, System.getenv()), schemaName(dbType, target.schema())
+            );
+            targets.add(new FleetComparisonService.Target(target.name(),
+                    connectionPool.connections(dbConfig, connectionsPerExtraction()), schemaName(dbType, target.schema())));
+        }
+        
+        var fleetService = new FleetComparisonService(comparisonService, arguments.getFleetParallelism(),
+                Duration.ofSeconds(arguments.getTargetTimeoutSeconds()));
+        return fleetService.compareAll(classpath, packageName, targets, arguments.getOutputDir());
+    }
+    
+    private int fleetExitCode(List<FleetTargetResult> results) {
+        if (results.stream().anyMatch(result -> result.status() == FleetTargetResult.Status.FAILED
+                || result.status() == FleetTargetResult.Status.TIMED_OUT)) {
+            log.error("Porovnanie niektorých cieľov zlyhalo alebo prekročilo časový limit.");
+            return 1;
+        }
+        log.info("Porovnanie všetkých {} cieľov bolo úspešne dokončené.", results.size());
+        if (arguments.isFailOnDrift() && results.stream().anyMatch(result -> result.status() == FleetTargetResult.Status.DRIFT)) {
+            log.error("JPA entity a databázová schéma sa líšia aspoň v jednom cieli (--fail-on-drift).");
+            return 2;
+        }
+        return 0;
+    }
+    
+    /**
+     * Režim démona: vykonáva kontroly na požiadanie s jednou službou porovnania a jedným poolom pripojení,
+     * kým ho neukončí {@code POST /shutdown}. Každá odpoveď obsahuje {@code exitCode}, ktorý by vrátil
+     * jednorazový beh s rovnakými voľbami.
+     */
+    private int runDaemon(SchemaComparisonService comparisonService, ConnectionPool connectionPool, String dbType) throws Exception {
+        DaemonServer.DriftCheck driftCheck;
+        if (arguments.getTargets() != null) {
+            driftCheck = (classpath, packageName) -> {
+                List<FleetTargetResult> results = compareFleet(comparisonService, connectionPool, dbType, classpath, packageName);
+                int exitCode = fleetExitCode(results);
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("status", exitCode == 1 ? "FAILED"
+                        : results.stream().anyMatch(target -> target.status() == FleetTargetResult.Status.DRIFT) ? "DRIFT" : "NO_DRIFT");
+                result.put("exitCode", exitCode);
+                result.put("targets", results.stream().map(CliHandler::targetJson).toList());
+                return result;
+            };
+        } else {
+            var dbConfig = databaseConfig(dbType);
+            driftCheck = (classpath, packageName) -> {
+                SchemaDrift drift = comparisonService.generateSchemaYamls(classpath, packageName,
+                        connectionPool.connections(dbConfig, connectionsPerExtraction()), schemaName(dbType, arguments.getSchema()));
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("status", drift.hasDrift() ? "DRIFT" : "NO_DRIFT");
+                result.put("exitCode", arguments.isFailOnDrift() && drift.hasDrift() ? 2 : 0);
+                result.putAll(DaemonServer.driftJson(drift));
+                return result;
+            };
+        }
+        
+        try (DaemonServer daemon = DaemonServer.start(arguments.getDaemonPort(), arguments.getDaemonTokenFile(), arguments.getClasspath(),
+                arguments.getRootPackage(), driftCheck)) {
+            daemon.awaitShutdown();
+        }
+        log.info("Démon bol ukončený.");
+        return 0;
+    }
+    
+    /**
+     * Režim sledovania: schéma databázy sa načíta raz, potom sa po každej zmene súborov tried znovu
+     * analyzujú iba zmenené entity a entity, ktoré od nich dedia alebo ich vkladajú, a vypíše sa drift.
+     * Beží, kým proces neukončí používateľ.
+     */
+    private int runWatch(SchemaComparisonService comparisonService, ConnectionPool connectionPool, String dbType) throws Exception {
+        // Pred pripojením k databáze: classpath bez adresára sa odmietne bez zbytočnej extrakcie
+        // a zmeny tried počas extrakcie sa nestratia
+        ClassFileWatcher classFileWatcher;
+        try {
+            classFileWatcher = new ClassFileWatcher(arguments.getClasspath());
+        } catch (IllegalArgumentException e) {
+            log.error("Voľba --watch vyžaduje v --classpath aspoň jeden adresár: {}", e.getMessage());
+            return 1;
+        }
+        
+        try (var watcher = classFileWatcher) {
+            var dbConfig = databaseConfig(dbType);
+            DatabaseSchema dbSchema = comparisonService.extractDatabaseSchema(
+                    connectionPool.connections(dbConfig, connectionsPerExtraction()), schemaName(dbType, arguments.getSchema()));
+            comparisonService.writeDatabaseSchemaYaml(dbSchema, Path.of("."));
+            // Pool sa už nepoužije; pripojenie by inak zostalo nečinné počas celého sledovania
+            connectionPool.close();
+            
+            while (true) {
+                long start = System.nanoTime();
+                try {
+                    SchemaDrift drift = comparisonService.compareWithDatabaseSchema(
+                            arguments.getClasspath(), arguments.getRootPackage(), dbSchema);
+                    log.info("Porovnanie dokončené za {} ms ({}). Čakám na zmeny tried...",
+                            (System.nanoTime() - start) / 1_000_000, drift.hasDrift() ? "drift nájdený" : "bez driftu");
+                } catch (Exception e) {
+                    // Napr. súbor triedy zapísaný iba čiastočne; ďalšia zmena spustí porovnanie znovu
+                    log.error("Porovnanie po zmene tried zlyhalo, čakám na ďalšiu zmenu.", e);
+                }
+                try {
+                    Set<Path> changed = watcher.awaitChanges();
+                    log.info("Zistených {} zmenených súborov tried.", changed.size());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    log.info("Sledovanie bolo ukončené.");
+                    return 0;
+                }
+            }
+        }
+    }
+    
+    private static Map<String, Object> targetJson(FleetTargetResult result) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("target", result.target());
+        json.put("status", result.status().name());
+        json.put("structure", result.structure());
+        json.put("elapsedMillis", result.elapsedMillis());
+        if (result.drift() != null) {
+            json.putAll(DaemonServer.driftJson(result.drift()));
+        }
+        if (result.error() != null) {
+            json.put("error", result.error());
+        }
+        return json;
+    }
+    
+    /**
+     * Počet pripojení, ktoré jedna extrakcia drží naraz. Pri snapshote zostáva pripojenie pre odtlačok
+     * otvorené počas paralelnej extrakcie.
+     */
+    private int connectionsPerExtraction() {
+        if (arguments.getExtractionConnections() <= 1) {
+            return 1;
+        }
+        return arguments.getExtractionConnections() + (arguments.getSnapshotDir() != null ? 1 : 0);
+    }
+    
+    private static String schemaName(String dbType, String schema) {
+        return MetadataExtractors.provider(dbType).schemaName(schema);
+    }
+    
+    private DatabaseConfig databaseConfig(String dbType) {
+        return new DatabaseConfig(
+                dbType, arguments.getHost(), arguments.getPort(), arguments.getDbName(),
+                arguments.getUser(), arguments.getPassword(), schemaName(dbType, arguments.getSchema())
+        );
+    }
+}
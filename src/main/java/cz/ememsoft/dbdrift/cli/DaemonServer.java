@@ -0,0 +1,273 @@
+package cz.ememsoft.dbdrift.cli;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import cz.ememsoft.dbdrift.model.ColumnName;
+import cz.ememsoft.dbdrift.model.SchemaDrift;
+import cz.ememsoft.dbdrift.model.TableName;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lokálne HTTP rozhranie režimu démona. Proces zostáva bežať s naplneným poolom pripojení, indexom
+ * JPA entít a otvorenými snapshotmi, takže opakovaná kontrola nezačína štartom JVM a novým prihlásením.
+ * Server počúva iba na loopback adrese a odpovedá vo formáte JSON:
+ * <ul>
+ *     <li>{@code GET /health} – stav démona a počet vykonaných kontrol</li>
+ *     <li>{@code POST /check} – vykoná kontrolu driftu; nepovinné telo {@code {"classpath": ..., "package": ...}}
+ *     nahradí hodnoty z príkazového riadka</li>
+ *     <li>{@code POST /shutdown} – ukončí démona</li>
+ * </ul>
+ * Kontroly sa vykonávajú po jednej, pretože zapisujú rovnaké výstupné súbory; ďalšie požiadavky čakajú.
+ * <p>
+ * Loopback adresa nestačí: na port sa pripojí každý lokálny používateľ aj stránka otvorená v prehliadači.
+ * Pri štarte sa preto vygeneruje náhodný token a zapíše do súboru s právami {@code 0600}; každá požiadavka
+ * ho musí poslať v hlavičke {@code Authorization: Bearer <token>}. Požiadavky s hlavičkou {@code Origin},
+ * ktorú posiela prehliadač, a telá s iným typom obsahu ako JSON sa odmietnu.
+ */
+@Slf4j
+public final class DaemonServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 8765;
+    private static final String JSON_CONTENT_TYPE = "application/json; charset=utf-8";
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final int TOKEN_BYTES = 32;
+
+    /**
+     * Jedna kontrola driftu; vráti telo odpovede, ktoré sa zapíše ako JSON.
+     */
+    @FunctionalInterface
+    public interface DriftCheck {
+        Map<String, Object> run(String classpath, String packageName) throws Exception;
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Path tokenFile;
+    private final byte[] token;
+    private final String defaultClasspath;
+    private final String defaultPackage;
+    private final DriftCheck driftCheck;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ReentrantLock checkLock = new ReentrantLock(true);
+    private final CountDownLatch shutdown = new CountDownLatch(1);
+    private final AtomicLong checks = new AtomicLong();
+
+    private DaemonServer(HttpServer server, Path tokenFile, String token, String defaultClasspath, String defaultPackage,
+                         DriftCheck driftCheck) {
+        this.server = server;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.tokenFile = tokenFile;
+        this.token = token.getBytes(StandardCharsets.US_ASCII);
+        this.defaultClasspath = defaultClasspath;
+        this.defaultPackage = defaultPackage;
+        this.driftCheck = driftCheck;
+        server.setExecutor(executor);
+        server.createContext("/health", exchange -> handle(exchange, "GET", this::health));
+        server.createContext("/check", exchange -> handle(exchange, "POST", this::check));
+        server.createContext("/shutdown", exchange -> handle(exchange, "POST", this::shutdown));
+    }
+
+    /**
+     * Spustí server na loopback adrese.
+     *
+     * @param port             port servera; 0 zvolí voľný port
+     * @param tokenFile        súbor, do ktorého sa zapíše token požiadaviek; pri ukončení sa zmaže
+     * @param defaultClasspath classpath kontroly, ak ju požiadavka neuvedie
+     * @param defaultPackage   balíček entít kontroly, ak ho požiadavka neuvedie
+     * @throws IOException ak sa port nepodarí obsadiť alebo token zapísať
+     */
+    public static DaemonServer start(int port, @NonNull Path tokenFile, @NonNull String defaultClasspath,
+                                     @NonNull String defaultPackage, @NonNull DriftCheck driftCheck) throws IOException {
+        String token = writeToken(tokenFile);
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        DaemonServer daemon = new DaemonServer(server, tokenFile, token, defaultClasspath, defaultPackage, driftCheck);
+        server.start();
+        log.info("Démon počúva na http://{}:{}, token je v súbore {}", server.getAddress().getHostString(), daemon.port(),
+                tokenFile.toAbsolutePath());
+        return daemon;
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Čaká, kým démona neukončí požiadavka {@code POST /shutdown}.
+     */
+    public void awaitShutdown() throws InterruptedException {
+        shutdown.await();
+    }
+
+    @Override
+    public void close() {
+        shutdown.countDown();
+        server.stop(0);
+        executor.shutdownNow();
+        try {
+            Files.deleteIfExists(tokenFile);
+        } catch (IOException e) {
+            log.warn("Súbor s tokenom {} sa nepodarilo zmazať.", tokenFile, e);
+        }
+    }
+
+    /**
+     * Telo odpovede s driftom jednej schémy; názvy tabuliek a stĺpcov sú reťazce.
+     */
+    public static Map<String, Object> driftJson(SchemaDrift drift) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("missingTables", names(drift.missingTables()));
+        json.put("extraTables", names(drift.extraTables()));
+        Map<String, Object> changedTables = new LinkedHashMap<>();
+        drift.changedTables().forEach((table, tableDrift) -> changedTables.put(table.value(), Map.of(
+                "missingColumns", tableDrift.missingColumns().stream().map(ColumnName::value).toList(),
+                "extraColumns", tableDrift.extraColumns().stream().map(ColumnName::value).toList())));
+        json.put("changedTables", changedTables);
+        return json;
+    }
+
+    /**
+     * Súbor sa vytvorí rovno s právami {@code 0600}, aby token nebolo možné prečítať pred zmenou práv.
+     * Súborový systém bez práv POSIX (Windows) ho chráni právami nadradeného adresára.
+     */
+    private static String writeToken(Path tokenFile) throws IOException {
+        byte[] random = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(random);
+        String token = HexFormat.of().formatHex(random);
+        Path parent = tokenFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.deleteIfExists(tokenFile);
+        if (tokenFile.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(tokenFile, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createFile(tokenFile);
+        }
+        Files.writeString(tokenFile, token, StandardCharsets.US_ASCII);
+        return token;
+    }
+
+    private boolean authorized(HttpExchange exchange) {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+            return false;
+        }
+        byte[] presented = authorization.substring(BEARER_PREFIX.length()).trim().getBytes(StandardCharsets.US_ASCII);
+        // Porovnanie v konštantnom čase neprezradí zhodnú predponu tokenu
+        return MessageDigest.isEqual(token, presented);
+    }
+
+    private static boolean isJsonOrMissing(String contentType) {
+        return contentType == null || contentType.toLowerCase(Locale.ROOT).startsWith("application/json");
+    }
+
+    private static List<String> names(List<TableName> tables) {
+        return tables.stream().map(TableName::value).toList();
+    }
+
+    private Response health(HttpExchange exchange) {
+        return new Response(200, Map.of("status", "UP", "checks", checks.get()));
+    }
+
+    private Response check(HttpExchange exchange) throws Exception {
+        String classpath = defaultClasspath;
+        String packageName = defaultPackage;
+        try (InputStream body = exchange.getRequestBody()) {
+            byte[] content = body.readAllBytes();
+            if (content.length > 0) {
+                JsonNode request = mapper.readTree(content);
+                if (request == null || !request.isObject()) {
+                    return error(400, "Telo požiadavky musí byť objekt JSON");
+                }
+                classpath = request.path("classpath").asText(classpath);
+                packageName = request.path("package").asText(packageName);
+            }
+        } catch (JsonProcessingException e) {
+            return error(400, "Telo požiadavky nie je platný JSON: " + e.getOriginalMessage());
+        }
+
+        checkLock.lockInterruptibly();
+        try {
+            long start = System.nanoTime();
+            log.info("Kontrola driftu pre balíček '{}'", packageName);
+            Map<String, Object> result = new LinkedHashMap<>(driftCheck.run(classpath, packageName));
+            result.put("elapsedMillis", (System.nanoTime() - start) / 1_000_000);
+            checks.incrementAndGet();
+            return new Response(200, result);
+        } finally {
+            checkLock.unlock();
+        }
+    }
+
+    private Response shutdown(HttpExchange exchange) {
+        log.info("Démon sa ukončuje na požiadanie.");
+        shutdown.countDown();
+        return new Response(200, Map.of("status", "STOPPING"));
+    }
+
+    private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        Response response;
+        try {
+            if (exchange.getRequestHeaders().containsKey("Origin")) {
+                response = error(403, "Požiadavky z prehliadača nie sú povolené");
+            } else if (!authorized(exchange)) {
+                response = error(401, "Chýba alebo nesedí token z " + tokenFile.toAbsolutePath());
+            } else if (!method.equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", method);
+                response = error(405, "Povolená metóda je " + method);
+            } else if (!isJsonOrMissing(exchange.getRequestHeaders().getFirst("Content-Type"))) {
+                response = error(415, "Telo požiadavky musí mať typ application/json");
+            } else {
+                response = handler.handle(exchange);
+            }
+        } catch (Exception e) {
+            log.error("Požiadavka {} {} zlyhala.", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            response = error(500, e.getMessage() != null ? e.getMessage() : e.getClass().getName());
+        }
+        byte[] body = mapper.writeValueAsBytes(response.body());
+        exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+        exchange.sendResponseHeaders(response.status(), body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private static Response error(int status, String message) {
+        return new Response(status, Map.of("error", message));
+    }
+
+    private record Response(int status, Object body) {}
+
+    @FunctionalInterface
+    private interface Handler {
+        Response handle(HttpExchange exchange) throws Exception;
+    }
+}
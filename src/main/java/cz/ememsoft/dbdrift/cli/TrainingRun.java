@@ -0,0 +1,83 @@
+package cz.ememsoft.dbdrift.cli;
+
+import lombok.extern.slf4j.Slf4j;
+import picocli.CommandLine;
+import picocli.CommandLine.Model.OptionSpec;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.Statement;
+import java.util.Properties;
+
+/**
+ * Trénovací beh pre archív CDS (Class Data Sharing), ktorý vytvára profil {@code cds} pri zostavení:
+ * spustí bežné porovnanie cez {@link CliHandler} voči databáze H2 v pamäti, aby sa do archívu dostali
+ * triedy picocli, logback, Jackson YAML, analýzy entít a extrakcie metadát, a potom pokus o pripojenie
+ * k Oracle na zatvorenom porte, ktorý načíta triedy ovládača Oracle bez databázy.
+ * <p>
+ * Archív CDS je použiteľný iba s rovnakou classpath, s akou vznikol, preto beh používa iba zostavený JAR.
+ * H2 je jeho súčasťou, testovacie entity načíta analýza entít z {@code --classpath} vlastným class loaderom.
+ * <p>
+ * Argumenty: classpath s entitami, balíček entít.
+ */
+@Slf4j
+public final class TrainingRun {
+    private static final String USER = "TRAINING";
+    private static final String PASSWORD = "training";
+    private static final String DATABASE = "mem:training;DB_CLOSE_DELAY=-1";
+    // Na tomto porte nepočúva žiadna služba, pripojenie zlyhá okamžite
+    private static final String CLOSED_PORT = "1";
+
+    private TrainingRun() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Použitie: TrainingRun <classpath s entitami> <balíček entít>");
+            System.exit(1);
+        }
+
+        int exitCode;
+        // H2 je v JAR iba v rozsahu runtime, preto sa server spúšťa reflexiou
+        Class<?> serverClass = Class.forName("org.h2.tools.Server");
+        Object server = serverClass.getMethod("createTcpServer", String[].class)
+                .invoke(null, (Object) new String[] {"-tcpPort", "0", "-ifNotExists"});
+        serverClass.getMethod("start").invoke(server);
+        try {
+            String port = serverClass.getMethod("getPort").invoke(server).toString();
+            createFixture(port);
+            exitCode = run(args[0], args[1], "h2", port);
+            log.info("Trénovací beh voči H2 skončil s kódom {}", exitCode);
+
+            // Zlyhá pri pripojení; načíta ovládač Oracle a jeho sieťovú vrstvu
+            run(args[0], args[1], "oracle", CLOSED_PORT);
+        } finally {
+            serverClass.getMethod("stop").invoke(server);
+        }
+        // Archív sa zapíše pri ukončení JVM
+        System.exit(exitCode);
+    }
+
+    private static void createFixture(String port) throws Exception {
+        Driver driver = (Driver) Class.forName("org.h2.Driver").getDeclaredConstructor().newInstance();
+        Properties properties = new Properties();
+        properties.setProperty("user", USER);
+        properties.setProperty("password", PASSWORD);
+        try (Connection connection = driver.connect("jdbc:h2:tcp://localhost:" + port + "/" + DATABASE, properties);
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE PERSON (ID BIGINT PRIMARY KEY, FIRST_NAME VARCHAR(100), LAST_NAME VARCHAR(100))");
+            statement.execute("CREATE TABLE ADDRESS (ID BIGINT PRIMARY KEY, STREET VARCHAR(100), CITY VARCHAR(100))");
+            statement.execute("CREATE TABLE AUDIT_LOG (ID BIGINT PRIMARY KEY, MESSAGE VARCHAR(4000))");
+        }
+    }
+
+    private static int run(String classpath, String packageName, String databaseType, String port) {
+        // Heslo nejde do príkazového riadka; bežný beh bez výzvy ho berie z DB_DRIFT_PASSWORD
+        return new CommandLine(new CliHandler())
+                .setDefaultValueProvider(argument -> argument instanceof OptionSpec option
+                        && option.longestName().equals("--password") ? PASSWORD : null)
+                .execute("--classpath", classpath, "--package", packageName, "--db-type", databaseType,
+                        "--host", "localhost", "--port", port, "--user", USER,
+                        "--dbname", DATABASE, "--schema", "PUBLIC");
+    }
+}
@@ -0,0 +1,40 @@
+package cz.ememsoft.dbdrift.config;
+
+import cz.ememsoft.dbdrift.db.OracleMetadataExtractor;
+import lombok.Builder;
+
+import java.nio.file.Path;
+
+/**
+ * Nemenné nastavenia behu porovnania schém, ktoré nesúvisia s pripojením k databáze.
+ *
+ * @param cacheDirectory  adresár s indexom JPA entít; {@code null} vypína cache
+ * @param analysisThreads počet vlákien pre analýzu JPA entít; 0 alebo 1 analyzuje sériovo
+ * @param driftFile       súbor, do ktorého sa zapíše nájdený drift vo formáte YAML; {@code null} ho nezapisuje
+ * @param fetchSize       počet riadkov prenesených jednou sieťovou výmenou pri čítaní metadát; 0 ponechá
+ *                        predvolenú hodnotu ovládača. Builder začína na
+ *                        {@link OracleMetadataExtractor#DEFAULT_FETCH_SIZE}
+ * @param extractionConnections počet pripojení pre paralelné čítanie metadát z databázy; 0 alebo 1 číta sériovo
+ * @param snapshotDirectory adresár so snapshotmi databázových schém; pri nezmenenom odtlačku schémy sa extrakcia
+ *                          preskočí, {@code null} snapshoty vypína
+ * @param incrementalExtraction pri zmenenom odtlačku znovu načíta iba tabuľky, ktorých {@code LAST_DDL_TIME} sa od
+ *                              snapshotu zmenil; má účinok iba spolu so {@code snapshotDirectory}
+ * @param databaseType    typ databázy, podľa ktorého sa vyberie extraktor metadát; {@code null} znamená Oracle.
+ *                        Paralelné čítanie, snapshoty a inkrementálna extrakcia sú iba pre Oracle
+ * @param daemon          dlhobežiaci proces, ktorý vykoná viac porovnaní; index JPA entít sa potom drží
+ *                        v pamäti aj bez {@code cacheDirectory}
+ */
+@Builder(toBuilder = true)
+public record ComparisonOptions(Path cacheDirectory, int analysisThreads, Path driftFile, int fetchSize,
+                                int extractionConnections, Path snapshotDirectory,
+                                boolean incrementalExtraction, String databaseType, boolean daemon) {
+    public static final String DEFAULT_DATABASE_TYPE = "oracle";
+    
+    public static ComparisonOptionsBuilder builder() {
+        return new ComparisonOptionsBuilder().fetchSize(OracleMetadataExtractor.DEFAULT_FETCH_SIZE);
+    }
+    
+    public static ComparisonOptions defaults() {
+        return builder().build();
+    }
+}
@@ -4,12 +4,12 @@ import lombok.NonNull;
 
 /**
  * Nemenný (immutable) nosič konfigurácie pre pripojenie k databáze.
+ * Typ databázy ({@code --db-type}) určuje ovládač, tvar URL JDBC a extraktor metadát.
+ * Počet riadkov prenesených jednou sieťovou výmenou nastavuje extraktor na dopytoch,
+ * pozri {@link ComparisonOptions#fetchSize()}.
  */
 public record DatabaseConfig(
-        @NonNull String host, int port, @NonNull String serviceName,
+        @NonNull String databaseType, @NonNull String host, int port, @NonNull String serviceName,
         @NonNull String user, @NonNull String password, @NonNull String schema
 ) {
-    public String getJdbcUrl() {
-        return String.format("jdbc:oracle:thin:@//%s:%d/%s", host, port, serviceName);
-    }
-}
\ No newline at end of file
+}
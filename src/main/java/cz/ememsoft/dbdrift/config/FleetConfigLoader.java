@@ -0,0 +1,95 @@
+package cz.ememsoft.dbdrift.config;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Načíta zoznam cieľov flotilového režimu zo súboru YAML a heslá k nim z premenných prostredia
+ * alebo zo súboru s heslami vo formáte {@code kľúč=heslo}.
+ *
+ * <pre>
+ * targets:
+ *   - name: tenant-a
+ *     host: db1.example.com
+ *     port: 1521
+ *     serviceName: ORCL
+ *     user: TENANT_A
+ *     schema: TENANT_A
+ *     passwordEnv: TENANT_A_PASSWORD
+ * </pre>
+ */
+public class FleetConfigLoader {
+    
+    private static final Pattern VALID_NAME = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]*");
+    
+    record TargetsFile(List<FleetTarget> targets) {}
+    
+    private final ObjectMapper mapper = new ObjectMapper(new YAMLFactory())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    
+    public List<FleetTarget> loadTargets(@NonNull Path targetsFile) throws IOException {
+        TargetsFile file = mapper.readValue(targetsFile.toFile(), TargetsFile.class);
+        if (file == null || file.targets() == null || file.targets().isEmpty()) {
+            throw new IllegalArgumentException("Súbor " + targetsFile + " neobsahuje žiadne ciele");
+        }
+        Set<String> names = new HashSet<>();
+        for (FleetTarget target : file.targets()) {
+            if (!VALID_NAME.matcher(target.name()).matches()) {
+                throw new IllegalArgumentException("Názov cieľa '" + target.name() + "' môže obsahovať iba písmená, číslice, '.', '_' a '-'");
+            }
+            if (!names.add(target.name())) {
+                throw new IllegalArgumentException("Cieľ '" + target.name() + "' je v súbore " + targetsFile + " viackrát");
+            }
+        }
+        return List.copyOf(file.targets());
+    }
+    
+    /**
+     * Načíta súbor s heslami; {@code null} vráti prázdne heslá.
+     */
+    public Properties loadSecrets(Path secretsFile) throws IOException {
+        Properties secrets = new Properties();
+        if (secretsFile != null) {
+            try (Reader reader = Files.newBufferedReader(secretsFile, StandardCharsets.UTF_8)) {
+                secrets.load(reader);
+            }
+        }
+        return secrets;
+    }
+    
+    /**
+     * Vráti heslo cieľa z premennej prostredia {@code passwordEnv}, inak zo súboru s heslami.
+     *
+     * @throws IllegalArgumentException ak heslo nie je k dispozícii
+     */
+    public String resolvePassword(@NonNull FleetTarget target, @NonNull Properties secrets, @NonNull Map<String, String> environment) {
+        if (target.passwordEnv() != null) {
+            String password = environment.get(target.passwordEnv());
+            if (password == null) {
+                throw new IllegalArgumentException("Premenná prostredia " + target.passwordEnv() + " s heslom cieľa '"
+                        + target.name() + "' nie je nastavená");
+            }
+            return password;
+        }
+        String key = target.passwordKey() != null ? target.passwordKey() : target.name();
+        String password = secrets.getProperty(key);
+        if (password == null) {
+            throw new IllegalArgumentException("Heslo cieľa '" + target.name() + "' (kľúč '" + key + "') sa nenašlo v súbore s heslami");
+        }
+        return password;
+    }
+}
@@ -0,0 +1,19 @@
+package cz.ememsoft.dbdrift.config;
+
+import lombok.NonNull;
+
+/**
+ * Jedna cieľová databázová schéma vo flotilovom režime.
+ *
+ * @param name        jedinečný názov cieľa; použije sa ako názov výstupného adresára a predvolený kľúč hesla
+ * @param host        adresa databázového servera
+ * @param port        port databázového servera
+ * @param serviceName názov služby alebo SID Oracle databázy
+ * @param user        používateľské meno
+ * @param schema      názov schémy (vlastníka objektov)
+ * @param passwordEnv premenná prostredia s heslom; ak chýba, heslo sa hľadá v súbore s heslami
+ * @param passwordKey kľúč hesla v súbore s heslami; predvolene {@code name}
+ */
+public record FleetTarget(@NonNull String name, @NonNull String host, int port, @NonNull String serviceName,
+                          @NonNull String user, @NonNull String schema, String passwordEnv, String passwordKey) {
+}
@@ -0,0 +1,349 @@
+package cz.ememsoft.dbdrift.db;
+
+import cz.ememsoft.dbdrift.config.DatabaseConfig;
+import cz.ememsoft.dbdrift.exception.ApplicationExceptions;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Jednoduchý pool databázových pripojení, ktorý šetrí opakované prihlásenie (pri TLS stovky milisekúnd)
+ * pri viacerých extrakciách v jednom procese. Nečinné pripojenia sa držia podľa {@link DatabaseConfig};
+ * počet súčasne požičaných pripojení je obmedzený pre každý server, takže flotila cieľov na jednom
+ * serveri ho nepreťaží. Požičané pripojenie je proxy, ktorého {@code close()} ho vráti do poolu.
+ * <p>
+ * Nečinné pripojenie sa pred požičaním overí cez {@link Connection#isClosed}, po nečinnosti dlhšej ako
+ * {@link #VALIDATION_IDLE_TIME} aj cez {@link Connection#isValid}, a zatvorí sa, ak bolo nečinné dlhšie
+ * ako {@code idleTimeout}. Pool nemá vlastné vlákno; nečinné pripojenia sa vyraďujú pri požičaní a vrátení.
+ */
+@Slf4j
+public final class ConnectionPool implements AutoCloseable {
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 16;
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(5);
+    public static final Duration DEFAULT_BORROW_TIMEOUT = Duration.ofMinutes(2);
+    private static final Duration VALIDATION_IDLE_TIME = Duration.ofSeconds(5);
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private record IdleConnection(Connection connection, long idleSince) {}
+
+    private final int maxConnectionsPerHost;
+    private final long idleTimeoutNanos;
+    private final Duration borrowTimeout;
+    private final Function<DatabaseConfig, Connection> connector;
+    private final Map<DatabaseConfig, Deque<IdleConnection>> idleConnections = new ConcurrentHashMap<>();
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    public ConnectionPool(int maxConnectionsPerHost) {
+        this(maxConnectionsPerHost, DEFAULT_IDLE_TIMEOUT, DEFAULT_BORROW_TIMEOUT, DatabaseConnectionFactory::createConnection);
+    }
+
+    /**
+     * @param maxConnectionsPerHost najvyšší počet súčasne požičaných pripojení k jednému serveru; rovnako
+     *                              veľa nečinných pripojení sa drží pre jednu konfiguráciu
+     * @param idleTimeout           po akom čase nečinnosti sa pripojenie zatvorí
+     * @param borrowTimeout         ako dlho sa čaká na voľné pripojenie, keď je limit servera vyčerpaný
+     * @param connector             otvára nové fyzické pripojenia
+     */
+    public ConnectionPool(int maxConnectionsPerHost, @NonNull Duration idleTimeout, @NonNull Duration borrowTimeout,
+                          @NonNull Function<DatabaseConfig, Connection> connector) {
+        this.maxConnectionsPerHost = Math.max(1, maxConnectionsPerHost);
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.borrowTimeout = borrowTimeout;
+        this.connector = connector;
+    }
+
+    /**
+     * Požičia nečinné pripojenie pre danú konfiguráciu alebo otvorí nové. Vráti sa zatvorením.
+     *
+     * @throws ApplicationExceptions.DatabaseConnectionException ak sa do {@code borrowTimeout} neuvoľní
+     *                                                           pripojenie k serveru alebo sa nepodarí pripojiť
+     */
+    public Connection getConnection(@NonNull DatabaseConfig config) {
+        if (closed) {
+            throw new IllegalStateException("Pool pripojení je zatvorený");
+        }
+        Semaphore permits = hostPermits(config);
+        acquire(permits, 1, config);
+        return borrow(config, permits::release);
+    }
+
+    /**
+     * Dodávateľ pripojení pre jednu extrakciu, ktorá drží viac pripojení naraz, napr. pripojenie pre odtlačok
+     * počas paralelného čítania vedierok. Pri prvom požičaní sa z limitu servera obsadí naraz všetkých
+     * {@code connectionsPerExtraction} pripojení a uvoľnia sa, keď sa vráti posledné požičané. Extrakcia tak
+     * nečaká na server, kým drží časť jeho limitu; pri požičiavaní po jednom by súbežné extrakcie na jednom
+     * serveri obsadili limit po častiach a čakali by na seba navzájom až do {@code borrowTimeout}.
+     *
+     * @throws IllegalArgumentException ak je {@code connectionsPerExtraction} vyšší ako limit servera
+     */
+    public Supplier<Connection> connections(@NonNull DatabaseConfig config, int connectionsPerExtraction) {
+        if (connectionsPerExtraction > maxConnectionsPerHost) {
+            throw new IllegalArgumentException("Extrakcia s " + connectionsPerExtraction
+                    + " pripojeniami prekračuje limit servera " + maxConnectionsPerHost);
+        }
+        return new Reservation(config, Math.max(1, connectionsPerExtraction))::getConnection;
+    }
+
+    /**
+     * Zatvorí nečinné pripojenia; požičané pripojenia sa zatvoria pri vrátení.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        idleConnections.values().forEach(idle -> {
+            for (IdleConnection connection; (connection = idle.pollFirst()) != null; ) {
+                closeQuietly(connection.connection());
+            }
+        });
+    }
+
+    private Semaphore hostPermits(DatabaseConfig config) {
+        return hostPermits.computeIfAbsent(config.host().toLowerCase(Locale.ROOT),
+                host -> new Semaphore(maxConnectionsPerHost, true));
+    }
+
+    private void acquire(Semaphore permits, int count, DatabaseConfig config) {
+        try {
+            if (!permits.tryAcquire(count, borrowTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new ApplicationExceptions.DatabaseConnectionException("Na voľné pripojenie k serveru " + config.host()
+                        + " sa nedočkalo za " + borrowTimeout.toSeconds() + " s (limit " + maxConnectionsPerHost + ")", null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApplicationExceptions.DatabaseConnectionException("Čakanie na pripojenie bolo prerušené", e);
+        }
+    }
+
+    /**
+     * Požičia pripojenie, pre ktoré je už obsadený limit; {@code onReturn} ho uvoľní.
+     */
+    private Connection borrow(DatabaseConfig config, Runnable onReturn) {
+        try {
+            Connection connection = takeIdleConnection(config);
+            if (connection == null) {
+                connection = connector.apply(config);
+            }
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                    new PooledConnection(config, connection, onReturn));
+        } catch (RuntimeException e) {
+            onReturn.run();
+            throw e;
+        }
+    }
+
+    private Connection takeIdleConnection(DatabaseConfig config) {
+        Deque<IdleConnection> idle = idleConnections.get(config);
+        if (idle == null) {
+            return null;
+        }
+        // Najčerstvejšie vrátené pripojenie je prvé, staré tak na konci vyprší
+        for (IdleConnection candidate; (candidate = idle.pollFirst()) != null; ) {
+            long idleNanos = System.nanoTime() - candidate.idleSince();
+            if (idleNanos > idleTimeoutNanos || isClosed(candidate.connection())) {
+                closeQuietly(candidate.connection());
+            } else if (idleNanos > VALIDATION_IDLE_TIME.toNanos() && !isValid(candidate.connection())) {
+                log.debug("Nečinné pripojenie k {} už nie je platné, otvára sa nové", config.host());
+                closeQuietly(candidate.connection());
+            } else {
+                return candidate.connection();
+            }
+        }
+        return null;
+    }
+
+    private void release(DatabaseConfig config, Connection connection, Runnable onReturn) {
+        try {
+            if (closed || connection.isClosed() || !reset(connection)) {
+                closeQuietly(connection);
+                return;
+            }
+            Deque<IdleConnection> idle = idleConnections.computeIfAbsent(config, key -> new ConcurrentLinkedDeque<>());
+            idle.offerFirst(new IdleConnection(connection, System.nanoTime()));
+            for (IdleConnection evicted; idle.size() > maxConnectionsPerHost && (evicted = idle.pollLast()) != null; ) {
+                closeQuietly(evicted.connection());
+            }
+            for (IdleConnection oldest; (oldest = idle.peekLast()) != null && System.nanoTime() - oldest.idleSince() > idleTimeoutNanos; ) {
+                if (idle.removeLastOccurrence(oldest)) {
+                    closeQuietly(oldest.connection());
+                }
+            }
+            if (closed) {
+                close();
+            }
+        } catch (SQLException e) {
+            closeQuietly(connection);
+        } finally {
+            onReturn.run();
+        }
+    }
+
+    /**
+     * Odvolá nedokončenú transakciu, aby ďalší vypožičiavateľ dostal pripojenie v predvolenom stave.
+     */
+    private static boolean reset(Connection connection) {
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Lokálna kontrola bez sieťovej výmeny; odhalí pripojenie zatvorené ovládačom počas nečinnosti.
+     */
+    private static boolean isClosed(Connection connection) {
+        try {
+            return connection.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    private static boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.debug("Pripojenie sa nepodarilo zatvoriť", e);
+        }
+    }
+
+    /**
+     * Limit servera obsadený naraz pre všetky pripojenia jednej extrakcie, pozri {@link #connections}.
+     * Vlastný semafor obmedzuje extrakciu na rezervovaný počet súčasne požičaných pripojení.
+     */
+    private final class Reservation {
+        private final DatabaseConfig config;
+        private final int size;
+        private final Semaphore permits;
+        private final ReentrantLock lock = new ReentrantLock();
+        private int borrowed;
+
+        Reservation(DatabaseConfig config, int size) {
+            this.config = config;
+            this.size = size;
+            this.permits = new Semaphore(size, true);
+        }
+
+        Connection getConnection() {
+            if (closed) {
+                throw new IllegalStateException("Pool pripojení je zatvorený");
+            }
+            acquire(permits, 1, config);
+            lock.lock();
+            try {
+                if (borrowed == 0) {
+                    acquire(hostPermits(config), size, config);
+                }
+                borrowed++;
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            } finally {
+                lock.unlock();
+            }
+            return borrow(config, this::returned);
+        }
+
+        private void returned() {
+            lock.lock();
+            try {
+                if (--borrowed == 0) {
+                    hostPermits(config).release(size);
+                }
+            } finally {
+                lock.unlock();
+            }
+            permits.release();
+        }
+    }
+
+    /**
+     * Požičané pripojenie: {@code close()} ho vráti do poolu, po vrátení už nie je použiteľné.
+     */
+    private final class PooledConnection implements InvocationHandler {
+        private final DatabaseConfig config;
+        private final Connection connection;
+        private final Runnable onReturn;
+        private boolean returned;
+
+        PooledConnection(DatabaseConfig config, Connection connection, Runnable onReturn) {
+            this.config = config;
+            this.connection = connection;
+            this.onReturn = onReturn;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    synchronized (this) {
+                        if (returned) {
+                            return null;
+                        }
+                        returned = true;
+                    }
+                    release(config, connection, onReturn);
+                    return null;
+                }
+                case "isClosed" -> {
+                    synchronized (this) {
+                        if (returned) {
+                            return true;
+                        }
+                    }
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Pooled[" + connection + "]";
+                }
+                default -> {
+                    synchronized (this) {
+                        if (returned) {
+                            throw new SQLException("Pripojenie už bolo vrátené do poolu");
+                        }
+                    }
+                }
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
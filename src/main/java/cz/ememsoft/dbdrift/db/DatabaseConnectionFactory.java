@@ -6,22 +6,74 @@ import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
 import java.sql.Connection;
+import java.sql.Driver;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Továreň (factory) na vytváranie databázových pripojení.
+ * <p>
+ * Pripojenie sa otvára priamo cez ovládač, ktorý určí {@link MetadataExtractor.Provider#driverClassName},
+ * bez {@link DriverManager}. Ten by pri prvom pripojení načítal a inicializoval všetky ovládače
+ * na classpath, takže krátky beh voči PostgreSQL by platil aj za inicializáciu ovládača Oracle.
  */
 @Slf4j
 public class DatabaseConnectionFactory {
+    // Ovládače sa vytvárajú raz; trieda, ktorá chýba, sa tu neuloží a pripojenie otvorí DriverManager
+    private static final Map<String, Driver> DRIVERS = new ConcurrentHashMap<>();
+
     public static Connection createConnection(@NonNull DatabaseConfig config) {
-        String url = config.getJdbcUrl();
+        String databaseType = config.databaseType().toLowerCase(Locale.ROOT);
+        MetadataExtractor.Provider provider = MetadataExtractors.provider(databaseType);
+        String url = provider.jdbcUrl(databaseType, config.host(), config.port(), config.serviceName());
         log.info("Pokúšam sa pripojiť k databáze na adrese: {}", url);
         try {
-            return DriverManager.getConnection(url, config.user(), config.password());
+            Properties properties = new Properties();
+            properties.setProperty("user", config.user());
+            properties.setProperty("password", config.password());
+            provider.configureConnection(properties);
+            Driver driver = driver(provider.driverClassName(databaseType));
+            if (driver == null) {
+                return DriverManager.getConnection(url, properties);
+            }
+            Connection connection = driver.connect(url, properties);
+            if (connection == null) {
+                throw new SQLException("Ovládač " + driver.getClass().getName() + " nepodporuje adresu " + url);
+            }
+            return connection;
         } catch (SQLException e) {
             log.error("Nepodarilo sa pripojiť k databáze. Skontrolujte prihlasovacie údaje, dostupnosť siete a databázy.", e);
             throw new ApplicationExceptions.DatabaseConnectionException("Nebolo možné nadviazať spojenie s databázou.", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Načíta ovládač vždy class loaderom tejto triedy. Cache je podľa názvu triedy, takže iný class loader,
+     * napr. kontextový class loader vlákna, by mohol dostať ovládač, ktorý sám nevidí.
+     */
+    private static Driver driver(String className) {
+        if (className == null) {
+            return null;
+        }
+        Driver driver = DRIVERS.get(className);
+        if (driver != null) {
+            return driver;
+        }
+        try {
+            Class<?> driverClass = Class.forName(className, true, DatabaseConnectionFactory.class.getClassLoader());
+            driver = (Driver) driverClass.getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            log.debug("Ovládač {} sa nenašiel, pripojenie otvorí DriverManager", className);
+            return null;
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            log.warn("Ovládač {} sa nepodarilo vytvoriť, pripojenie otvorí DriverManager", className, e);
+            return null;
+        }
+        Driver existing = DRIVERS.putIfAbsent(className, driver);
+        return existing != null ? existing : driver;
+    }
+}
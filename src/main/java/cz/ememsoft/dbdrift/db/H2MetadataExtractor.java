@@ -2,7 +2,9 @@ package cz.ememsoft.dbdrift.db;
 
 import cz.ememsoft.dbdrift.exception.ApplicationExceptions;
 import cz.ememsoft.dbdrift.model.ColumnName;
+import cz.ememsoft.dbdrift.model.CompactSchema;
 import cz.ememsoft.dbdrift.model.DatabaseSchema;
+import cz.ememsoft.dbdrift.model.SymbolTable;
 import cz.ememsoft.dbdrift.model.TableName;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
@@ -11,9 +13,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
-import java.util.Map;
+import java.util.Locale;
 import java.util.Set;
 
 /**
@@ -21,27 +21,39 @@ import java.util.Set;
  * Používa sa hlavne pre testovanie.
  */
 @Slf4j
-public class H2MetadataExtractor {
+public class H2MetadataExtractor implements MetadataExtractor {
     private static final String METADATA_QUERY = """
         SELECT TABLE_NAME, COLUMN_NAME 
         FROM INFORMATION_SCHEMA.COLUMNS 
         WHERE TABLE_SCHEMA = ? 
         ORDER BY TABLE_NAME, COLUMN_NAME""";
+    
+    private final SymbolTable symbols;
+    
+    public H2MetadataExtractor() {
+        this(new SymbolTable());
+    }
+    
+    /**
+     * @param symbols tabuľka, do ktorej sa internujú názvy tabuliek a stĺpcov
+     */
+    public H2MetadataExtractor(@NonNull SymbolTable symbols) {
+        this.symbols = symbols;
+    }
 
+    @Override
     public DatabaseSchema extractDatabaseSchema(@NonNull Connection connection, @NonNull String schemaName) {
         log.info("Získavam metadáta schémy z H2 databázy pre schému: '{}'", schemaName);
-        Map<TableName, Set<ColumnName>> tables = new LinkedHashMap<>();
-        int columnCount = 0;
+        CompactSchema.Builder builder = CompactSchema.builder();
         
         try (PreparedStatement stmt = connection.prepareStatement(METADATA_QUERY)) {
             stmt.setString(1, schemaName);
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    TableName tableName = new TableName(rs.getString("TABLE_NAME").toUpperCase());
-                    ColumnName columnName = new ColumnName(rs.getString("COLUMN_NAME").toUpperCase());
-                    tables.computeIfAbsent(tableName, k -> new LinkedHashSet<>()).add(columnName);
+                    TableName tableName = symbols.tableName(rs.getString("TABLE_NAME").toUpperCase());
+                    ColumnName columnName = symbols.columnName(rs.getString("COLUMN_NAME").toUpperCase());
+                    builder.add(tableName, columnName);
                     log.trace("Nájdený stĺpec v H2 DB: {}.{}", tableName.value(), columnName.value());
-                    columnCount++;
                 }
             }
         } catch (SQLException e) {
@@ -49,7 +61,35 @@ public class H2MetadataExtractor {
             throw new ApplicationExceptions.MetadataExtractionException("Nepodarilo sa extrahovať metadáta schémy H2.", e);
         }
         
-        log.info("Úspešne extrahované metadáta pre {} tabuliek a {} stĺpcov z H2.", tables.size(), columnCount);
-        return new DatabaseSchema(tables);
+        CompactSchema schema = builder.build();
+        log.info("Úspešne extrahované metadáta pre {} tabuliek a {} stĺpcov z H2.", schema.tableCount(), schema.columnCount());
+        return DatabaseSchema.of(schema);
+    }
+    
+    public static final class Provider implements MetadataExtractor.Provider {
+        @Override
+        public Set<String> databaseTypes() {
+            return Set.of("h2");
+        }
+        
+        @Override
+        public String jdbcUrl(String databaseType, String host, int port, String databaseName) {
+            return String.format("jdbc:h2:tcp://%s:%d/%s", host, port, databaseName);
+        }
+        
+        @Override
+        public String schemaName(String schemaName) {
+            return schemaName.toUpperCase(Locale.ROOT);
+        }
+        
+        @Override
+        public String driverClassName(String databaseType) {
+            return "org.h2.Driver";
+        }
+        
+        @Override
+        public MetadataExtractor create(int fetchSize, SymbolTable symbols) {
+            return new H2MetadataExtractor(symbols);
+        }
     }
-}
\ No newline at end of file
+}
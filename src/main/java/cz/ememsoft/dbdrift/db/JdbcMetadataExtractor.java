@@ -0,0 +1,148 @@
+package cz.ememsoft.dbdrift.db;
+
+import cz.ememsoft.dbdrift.exception.ApplicationExceptions;
+import cz.ememsoft.dbdrift.model.ColumnName;
+import cz.ememsoft.dbdrift.model.CompactSchema;
+import cz.ememsoft.dbdrift.model.DatabaseSchema;
+import cz.ememsoft.dbdrift.model.SymbolTable;
+import cz.ememsoft.dbdrift.model.TableName;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Všeobecný extraktor metadát cez {@link DatabaseMetaData#getColumns} pre ľubovoľný ovládač JDBC.
+ * Stĺpce sa čítajú jediným volaním pre celú schému a filtrujú na tabuľky z {@link DatabaseMetaData#getTables},
+ * takže stĺpce pohľadov sa nezapočítajú. Veľkosť písmen názvu schémy sa prispôsobí tomu, ako databáza
+ * ukladá neuvedené identifikátory. Rýchlejšie cesty jednotlivých dodávateľov majú pred ním prednosť.
+ */
+@Slf4j
+public class JdbcMetadataExtractor implements MetadataExtractor {
+    // H2 hlási tabuľky ako BASE TABLE, PostgreSQL partíciované tabuľky ako PARTITIONED TABLE
+    private static final String[] TABLE_TYPES = {"TABLE", "BASE TABLE", "PARTITIONED TABLE"};
+
+    private final SymbolTable symbols;
+
+    public JdbcMetadataExtractor() {
+        this(new SymbolTable());
+    }
+
+    /**
+     * @param symbols tabuľka, do ktorej sa internujú názvy tabuliek a stĺpcov
+     */
+    public JdbcMetadataExtractor(@NonNull SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    @Override
+    public DatabaseSchema extractDatabaseSchema(@NonNull Connection connection, @NonNull String schemaName) {
+        log.info("Získavam metadáta schémy cez DatabaseMetaData pre schému: '{}'", schemaName);
+        CompactSchema.Builder builder = CompactSchema.builder();
+        long start = System.nanoTime();
+
+        try {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String schema = storedIdentifier(metaData, schemaName);
+            // Napr. MySQL mapuje schémy na katalógy
+            boolean schemasAreCatalogs = !metaData.supportsSchemasInTableDefinitions();
+            String catalog = schemasAreCatalogs ? schema : null;
+            String schemaPattern = schemasAreCatalogs ? null : escapePattern(schema, metaData.getSearchStringEscape());
+
+            Set<String> tables = new HashSet<>();
+            try (ResultSet rs = metaData.getTables(catalog, schemaPattern, "%", TABLE_TYPES)) {
+                while (rs.next()) {
+                    tables.add(rs.getString("TABLE_NAME"));
+                }
+            }
+            try (ResultSet rs = metaData.getColumns(catalog, schemaPattern, "%", "%")) {
+                while (rs.next()) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new ApplicationExceptions.MetadataExtractionException("Extrakcia metadát bola prerušená.", null);
+                    }
+                    String table = rs.getString("TABLE_NAME");
+                    if (tables.contains(table)) {
+                        TableName tableName = symbols.tableName(table.toUpperCase());
+                        ColumnName columnName = symbols.columnName(rs.getString("COLUMN_NAME").toUpperCase());
+                        builder.add(tableName, columnName);
+                        log.trace("Nájdený stĺpec v DB: {}.{}", tableName.value(), columnName.value());
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            log.error("SQL chyba pri extrakcii metadát cez DatabaseMetaData.", e);
+            throw new ApplicationExceptions.MetadataExtractionException("Nepodarilo sa extrahovať metadáta schémy.", e);
+        }
+
+        CompactSchema schema = builder.build();
+        log.info("Úspešne extrahované metadáta pre {} tabuliek a {} stĺpcov za {} ms.", schema.tableCount(),
+                schema.columnCount(), (System.nanoTime() - start) / 1_000_000);
+        return DatabaseSchema.of(schema);
+    }
+
+    /**
+     * Identifikátor vo veľkosti písmen, v ktorej databáza ukladá neuvedené identifikátory. Ak databáza
+     * ukladá identifikátory tak, ako boli zadané, ponechá sa bez zmeny a porovnáva sa presne.
+     */
+    static String storedIdentifier(DatabaseMetaData metaData, String identifier) throws SQLException {
+        if (metaData.storesLowerCaseIdentifiers()) {
+            return identifier.toLowerCase(Locale.ROOT);
+        }
+        return metaData.storesUpperCaseIdentifiers() ? identifier.toUpperCase(Locale.ROOT) : identifier;
+    }
+
+    /**
+     * Názov schémy je vo vzore LIKE, takže {@code _} a {@code %} v ňom musia byť escapované.
+     */
+    private static String escapePattern(String name, String escape) {
+        if (escape == null || escape.isEmpty()) {
+            return name;
+        }
+        return name.replace(escape, escape + escape).replace("_", escape + "_").replace("%", escape + "%");
+    }
+
+    /**
+     * Poskytovateľ pre databázy bez vlastnej rýchlej cesty alebo ako náhrada, ak rýchla cesta chýba.
+     */
+    public static final class Provider implements MetadataExtractor.Provider {
+        static final Map<String, String> DRIVER_CLASS_NAMES = Map.of(
+            "postgresql", "org.postgresql.Driver",
+            "mysql", "com.mysql.cj.jdbc.Driver",
+            "mariadb", "org.mariadb.jdbc.Driver",
+            "h2", "org.h2.Driver");
+
+        @Override
+        public Set<String> databaseTypes() {
+            return Set.of("postgresql", "mysql", "mariadb", "h2");
+        }
+
+        @Override
+        public int priority() {
+            return GENERIC_PRIORITY;
+        }
+
+        @Override
+        public String jdbcUrl(String databaseType, String host, int port, String databaseName) {
+            return "h2".equals(databaseType)
+                ? String.format("jdbc:h2:tcp://%s:%d/%s", host, port, databaseName)
+                : String.format("jdbc:%s://%s:%d/%s", databaseType, host, port, databaseName);
+        }
+
+        @Override
+        public String driverClassName(String databaseType) {
+            return DRIVER_CLASS_NAMES.get(databaseType);
+        }
+
+        @Override
+        public MetadataExtractor create(int fetchSize, SymbolTable symbols) {
+            return new JdbcMetadataExtractor(symbols);
+        }
+    }
+}
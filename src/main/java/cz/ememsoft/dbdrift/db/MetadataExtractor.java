@@ -0,0 +1,73 @@
+package cz.ememsoft.dbdrift.db;
+
+import cz.ememsoft.dbdrift.model.DatabaseSchema;
+import cz.ememsoft.dbdrift.model.SymbolTable;
+
+import java.sql.Connection;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Číta metadáta schémy (tabuľky a stĺpce) z databázy jedného typu. Implementácie sa nachádzajú cez
+ * {@link java.util.ServiceLoader} podľa {@link Provider} registrovaných v {@code META-INF/services};
+ * pozri {@link MetadataExtractors}.
+ */
+public interface MetadataExtractor {
+
+    /**
+     * Načíta tabuľky a stĺpce schémy. Riadky sa spracúvajú priebežne, bez medzivýsledku v pamäti.
+     *
+     * @throws cz.ememsoft.dbdrift.exception.ApplicationExceptions.MetadataExtractionException pri chybe SQL
+     */
+    DatabaseSchema extractDatabaseSchema(Connection connection, String schemaName);
+
+    /**
+     * Poskytovateľ extraktora pre jeden alebo viac typov databáz. Ak typ podporuje viac poskytovateľov,
+     * použije sa ten s najvyššou prioritou, takže rýchla cesta dodávateľa má prednosť pred všeobecným
+     * {@link JdbcMetadataExtractor}. Implementácia musí mať verejný konštruktor bez parametrov.
+     */
+    interface Provider {
+        int GENERIC_PRIORITY = 0;
+        int VENDOR_PRIORITY = 100;
+
+        /**
+         * Typy databáz (hodnoty {@code --db-type}) malými písmenami.
+         */
+        Set<String> databaseTypes();
+
+        default int priority() {
+            return VENDOR_PRIORITY;
+        }
+
+        String jdbcUrl(String databaseType, String host, int port, String databaseName);
+
+        /**
+         * Názov schémy z príkazového riadka v tvare, v akom ho dostane extraktor. Predvolene sa ponechá
+         * a extraktor ho prispôsobí tomu, ako databáza ukladá neuvedené identifikátory.
+         */
+        default String schemaName(String schemaName) {
+            return schemaName;
+        }
+
+        /**
+         * Trieda ovládača JDBC, ktorá sa načíta až pri prvom pripojení k databáze tohto typu. Ak je
+         * {@code null} alebo trieda chýba, pripojenie otvorí {@link java.sql.DriverManager}, ktorý pri
+         * prvom použití inicializuje všetky ovládače na classpath vrátane ovládača Oracle.
+         */
+        default String driverClassName(String databaseType) {
+            return null;
+        }
+
+        /**
+         * Doplní vlastnosti pripojenia ovládača, napr. veľkosť cache pripravených dopytov.
+         */
+        default void configureConnection(Properties properties) {
+        }
+
+        /**
+         * @param fetchSize počet riadkov prenesených jednou sieťovou výmenou; 0 ponechá predvolenú hodnotu ovládača
+         * @param symbols   tabuľka, do ktorej sa internujú názvy tabuliek a stĺpcov
+         */
+        MetadataExtractor create(int fetchSize, SymbolTable symbols);
+    }
+}
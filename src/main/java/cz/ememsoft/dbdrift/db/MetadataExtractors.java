@@ -0,0 +1,56 @@
+package cz.ememsoft.dbdrift.db;
+
+import cz.ememsoft.dbdrift.model.SymbolTable;
+import lombok.NonNull;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Register extraktorov metadát načítaných cez {@link ServiceLoader}. Poskytovatelia sa hľadajú v class
+ * loaderi aplikácie, takže extraktor ďalšej databázy stačí pridať na classpath.
+ */
+public final class MetadataExtractors {
+
+    private MetadataExtractors() {
+    }
+
+    /**
+     * Poskytovateľ s najvyššou prioritou pre daný typ databázy.
+     *
+     * @throws IllegalArgumentException ak typ nepodporuje žiadny poskytovateľ
+     */
+    public static MetadataExtractor.Provider provider(@NonNull String databaseType) {
+        String type = databaseType.toLowerCase(Locale.ROOT);
+        return Holder.PROVIDERS.stream()
+            .filter(provider -> provider.databaseTypes().contains(type))
+            .max(Comparator.comparingInt(MetadataExtractor.Provider::priority))
+            .orElseThrow(() -> new IllegalArgumentException("Nepodporovaný typ databázy: '" + databaseType
+                + "'. Podporované sú: " + String.join(", ", databaseTypes())));
+    }
+
+    public static MetadataExtractor create(@NonNull String databaseType, int fetchSize, @NonNull SymbolTable symbols) {
+        return provider(databaseType).create(fetchSize, symbols);
+    }
+
+    /**
+     * Zoradené typy databáz, ktoré podporuje aspoň jeden poskytovateľ.
+     */
+    public static Set<String> databaseTypes() {
+        Set<String> types = new TreeSet<>();
+        Holder.PROVIDERS.forEach(provider -> types.addAll(provider.databaseTypes()));
+        return types;
+    }
+
+    private static final class Holder {
+        static final List<MetadataExtractor.Provider> PROVIDERS = ServiceLoader
+            .load(MetadataExtractor.Provider.class, MetadataExtractors.class.getClassLoader())
+            .stream()
+            .map(ServiceLoader.Provider::get)
+            .toList();
+    }
+}
@@ -0,0 +1,114 @@
+package cz.ememsoft.dbdrift.db;
+
+import cz.ememsoft.dbdrift.exception.ApplicationExceptions;
+import cz.ememsoft.dbdrift.model.ColumnName;
+import cz.ememsoft.dbdrift.model.CompactSchema;
+import cz.ememsoft.dbdrift.model.DatabaseSchema;
+import cz.ememsoft.dbdrift.model.SymbolTable;
+import cz.ememsoft.dbdrift.model.TableName;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Rýchla cesta pre MySQL a MariaDB: jediný dopyt na {@code information_schema} pre celú schému namiesto
+ * {@link java.sql.DatabaseMetaData#getColumns}, ktorý ovládač skladá z viacerých dopytov. Výsledok sa
+ * streamuje po riadkoch ({@code fetchSize} {@link Integer#MIN_VALUE} v Connector/J, kladný {@code fetchSize}
+ * v ovládači MariaDB), bez načítania do pamäte, a bez {@code ORDER BY}, ktoré by na serveri vyžadovalo
+ * triedenie; zoradí ho {@link CompactSchema.Builder}.
+ */
+@Slf4j
+public class MySqlMetadataExtractor implements MetadataExtractor {
+    // Stĺpec sa porovnáva priamo, aby MySQL 8 mohol filtrovať v dátovom slovníku
+    private static final String METADATA_QUERY = """
+        SELECT c.TABLE_NAME, c.COLUMN_NAME FROM information_schema.COLUMNS c
+        JOIN information_schema.TABLES t ON t.TABLE_SCHEMA = c.TABLE_SCHEMA AND t.TABLE_NAME = c.TABLE_NAME
+        WHERE c.TABLE_SCHEMA = ? AND t.TABLE_TYPE = 'BASE TABLE'""";
+    private static final int TABLE_NAME_INDEX = 1;
+    private static final int COLUMN_NAME_INDEX = 2;
+    // Connector/J streamuje výsledok po riadkoch iba pri tejto hodnote, iné ovládače ju odmietajú
+    private static final int CONNECTOR_J_STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+    private static final String CONNECTOR_J_DRIVER_NAME = "MySQL Connector/J";
+
+    private final int fetchSize;
+    private final SymbolTable symbols;
+
+    /**
+     * @param fetchSize počet riadkov načítaných naraz ovládačmi okrem Connector/J; 0 načíta výsledok naraz
+     * @param symbols   tabuľka, do ktorej sa internujú názvy tabuliek a stĺpcov
+     */
+    public MySqlMetadataExtractor(int fetchSize, @NonNull SymbolTable symbols) {
+        this.fetchSize = fetchSize;
+        this.symbols = symbols;
+    }
+
+    @Override
+    public DatabaseSchema extractDatabaseSchema(@NonNull Connection connection, @NonNull String schemaName) {
+        log.info("Získavam metadáta schémy z MySQL pre schému: '{}'", schemaName);
+        CompactSchema.Builder builder = CompactSchema.builder();
+        long start = System.nanoTime();
+
+        try (PreparedStatement stmt = connection.prepareStatement(METADATA_QUERY,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            // Veľkosť písmen názvov databáz závisí od lower_case_table_names, ktoré ovládač hlási v metadátach
+            stmt.setString(1, JdbcMetadataExtractor.storedIdentifier(metaData, schemaName));
+            stmt.setFetchSize(CONNECTOR_J_DRIVER_NAME.equals(metaData.getDriverName())
+                    ? CONNECTOR_J_STREAMING_FETCH_SIZE : fetchSize);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new ApplicationExceptions.MetadataExtractionException("Extrakcia metadát bola prerušená.", null);
+                    }
+                    TableName tableName = symbols.tableName(rs.getString(TABLE_NAME_INDEX).toUpperCase());
+                    ColumnName columnName = symbols.columnName(rs.getString(COLUMN_NAME_INDEX).toUpperCase());
+                    builder.add(tableName, columnName);
+                    log.trace("Nájdený stĺpec v MySQL: {}.{}", tableName.value(), columnName.value());
+                }
+            }
+        } catch (SQLException e) {
+            log.error("SQL chyba pri extrakcii metadát z MySQL.", e);
+            throw new ApplicationExceptions.MetadataExtractionException("Nepodarilo sa extrahovať metadáta schémy MySQL.", e);
+        }
+
+        CompactSchema schema = builder.build();
+        log.info("Úspešne extrahované metadáta pre {} tabuliek a {} stĺpcov z MySQL za {} ms.",
+                schema.tableCount(), schema.columnCount(), (System.nanoTime() - start) / 1_000_000);
+        return DatabaseSchema.of(schema);
+    }
+
+    public static final class Provider implements MetadataExtractor.Provider {
+        @Override
+        public Set<String> databaseTypes() {
+            return Set.of("mysql", "mariadb");
+        }
+
+        @Override
+        public String jdbcUrl(String databaseType, String host, int port, String databaseName) {
+            return String.format("jdbc:%s://%s:%d/%s", databaseType, host, port, databaseName);
+        }
+
+        @Override
+        public String driverClassName(String databaseType) {
+            return JdbcMetadataExtractor.Provider.DRIVER_CLASS_NAMES.get(databaseType);
+        }
+
+        @Override
+        public void configureConnection(Properties properties) {
+            // Connector/J predvolene necachuje pripravené dopyty; PostgreSQL ich cachuje sám
+            properties.setProperty("cachePrepStmts", "true");
+        }
+
+        @Override
+        public MetadataExtractor create(int fetchSize, SymbolTable symbols) {
+            return new MySqlMetadataExtractor(fetchSize, symbols);
+        }
+    }
+}
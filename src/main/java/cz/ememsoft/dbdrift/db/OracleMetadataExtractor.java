@@ -3,7 +3,9 @@ package cz.ememsoft.dbdrift.db;
 
 import cz.ememsoft.dbdrift.exception.ApplicationExceptions;
 import cz.ememsoft.dbdrift.model.ColumnName;
+import cz.ememsoft.dbdrift.model.CompactSchema;
 import cz.ememsoft.dbdrift.model.DatabaseSchema;
+import cz.ememsoft.dbdrift.model.SymbolTable;
 import cz.ememsoft.dbdrift.model.TableName;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
@@ -12,42 +14,370 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Supplier;
 
 /**
  * Extrahuje metadáta schémy (tabuľky a stĺpce) z Oracle databázy.
+ * Dopyt vyberá iba dva stĺpce typu VARCHAR2, ktoré sa čítajú podľa poradia.
  */
 @Slf4j
-public class OracleMetadataExtractor {
+public class OracleMetadataExtractor implements MetadataExtractor {
+    /** Predvolený počet riadkov prenesených jednou sieťovou výmenou; ovládač Oracle má predvolene 10. */
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+    
     private static final String METADATA_QUERY = """
         SELECT c.table_name, c.column_name FROM ALL_TAB_COLUMNS c
         JOIN ALL_TABLES t ON c.owner = t.owner AND c.table_name = t.table_name
         WHERE c.owner = ? ORDER BY c.table_name, c.column_name""";
+    private static final String BUCKET_QUERY = """
+        SELECT c.table_name, c.column_name FROM ALL_TAB_COLUMNS c
+        JOIN ALL_TABLES t ON c.owner = t.owner AND c.table_name = t.table_name
+        WHERE c.owner = ? AND ORA_HASH(c.table_name, ?) = ? ORDER BY c.table_name, c.column_name""";
+    // Súčet hashov nezávisí od poradia riadkov; spolu s počtom sa zmení pri pridaní, odobratí aj premenovaní
+    private static final String FINGERPRINT_QUERY = """
+        SELECT COUNT(*), SUM(ORA_HASH(c.table_name || '.' || c.column_name)) FROM ALL_TAB_COLUMNS c
+        JOIN ALL_TABLES t ON c.owner = t.owner AND c.table_name = t.table_name
+        WHERE c.owner = ?""";
+    private static final String TABLES_QUERY = """
+        SELECT c.table_name, c.column_name FROM ALL_TAB_COLUMNS c
+        JOIN ALL_TABLES t ON c.owner = t.owner AND c.table_name = t.table_name
+        WHERE c.owner = ? AND c.table_name IN (%s) ORDER BY c.table_name, c.column_name""";
+    private static final String DDL_TIMES_QUERY = """
+        SELECT o.object_name, o.last_ddl_time FROM ALL_OBJECTS o
+        WHERE o.owner = ? AND o.object_type = 'TABLE'""";
+    private static final String DATABASE_TIME_QUERY = "SELECT SYSDATE FROM DUAL";
+    // Oracle povoľuje najviac 1000 výrazov v zozname IN
+    private static final int MAX_IN_LIST_SIZE = 1000;
+    // Pokrýva všetky dopyty na metadáta vrátane zoznamov IN rôznej dĺžky
+    private static final int STATEMENT_CACHE_SIZE = 32;
+    private static final int TABLE_NAME_INDEX = 1;
+    private static final int COLUMN_NAME_INDEX = 2;
+    
+    private final int fetchSize;
+    private final SymbolTable symbols;
+    
+    /**
+     * Časy poslednej zmeny DDL tabuliek schémy.
+     *
+     * @param lastDdlTimes {@code LAST_DDL_TIME} podľa názvu tabuľky v tvare z dátového slovníka, v milisekundách epochy
+     * @param readAt       čas databázy tesne pred ich načítaním, v milisekundách epochy
+     */
+    public record DdlTimes(@NonNull Map<String, Long> lastDdlTimes, long readAt) {}
+    
+    public OracleMetadataExtractor() {
+        this(DEFAULT_FETCH_SIZE);
+    }
+    
+    public OracleMetadataExtractor(int fetchSize) {
+        this(fetchSize, new SymbolTable());
+    }
+    
+    /**
+     * @param fetchSize počet riadkov prenesených jednou sieťovou výmenou; 0 ponechá predvolenú hodnotu ovládača (10)
+     * @param symbols   tabuľka, do ktorej sa internujú názvy tabuliek a stĺpcov
+     */
+    public OracleMetadataExtractor(int fetchSize, @NonNull SymbolTable symbols) {
+        this.fetchSize = fetchSize;
+        this.symbols = symbols;
+    }
 
+    @Override
     public DatabaseSchema extractDatabaseSchema(@NonNull Connection connection, @NonNull String schemaName) {
         log.info("Získavam metadáta schémy z databázy pre vlastníka: '{}'", schemaName);
-        Map<TableName, Set<ColumnName>> tables = new LinkedHashMap<>();
-        int columnCount = 0;
+        CompactSchema.Builder builder = CompactSchema.builder();
+        long start = System.nanoTime();
         
-        try (PreparedStatement stmt = connection.prepareStatement(METADATA_QUERY)) {
+        try {
+            readColumns(connection, METADATA_QUERY, List.of(schemaName), builder);
+        } catch (SQLException e) {
+            log.error("SQL chyba pri extrakcii metadát z Oracle.", e);
+            throw new ApplicationExceptions.MetadataExtractionException("Nepodarilo sa extrahovať metadáta schémy Oracle.", e);
+        }
+        CompactSchema schema = builder.build();
+        logCompleted(schema.tableCount(), schema.columnCount(), start);
+        return DatabaseSchema.of(schema);
+    }
+    
+    /**
+     * Vypočíta odtlačok schémy jediným agregačným dopytom na strane databázy, bez prenosu stĺpcov.
+     * Pokrýva tie isté tabuľky a stĺpce ako extrakcia.
+     */
+    public String computeFingerprint(@NonNull Connection connection, @NonNull String schemaName) {
+        long start = System.nanoTime();
+        try (PreparedStatement stmt = connection.prepareStatement(FINGERPRINT_QUERY)) {
             stmt.setString(1, schemaName);
             try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    TableName tableName = new TableName(rs.getString("table_name").toUpperCase());
-                    ColumnName columnName = new ColumnName(rs.getString("column_name").toUpperCase());
-                    tables.computeIfAbsent(tableName, k -> new LinkedHashSet<>()).add(columnName);
-                    log.trace("Nájdený stĺpec v DB: {}.{}", tableName.value(), columnName.value());
-                    columnCount++;
+                rs.next();
+                String fingerprint = rs.getLong(1) + ":" + rs.getLong(2);
+                log.info("Odtlačok schémy '{}' je {} (za {} ms).", schemaName, fingerprint, (System.nanoTime() - start) / 1_000_000);
+                return fingerprint;
+            }
+        } catch (SQLException e) {
+            log.error("SQL chyba pri výpočte odtlačku schémy Oracle.", e);
+            throw new ApplicationExceptions.MetadataExtractionException("Nepodarilo sa vypočítať odtlačok schémy Oracle.", e);
+        }
+    }
+    
+    /**
+     * Počet stĺpcov schémy zahrnutý v odtlačku vrátenom {@link #computeFingerprint(Connection, String)}.
+     */
+    public static long fingerprintColumnCount(@NonNull String fingerprint) {
+        return Long.parseLong(fingerprint.substring(0, fingerprint.indexOf(':')));
+    }
+    
+    /**
+     * Paralelná extrakcia: tabuľky sa podľa {@code ORA_HASH(table_name)} rozdelia do vedierok, ktoré sa
+     * čítajú súčasne cez {@code connectionCount} samostatných pripojení. Každá tabuľka patrí práve do
+     * jedného vedierka, takže výsledok obsahuje tie isté tabuľky a stĺpce ako sériová extrakcia,
+     * zoradené podľa názvu tabuľky.
+     *
+     * @param connections     zdroj nových pripojení; vytvorené pripojenia sa na konci zatvoria
+     * @param connectionCount počet súčasne použitých pripojení
+     * @param bucketCount     počet vedierok; viac vedierok ako pripojení vyrovnáva rozdielne veľké vedierka
+     */
+    public DatabaseSchema extractDatabaseSchema(@NonNull Supplier<Connection> connections, @NonNull String schemaName,
+                                                int connectionCount, int bucketCount) {
+        log.info("Získavam metadáta schémy z databázy pre vlastníka: '{}' ({} vedierok cez {} pripojení)",
+                schemaName, bucketCount, connectionCount);
+        long start = System.nanoTime();
+        
+        BlockingQueue<Connection> idleConnections = new LinkedBlockingQueue<>();
+        List<Connection> openedConnections = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(connectionCount);
+        try {
+            for (int i = 0; i < connectionCount; i++) {
+                Connection connection = connections.get();
+                openedConnections.add(connection);
+                idleConnections.add(connection);
+            }
+            
+            List<Future<CompactSchema>> buckets = new ArrayList<>();
+            for (int bucket = 0; bucket < bucketCount; bucket++) {
+                int bucketNumber = bucket;
+                buckets.add(executor.submit(() -> {
+                    Connection connection = idleConnections.take();
+                    try {
+                        CompactSchema.Builder bucketBuilder = CompactSchema.builder();
+                        // ORA_HASH vracia hodnoty 0 až max_bucket vrátane
+                        readColumns(connection, BUCKET_QUERY, List.of(schemaName, bucketCount - 1, bucketNumber), bucketBuilder);
+                        CompactSchema bucketSchema = bucketBuilder.build();
+                        log.debug("Vedierko {}/{} obsahuje {} tabuliek.", bucketNumber + 1, bucketCount, bucketSchema.tableCount());
+                        return bucketSchema;
+                    } finally {
+                        idleConnections.add(connection);
+                    }
+                }));
+            }
+            
+            // Vedierka obsahujú disjunktné tabuľky, zostavenie ich iba zoradí
+            CompactSchema.Builder builder = CompactSchema.builder();
+            for (Future<CompactSchema> bucket : buckets) {
+                bucket.get().asMap().forEach(builder::addTable);
+            }
+            
+            CompactSchema schema = builder.build();
+            logCompleted(schema.tableCount(), schema.columnCount(), start);
+            return DatabaseSchema.of(schema);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ApplicationExceptions.MetadataExtractionException extractionException) {
+                throw extractionException;
+            }
+            log.error("SQL chyba pri paralelnej extrakcii metadát z Oracle.", cause);
+            throw new ApplicationExceptions.MetadataExtractionException("Nepodarilo sa extrahovať metadáta schémy Oracle.", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApplicationExceptions.MetadataExtractionException("Extrakcia metadát bola prerušená.", e);
+        } finally {
+            executor.shutdownNow();
+            closeAll(openedConnections);
+        }
+    }
+    
+    /**
+     * Načíta {@code LAST_DDL_TIME} všetkých tabuliek schémy z {@code ALL_OBJECTS}.
+     */
+    public DdlTimes readDdlTimes(@NonNull Connection connection, @NonNull String schemaName) {
+        try {
+            long readAt;
+            try (PreparedStatement stmt = connection.prepareStatement(DATABASE_TIME_QUERY);
+                 ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                readAt = rs.getTimestamp(1).getTime();
+            }
+            Map<String, Long> lastDdlTimes = new HashMap<>();
+            try (PreparedStatement stmt = connection.prepareStatement(DDL_TIMES_QUERY)) {
+                stmt.setString(1, schemaName);
+                if (fetchSize > 0) {
+                    stmt.setFetchSize(fetchSize);
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        lastDdlTimes.put(rs.getString(1), rs.getTimestamp(2).getTime());
+                    }
                 }
             }
+            log.debug("Načítané časy zmeny DDL pre {} tabuliek schémy '{}'.", lastDdlTimes.size(), schemaName);
+            return new DdlTimes(lastDdlTimes, readAt);
         } catch (SQLException e) {
-            log.error("SQL chyba pri extrakcii metadát z Oracle.", e);
+            log.error("SQL chyba pri čítaní časov zmeny DDL z Oracle.", e);
+            throw new ApplicationExceptions.MetadataExtractionException("Nepodarilo sa načítať časy zmeny DDL tabuliek.", e);
+        }
+    }
+    
+    /**
+     * Inkrementálna extrakcia: z predchádzajúcej schémy odstráni zmazané tabuľky a stĺpce znovu načíta
+     * iba pre tabuľky vytvorené alebo zmenené od predchádzajúceho načítania časov DDL. {@code LAST_DDL_TIME}
+     * má presnosť na sekundy, preto sa znovu načítajú aj tabuľky zmenené v sekunde predchádzajúceho načítania.
+     * Výsledok je zoradený podľa názvu tabuľky.
+     *
+     * @param previousSchema   schéma zodpovedajúca {@code previousDdlTimes}
+     * @param previousDdlTimes časy DDL načítané pred extrakciou predchádzajúcej schémy
+     * @param currentDdlTimes  aktuálne časy DDL
+     */
+    public DatabaseSchema extractChangedTables(@NonNull Connection connection, @NonNull String schemaName,
+                                               @NonNull DatabaseSchema previousSchema, @NonNull DdlTimes previousDdlTimes,
+                                               @NonNull DdlTimes currentDdlTimes) {
+        long start = System.nanoTime();
+        long previousReadSecond = previousDdlTimes.readAt() - Math.floorMod(previousDdlTimes.readAt(), 1000L);
+        
+        List<String> changedTables = new ArrayList<>();
+        currentDdlTimes.lastDdlTimes().forEach((table, ddlTime) -> {
+            Long previousDdlTime = previousDdlTimes.lastDdlTimes().get(table);
+            if (previousDdlTime == null || previousDdlTime.longValue() != ddlTime || ddlTime >= previousReadSecond) {
+                changedTables.add(table);
+            }
+        });
+        
+        Set<TableName> replacedTables = new HashSet<>();
+        int droppedCount = 0;
+        for (String table : previousDdlTimes.lastDdlTimes().keySet()) {
+            if (!currentDdlTimes.lastDdlTimes().containsKey(table)) {
+                replacedTables.add(symbols.tableName(table.toUpperCase()));
+                droppedCount++;
+            }
+        }
+        changedTables.forEach(table -> replacedTables.add(symbols.tableName(table.toUpperCase())));
+        
+        CompactSchema.Builder builder = CompactSchema.builder();
+        previousSchema.tables().forEach((table, columns) -> {
+            if (!replacedTables.contains(table)) {
+                builder.addTable(table, columns);
+            }
+        });
+        
+        try {
+            for (int from = 0; from < changedTables.size(); from += MAX_IN_LIST_SIZE) {
+                List<String> chunk = changedTables.subList(from, Math.min(from + MAX_IN_LIST_SIZE, changedTables.size()));
+                List<Object> parameters = new ArrayList<>(chunk.size() + 1);
+                parameters.add(schemaName);
+                parameters.addAll(chunk);
+                String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+                readColumns(connection, TABLES_QUERY.formatted(placeholders), parameters, builder);
+            }
+        } catch (SQLException e) {
+            log.error("SQL chyba pri inkrementálnej extrakcii metadát z Oracle.", e);
             throw new ApplicationExceptions.MetadataExtractionException("Nepodarilo sa extrahovať metadáta schémy Oracle.", e);
         }
-        log.info("Úspešne extrahované metadáta pre {} tabuliek a {} stĺpcov.", tables.size(), columnCount);
-        return new DatabaseSchema(tables);
+        
+        log.info("Inkrementálne načítaných {} zmenených tabuliek, {} zmazaných tabuliek odstránených.",
+                changedTables.size(), droppedCount);
+        CompactSchema schema = builder.build();
+        logCompleted(schema.tableCount(), schema.columnCount(), start);
+        return DatabaseSchema.of(schema);
+    }
+    
+    /**
+     * Pridá do {@code builder} stĺpce tabuliek vrátené dopytom {@code query} s danými parametrami.
+     */
+    private void readColumns(Connection connection, String query, List<?> parameters,
+                             CompactSchema.Builder builder) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+            for (int i = 0; i < parameters.size(); i++) {
+                stmt.setObject(i + 1, parameters.get(i));
+            }
+            if (fetchSize > 0) {
+                stmt.setFetchSize(fetchSize);
+            }
+            long start = System.nanoTime();
+            try (ResultSet rs = stmt.executeQuery()) {
+                log.debug("Dopyt na metadáta vykonaný za {} ms (fetch size {}).", (System.nanoTime() - start) / 1_000_000, fetchSize);
+                while (rs.next()) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new ApplicationExceptions.MetadataExtractionException("Extrakcia metadát bola prerušená.", null);
+                    }
+                    TableName tableName = symbols.tableName(rs.getString(TABLE_NAME_INDEX).toUpperCase());
+                    ColumnName columnName = symbols.columnName(rs.getString(COLUMN_NAME_INDEX).toUpperCase());
+                    builder.add(tableName, columnName);
+                    log.trace("Nájdený stĺpec v DB: {}.{}", tableName.value(), columnName.value());
+                }
+            }
+        }
+    }
+    
+    private void logCompleted(int tableCount, int columnCount, long start) {
+        long elapsedNanos = Math.max(1, System.nanoTime() - start);
+        log.info("Úspešne extrahované metadáta pre {} tabuliek a {} stĺpcov.", tableCount, columnCount);
+        log.info("Extrakcia metadát trvala {} ms (fetch size {}), {} riadkov/s.",
+                elapsedNanos / 1_000_000, fetchSize, Math.round(columnCount * 1e9 / elapsedNanos));
+    }
+    
+    private void closeAll(List<Connection> connections) {
+        for (Connection connection : connections) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.warn("Nepodarilo sa zatvoriť pripojenie k databáze.", e);
+            }
+        }
+    }
+    
+    public static final class Provider implements MetadataExtractor.Provider {
+        @Override
+        public Set<String> databaseTypes() {
+            return Set.of("oracle");
+        }
+        
+        @Override
+        public String jdbcUrl(String databaseType, String host, int port, String databaseName) {
+            return String.format("jdbc:oracle:thin:@//%s:%d/%s", host, port, databaseName);
+        }
+        
+        @Override
+        public String schemaName(String schemaName) {
+            // Neuvedené identifikátory Oracle ukladá veľkými písmenami
+            return schemaName.toUpperCase(Locale.ROOT);
+        }
+        
+        @Override
+        public String driverClassName(String databaseType) {
+            return "oracle.jdbc.OracleDriver";
+        }
+        
+        @Override
+        public void configureConnection(Properties properties) {
+            // Pripojenia z poolu tak opakované dopyty na metadáta neparsujú znovu
+            properties.setProperty("oracle.jdbc.implicitStatementCacheSize", Integer.toString(STATEMENT_CACHE_SIZE));
+        }
+        
+        @Override
+        public MetadataExtractor create(int fetchSize, SymbolTable symbols) {
+            return new OracleMetadataExtractor(fetchSize, symbols);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,114 @@
+package cz.ememsoft.dbdrift.db;
+
+import cz.ememsoft.dbdrift.exception.ApplicationExceptions;
+import cz.ememsoft.dbdrift.model.ColumnName;
+import cz.ememsoft.dbdrift.model.CompactSchema;
+import cz.ememsoft.dbdrift.model.DatabaseSchema;
+import cz.ememsoft.dbdrift.model.SymbolTable;
+import cz.ememsoft.dbdrift.model.TableName;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Set;
+
+/**
+ * Rýchla cesta pre PostgreSQL: číta priamo {@code pg_catalog} namiesto pohľadov {@code information_schema},
+ * ktoré pri veľkých katalógoch kontrolujú oprávnenia pre každý riadok. Ovládač PostgreSQL načíta celý
+ * výsledok do pamäte, ak pripojenie nie je v transakcii, preto sa dopyt číta kurzorom po {@code fetchSize}
+ * riadkoch v transakcii, ktorá sa potom odvolá. Kurzor iba číta, takže funguje aj na replike.
+ */
+@Slf4j
+public class PostgresMetadataExtractor implements MetadataExtractor {
+    // relkind 'r' sú tabuľky, 'p' partíciované tabuľky; ich partície sa nehlásia samostatne.
+    // Stĺpec sa porovnáva priamo, aby dopyt mohol použiť index na pg_namespace.nspname.
+    private static final String METADATA_QUERY = """
+        SELECT c.relname, a.attname FROM pg_catalog.pg_attribute a
+        JOIN pg_catalog.pg_class c ON c.oid = a.attrelid
+        JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace
+        WHERE n.nspname = ? AND c.relkind IN ('r', 'p') AND NOT c.relispartition
+        AND a.attnum > 0 AND NOT a.attisdropped""";
+    private static final int TABLE_NAME_INDEX = 1;
+    private static final int COLUMN_NAME_INDEX = 2;
+
+    private final int fetchSize;
+    private final SymbolTable symbols;
+
+    /**
+     * @param fetchSize počet riadkov prenesených jednou sieťovou výmenou; 0 načíta výsledok naraz
+     * @param symbols   tabuľka, do ktorej sa internujú názvy tabuliek a stĺpcov
+     */
+    public PostgresMetadataExtractor(int fetchSize, @NonNull SymbolTable symbols) {
+        this.fetchSize = fetchSize;
+        this.symbols = symbols;
+    }
+
+    @Override
+    public DatabaseSchema extractDatabaseSchema(@NonNull Connection connection, @NonNull String schemaName) {
+        log.info("Získavam metadáta schémy z PostgreSQL pre schému: '{}'", schemaName);
+        CompactSchema.Builder builder = CompactSchema.builder();
+        long start = System.nanoTime();
+
+        try {
+            // Pripojenie, ktoré už je v transakcii, číta kurzorom bez zmeny
+            boolean cursorTransaction = fetchSize > 0 && connection.getAutoCommit();
+            if (cursorTransaction) {
+                connection.setAutoCommit(false);
+            }
+            try (PreparedStatement stmt = connection.prepareStatement(METADATA_QUERY)) {
+                // Neuvedené identifikátory PostgreSQL ukladá malými písmenami
+                stmt.setString(1, JdbcMetadataExtractor.storedIdentifier(connection.getMetaData(), schemaName));
+                stmt.setFetchSize(fetchSize);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        if (Thread.currentThread().isInterrupted()) {
+                            throw new ApplicationExceptions.MetadataExtractionException("Extrakcia metadát bola prerušená.", null);
+                        }
+                        TableName tableName = symbols.tableName(rs.getString(TABLE_NAME_INDEX).toUpperCase());
+                        ColumnName columnName = symbols.columnName(rs.getString(COLUMN_NAME_INDEX).toUpperCase());
+                        builder.add(tableName, columnName);
+                        log.trace("Nájdený stĺpec v PostgreSQL: {}.{}", tableName.value(), columnName.value());
+                    }
+                }
+            } finally {
+                if (cursorTransaction) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+            }
+        } catch (SQLException e) {
+            log.error("SQL chyba pri extrakcii metadát z PostgreSQL.", e);
+            throw new ApplicationExceptions.MetadataExtractionException("Nepodarilo sa extrahovať metadáta schémy PostgreSQL.", e);
+        }
+
+        CompactSchema schema = builder.build();
+        log.info("Úspešne extrahované metadáta pre {} tabuliek a {} stĺpcov z PostgreSQL za {} ms (fetch size {}).",
+                schema.tableCount(), schema.columnCount(), (System.nanoTime() - start) / 1_000_000, fetchSize);
+        return DatabaseSchema.of(schema);
+    }
+
+    public static final class Provider implements MetadataExtractor.Provider {
+        @Override
+        public Set<String> databaseTypes() {
+            return Set.of("postgresql");
+        }
+
+        @Override
+        public String jdbcUrl(String databaseType, String host, int port, String databaseName) {
+            return String.format("jdbc:postgresql://%s:%d/%s", host, port, databaseName);
+        }
+
+        @Override
+        public String driverClassName(String databaseType) {
+            return JdbcMetadataExtractor.Provider.DRIVER_CLASS_NAMES.get(databaseType);
+        }
+
+        @Override
+        public MetadataExtractor create(int fetchSize, SymbolTable symbols) {
+            return new PostgresMetadataExtractor(fetchSize, symbols);
+        }
+    }
+}
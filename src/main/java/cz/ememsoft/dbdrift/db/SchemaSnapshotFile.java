@@ -0,0 +1,301 @@
+package cz.ememsoft.dbdrift.db;
+
+import cz.ememsoft.dbdrift.model.ColumnName;
+import cz.ememsoft.dbdrift.model.CompactSchema;
+import cz.ememsoft.dbdrift.model.DatabaseSchema;
+import cz.ememsoft.dbdrift.model.SymbolTable;
+import cz.ememsoft.dbdrift.model.TableName;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Binárny formát snapshotu schémy. Súbor sa zapisuje jediným zápisom do kanála a číta naraz do pamäte;
+ * pri otvorení sa overí iba hlavička a kontrolný súčet, názvy tabuliek a stĺpcov sa dekódujú až pri
+ * prvom volaní {@link #schema()}. Otvorený snapshot súbor nedrží, takže ho možno nahradiť aj vtedy,
+ * keď ho démon drží v pamäti; namapovaný súbor by na Windows nahradiť nešlo.
+ *
+ * <pre>
+ * hlavička:  int MAGIC, int VERSION, int CRC32C zvyšku súboru, int dĺžka zvyšku súboru
+ * reťazce:   database, schemaName, fingerprint (int dĺžka + UTF-8)
+ * tabuľka reťazcov: int počet, int[počet + 1] začiatky v bajtoch, bajty UTF-8 všetkých názvov
+ * schéma:    int počet tabuliek, int[] id názvov tabuliek, int[počet + 1] začiatky stĺpcov,
+ *            int počet stĺpcov, int[] id názvov stĺpcov
+ * časy DDL:  long čas načítania alebo {@link Long#MIN_VALUE}, int počet, int[] id názvov, long[] časy
+ * </pre>
+ * Tabuľky a stĺpce sú uložené zoradené, ako v {@link CompactSchema}.
+ */
+public final class SchemaSnapshotFile {
+    private static final int MAGIC = 0x44445353; // "DDSS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final long NO_DDL_TIMES = Long.MIN_VALUE;
+
+    private final String database;
+    private final String schemaName;
+    private final String fingerprint;
+    private final ByteBuffer buffer;
+    private final int stringOffsetsPosition;
+    private final int stringCount;
+    private final int stringBytesPosition;
+    private final int schemaPosition;
+    private final SymbolTable symbols;
+    private String[] strings;
+    private DatabaseSchema schema;
+
+    private SchemaSnapshotFile(ByteBuffer buffer, SymbolTable symbols) {
+        this.buffer = buffer;
+        this.symbols = symbols;
+        buffer.position(HEADER_SIZE);
+        this.database = readString(buffer);
+        this.schemaName = readString(buffer);
+        this.fingerprint = readString(buffer);
+        this.stringCount = buffer.getInt();
+        this.stringOffsetsPosition = buffer.position();
+        this.stringBytesPosition = stringOffsetsPosition + (stringCount + 1) * Integer.BYTES;
+        this.schemaPosition = stringBytesPosition + buffer.getInt(stringOffsetsPosition + stringCount * Integer.BYTES);
+    }
+
+    /**
+     * Načíta súbor snapshotu do pamäte a overí jeho hlavičku a kontrolný súčet. Kontrolný súčet aj tak
+     * prečíta celý súbor, preto sa nemapuje.
+     *
+     * @param symbols tabuľka, do ktorej sa internujú názvy pri dekódovaní schémy
+     * @throws IOException ak súbor nie je snapshot podporovanej verzie alebo je poškodený
+     */
+    public static SchemaSnapshotFile open(@NonNull Path file, @NonNull SymbolTable symbols) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Súbor " + file + " nie je snapshot schémy");
+            }
+            buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Snapshot " + file + " sa počas čítania skrátil");
+                }
+            }
+            buffer.clear();
+        }
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Súbor " + file + " nie je snapshot schémy verzie " + VERSION);
+        }
+        if (buffer.getInt(12) != buffer.capacity() - HEADER_SIZE || buffer.getInt(8) != checksum(buffer)) {
+            throw new IOException("Snapshot " + file + " je poškodený");
+        }
+        return new SchemaSnapshotFile(buffer, symbols);
+    }
+
+    /**
+     * Zapíše snapshot do súboru jediným zápisom do kanála.
+     *
+     * @param ddlTimes časy poslednej zmeny DDL tabuliek; {@code null}, ak neboli zistené
+     */
+    public static void write(@NonNull Path file, @NonNull String database, @NonNull String schemaName,
+                             @NonNull String fingerprint, @NonNull DatabaseSchema schema,
+                             OracleMetadataExtractor.DdlTimes ddlTimes) throws IOException {
+        CompactSchema compact = schema.compact();
+        StringTable strings = new StringTable();
+        int[] tableIds = new int[compact.tableCount()];
+        int[] columnOffsets = new int[compact.tableCount() + 1];
+        int[] columnIds = new int[compact.columnCount()];
+        int column = 0;
+        for (int table = 0; table < compact.tableCount(); table++) {
+            tableIds[table] = strings.id(compact.table(table).value());
+            columnOffsets[table] = column;
+            for (ColumnName columnName : compact.columns(table)) {
+                columnIds[column++] = strings.id(columnName.value());
+            }
+        }
+        columnOffsets[compact.tableCount()] = column;
+        Map<String, Long> lastDdlTimes = ddlTimes != null ? ddlTimes.lastDdlTimes() : Map.of();
+        int[] ddlTableIds = new int[lastDdlTimes.size()];
+        long[] ddlTimeValues = new long[lastDdlTimes.size()];
+        int ddlTable = 0;
+        for (Map.Entry<String, Long> entry : lastDdlTimes.entrySet()) {
+            ddlTableIds[ddlTable] = strings.id(entry.getKey());
+            ddlTimeValues[ddlTable++] = entry.getValue();
+        }
+
+        byte[][] header = {utf8(database), utf8(schemaName), utf8(fingerprint)};
+        long size = HEADER_SIZE + (long) Integer.BYTES * (3 + 1 + strings.size() + 1 + 1 + tableIds.length
+            + columnOffsets.length + 1 + columnIds.length + 1 + ddlTableIds.length)
+            + strings.byteLength() + Long.BYTES * (1L + ddlTimeValues.length);
+        for (byte[] value : header) {
+            size += value.length;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Schéma je príliš veľká pre snapshot");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        buffer.position(HEADER_SIZE);
+        for (byte[] value : header) {
+            buffer.putInt(value.length).put(value);
+        }
+        strings.writeTo(buffer);
+        buffer.putInt(tableIds.length);
+        buffer.asIntBuffer().put(tableIds).put(columnOffsets).put(columnIds.length).put(columnIds);
+        buffer.position(buffer.position() + Integer.BYTES * (tableIds.length + columnOffsets.length + 1 + columnIds.length));
+        buffer.putLong(ddlTimes != null ? ddlTimes.readAt() : NO_DDL_TIMES);
+        buffer.putInt(ddlTableIds.length);
+        buffer.asIntBuffer().put(ddlTableIds);
+        buffer.position(buffer.position() + Integer.BYTES * ddlTableIds.length);
+        buffer.asLongBuffer().put(ddlTimeValues);
+        buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(12, buffer.capacity() - HEADER_SIZE);
+        buffer.putInt(8, checksum(buffer));
+
+        buffer.clear();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    public String database() {
+        return database;
+    }
+
+    public String schemaName() {
+        return schemaName;
+    }
+
+    public String fingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Tabuľky a stĺpce snapshotu; dekódujú sa pri prvom volaní.
+     */
+    public synchronized DatabaseSchema schema() {
+        if (schema == null) {
+            ByteBuffer view = buffer.duplicate().position(schemaPosition);
+            int tableCount = view.getInt();
+            int[] tableIds = readInts(view, tableCount);
+            int[] columnOffsets = readInts(view, tableCount + 1);
+            int[] columnIds = readInts(view, view.getInt());
+
+            CompactSchema.Builder builder = CompactSchema.builder();
+            for (int table = 0; table < tableCount; table++) {
+                TableName tableName = symbols.tableName(string(tableIds[table]));
+                for (int column = columnOffsets[table]; column < columnOffsets[table + 1]; column++) {
+                    builder.add(tableName, symbols.columnName(string(columnIds[column])));
+                }
+            }
+            schema = DatabaseSchema.of(builder.build());
+        }
+        return schema;
+    }
+
+    /**
+     * Časy poslednej zmeny DDL tabuliek, alebo {@code null}, ak neboli pri zápise zistené.
+     */
+    public synchronized OracleMetadataExtractor.DdlTimes ddlTimes() {
+        ByteBuffer view = buffer.duplicate().position(schemaPosition);
+        int tableCount = view.getInt();
+        view.position(view.position() + Integer.BYTES * (2 * tableCount + 1));
+        int columnCount = view.getInt();
+        view.position(view.position() + Integer.BYTES * columnCount);
+        long readAt = view.getLong();
+        if (readAt == NO_DDL_TIMES) {
+            return null;
+        }
+        int[] tableIds = readInts(view, view.getInt());
+        Map<String, Long> lastDdlTimes = new HashMap<>();
+        for (int tableId : tableIds) {
+            lastDdlTimes.put(string(tableId), view.getLong());
+        }
+        return new OracleMetadataExtractor.DdlTimes(lastDdlTimes, readAt);
+    }
+
+    private String string(int id) {
+        if (strings == null) {
+            strings = new String[stringCount];
+        }
+        String value = strings[id];
+        if (value == null) {
+            int start = buffer.getInt(stringOffsetsPosition + id * Integer.BYTES);
+            int end = buffer.getInt(stringOffsetsPosition + (id + 1) * Integer.BYTES);
+            byte[] bytes = new byte[end - start];
+            buffer.get(stringBytesPosition + start, bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            strings[id] = value;
+        }
+        return value;
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + Integer.BYTES * count);
+        return values;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int checksum(ByteBuffer buffer) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().position(HEADER_SIZE));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Tabuľka reťazcov pri zápise; každý rôzny názov sa uloží raz.
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> ids = new LinkedHashMap<>();
+        private final List<byte[]> values = new ArrayList<>();
+        private int byteLength;
+
+        int id(String value) {
+            return ids.computeIfAbsent(value, key -> {
+                byte[] bytes = utf8(key);
+                values.add(bytes);
+                byteLength += bytes.length;
+                return values.size() - 1;
+            });
+        }
+
+        int size() {
+            return values.size();
+        }
+
+        int byteLength() {
+            return byteLength;
+        }
+
+        void writeTo(ByteBuffer buffer) {
+            buffer.putInt(values.size());
+            int offset = 0;
+            for (byte[] value : values) {
+                buffer.putInt(offset);
+                offset += value.length;
+            }
+            buffer.putInt(offset);
+            for (byte[] value : values) {
+                buffer.put(value);
+            }
+        }
+    }
+}
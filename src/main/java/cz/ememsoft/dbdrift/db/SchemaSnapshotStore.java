@@ -0,0 +1,116 @@
+package cz.ememsoft.dbdrift.db;
+
+import cz.ememsoft.dbdrift.model.DatabaseSchema;
+import cz.ememsoft.dbdrift.model.SymbolTable;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Uchováva posledný extrahovaný stav databázovej schémy spolu s jej odtlačkom vypočítaným
+ * na strane databázy a časmi poslednej zmeny DDL jednotlivých tabuliek vo formáte
+ * {@link SchemaSnapshotFile}. Pri nezmenenom odtlačku snapshot nahradí celú extrakciu,
+ * inak umožní načítať iba zmenené tabuľky.
+ * <p>
+ * Otvorené snapshoty sa držia v pamäti spolu s už dekódovanou schémou, kým sa ich súbor nezmení,
+ * takže dlhobežiaci proces ich pri ďalšej kontrole neotvára ani nedekóduje znovu.
+ */
+@Slf4j
+public class SchemaSnapshotStore {
+
+    /**
+     * Stav schémy na uloženie.
+     *
+     * @param fingerprint odtlačok schémy vypočítaný pred extrakciou
+     * @param schema      extrahované tabuľky a stĺpce
+     * @param ddlTimes    časy poslednej zmeny DDL tabuliek zistené pred extrakciou; {@code null}, ak neboli zistené
+     */
+    public record StoredSnapshot(@NonNull String fingerprint, @NonNull DatabaseSchema schema,
+                                 OracleMetadataExtractor.DdlTimes ddlTimes) {}
+
+    private record OpenedSnapshot(FileTime lastModified, long size, SchemaSnapshotFile snapshot) {}
+
+    private final Path directory;
+    private final SymbolTable symbols;
+    private final Map<Path, OpenedSnapshot> openedSnapshots = new ConcurrentHashMap<>();
+
+    public SchemaSnapshotStore(@NonNull Path directory) {
+        this(directory, new SymbolTable());
+    }
+
+    /**
+     * @param symbols tabuľka, do ktorej sa internujú názvy načítaných snapshotov
+     */
+    public SchemaSnapshotStore(@NonNull Path directory, @NonNull SymbolTable symbols) {
+        this.directory = directory;
+        this.symbols = symbols;
+    }
+
+    /**
+     * Vráti snapshot uložený pre rovnakú databázu a schému bez ohľadu na jeho odtlačok.
+     * Schéma snapshotu sa dekóduje až pri prvom prístupe.
+     */
+    public Optional<SchemaSnapshotFile> load(@NonNull String database, @NonNull String schemaName) {
+        Path file = snapshotFile(database, schemaName);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        try {
+            long start = System.nanoTime();
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            OpenedSnapshot opened = openedSnapshots.get(file);
+            if (opened == null || !opened.lastModified().equals(attributes.lastModifiedTime()) || opened.size() != attributes.size()) {
+                opened = new OpenedSnapshot(attributes.lastModifiedTime(), attributes.size(), SchemaSnapshotFile.open(file, symbols));
+                openedSnapshots.put(file, opened);
+                log.debug("Snapshot {} otvorený za {} ms.", file, (System.nanoTime() - start) / 1_000_000);
+            }
+            SchemaSnapshotFile snapshot = opened.snapshot();
+            if (!database.equals(snapshot.database()) || !schemaName.equals(snapshot.schemaName())) {
+                log.info("Snapshot {} patrí inej databáze, ignorujem ho.", file);
+                return Optional.empty();
+            }
+            return Optional.of(snapshot);
+        } catch (IOException e) {
+            log.warn("Snapshot {} sa nepodarilo načítať, metadáta sa extrahujú celé.", file, e);
+            return Optional.empty();
+        }
+    }
+
+    public void save(@NonNull String database, @NonNull String schemaName, @NonNull StoredSnapshot storedSnapshot) {
+        Path file = snapshotFile(database, schemaName);
+        openedSnapshots.remove(file);
+        try {
+            Files.createDirectories(directory);
+            Path tempFile = Files.createTempFile(directory, "schema-snapshot", ".tmp");
+            SchemaSnapshotFile.write(tempFile, database, schemaName, storedSnapshot.fingerprint(),
+                    storedSnapshot.schema(), storedSnapshot.ddlTimes());
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Snapshot schémy '{}' uložený do {}", schemaName, file);
+        } catch (IOException e) {
+            log.warn("Snapshot {} sa nepodarilo uložiť.", file, e);
+        }
+    }
+
+    private Path snapshotFile(String database, String schemaName) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((database + "|" + schemaName).getBytes(StandardCharsets.UTF_8));
+            return directory.resolve("schema-snapshot-" + HexFormat.of().formatHex(hash, 0, 8) + ".snapshot");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 nie je dostupný", e);
+        }
+    }
+}
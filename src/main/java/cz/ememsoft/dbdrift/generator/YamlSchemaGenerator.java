@@ -1,44 +1,46 @@
 package cz.ememsoft.dbdrift.generator;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator;
 import cz.ememsoft.dbdrift.model.ColumnName;
+import cz.ememsoft.dbdrift.model.CompactSchema;
 import cz.ememsoft.dbdrift.model.DatabaseSchema;
+import cz.ememsoft.dbdrift.model.FleetTargetResult;
+import cz.ememsoft.dbdrift.model.SchemaDrift;
 import cz.ememsoft.dbdrift.model.TableName;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 @Slf4j
 public class YamlSchemaGenerator {
     
-    private final ObjectMapper yamlMapper;
-    
-    public YamlSchemaGenerator() {
-        this.yamlMapper = new ObjectMapper(
+    // Jackson YAML is initialized on the first write, not while the service is created at startup
+    private static final class Mapper {
+        static final ObjectMapper YAML = new ObjectMapper(
             new YAMLFactory()
                 .disable(YAMLGenerator.Feature.WRITE_DOC_START_MARKER)
                 .enable(YAMLGenerator.Feature.MINIMIZE_QUOTES)
                 .enable(YAMLGenerator.Feature.INDENT_ARRAYS_WITH_INDICATOR)
-        );
-        this.yamlMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        ).setSerializationInclusion(JsonInclude.Include.NON_NULL);
     }
     
     public void generateJpaSchemaYaml(Map<TableName, Set<ColumnName>> jpaSchema, String outputPath) throws IOException {
         log.info("Generating JPA schema YAML file: {}", outputPath);
         
-        Map<String, Object> yamlData = createSortedYamlStructure(jpaSchema, "JPA_ENTITIES");
-        
-        File outputFile = new File(outputPath);
-        yamlMapper.writeValue(outputFile, yamlData);
+        writeSortedYaml(jpaSchema, "JPA_ENTITIES", new File(outputPath));
         
         log.info("JPA schema YAML generated successfully with {} tables", jpaSchema.size());
     }
@@ -46,38 +48,141 @@ public class YamlSchemaGenerator {
     public void generateDatabaseSchemaYaml(DatabaseSchema dbSchema, String outputPath) throws IOException {
         log.info("Generating database schema YAML file: {}", outputPath);
         
-        Map<String, Object> yamlData = createSortedYamlStructure(dbSchema.tables(), "DATABASE_TABLES");
-        
-        File outputFile = new File(outputPath);
-        yamlMapper.writeValue(outputFile, yamlData);
+        writeSortedYaml(dbSchema.tables(), "DATABASE_TABLES", new File(outputPath));
         
         log.info("Database schema YAML generated successfully with {} tables", dbSchema.tables().size());
     }
     
-    private Map<String, Object> createSortedYamlStructure(Map<TableName, Set<ColumnName>> schema, String rootKey) {
-        Map<String, Object> root = new LinkedHashMap<>();
-        Map<String, Object> tables = new LinkedHashMap<>();
+    public void generateDriftYaml(SchemaDrift drift, String outputPath) throws IOException {
+        log.info("Generating schema drift YAML file: {}", outputPath);
+        
+        try (JsonGenerator generator = Mapper.YAML.createGenerator(new File(outputPath), JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeFieldName("SCHEMA_DRIFT");
+            generator.writeStartObject();
+            writeNames(generator, "MISSING_TABLES", drift.missingTables(), TableName::value);
+            writeNames(generator, "EXTRA_TABLES", drift.extraTables(), TableName::value);
+            
+            generator.writeFieldName("CHANGED_TABLES");
+            generator.writeStartObject();
+            for (Map.Entry<TableName, SchemaDrift.TableDrift> table : drift.changedTables().entrySet()) {
+                generator.writeFieldName(table.getKey().value());
+                generator.writeStartObject();
+                writeNames(generator, "MISSING_COLUMNS", table.getValue().missingColumns(), ColumnName::value);
+                writeNames(generator, "EXTRA_COLUMNS", table.getValue().extraColumns(), ColumnName::value);
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+            
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+        
+        log.info("Schema drift YAML generated successfully");
+    }
+    
+    public void generateFleetSummaryYaml(List<FleetTargetResult> results, String outputPath) throws IOException {
+        log.info("Generating fleet summary YAML file: {}", outputPath);
         
-        // Sort tables by name (uppercase)
-        schema.entrySet().stream()
-            .sorted(Map.Entry.comparingByKey((t1, t2) -> 
-                t1.value().toUpperCase().compareTo(t2.value().toUpperCase())))
-            .forEach(entry -> {
-                String tableName = entry.getKey().value().toUpperCase();
-                
-                // Sort columns by name (uppercase)
-                List<String> sortedColumns = entry.getValue().stream()
-                    .map(col -> col.value().toUpperCase())
-                    .sorted()
-                    .collect(Collectors.toList());
-                
-                Map<String, Object> tableData = new LinkedHashMap<>();
-                tableData.put("COLUMNS", sortedColumns);
-                
-                tables.put(tableName, tableData);
-            });
+        try (JsonGenerator generator = Mapper.YAML.createGenerator(new File(outputPath), JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeFieldName("FLEET_RESULTS");
+            generator.writeStartObject();
+            for (FleetTargetResult result : results) {
+                generator.writeFieldName(result.target());
+                generator.writeStartObject();
+                generator.writeStringField("STATUS", result.status().name());
+                generator.writeNumberField("ELAPSED_MS", result.elapsedMillis());
+                if (result.structure() != null) {
+                    generator.writeStringField("STRUCTURE", result.structure());
+                }
+                if (result.drift() != null) {
+                    generator.writeNumberField("MISSING_TABLES", result.drift().missingTables().size());
+                    generator.writeNumberField("EXTRA_TABLES", result.drift().extraTables().size());
+                    generator.writeNumberField("CHANGED_TABLES", result.drift().changedTables().size());
+                }
+                if (result.error() != null) {
+                    generator.writeStringField("ERROR", result.error());
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+            
+            Map<String, List<String>> structures = new LinkedHashMap<>();
+            for (FleetTargetResult result : results) {
+                if (result.structure() != null) {
+                    structures.computeIfAbsent(result.structure(), structure -> new ArrayList<>()).add(result.target());
+                }
+            }
+            generator.writeFieldName("STRUCTURES");
+            generator.writeStartObject();
+            for (Map.Entry<String, List<String>> structure : structures.entrySet()) {
+                generator.writeFieldName(structure.getKey());
+                generator.writeStartObject();
+                writeNames(generator, "TARGETS", structure.getValue(), Function.identity());
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
         
-        root.put(rootKey, tables);
-        return root;
+        log.info("Fleet summary YAML generated successfully with {} targets", results.size());
     }
-}
\ No newline at end of file
+    
+    private <T> void writeNames(JsonGenerator generator, String fieldName, Iterable<T> names, Function<T, String> value) throws IOException {
+        generator.writeFieldName(fieldName);
+        generator.writeStartArray();
+        for (T name : names) {
+            generator.writeString(value.apply(name));
+        }
+        generator.writeEndArray();
+    }
+    
+    /**
+     * Writes the schema as an ordered map of upper-cased table names, each with its upper-cased columns sorted.
+     * The compact view of an extracted schema is already sorted and upper-cased by the extractors, so it is
+     * streamed table by table without any copy. Other maps, such as the JPA schema, are sorted first; tables
+     * whose names differ only in case are written once, at the position of the first one, with the columns of
+     * the last one.
+     */
+    private void writeSortedYaml(Map<TableName, Set<ColumnName>> schema, String rootKey, File outputFile) throws IOException {
+        try (JsonGenerator generator = Mapper.YAML.createGenerator(outputFile, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeFieldName(rootKey);
+            generator.writeStartObject();
+            
+            if (CompactSchema.isView(schema)) {
+                for (Map.Entry<TableName, Set<ColumnName>> table : schema.entrySet()) {
+                    writeTable(generator, table.getKey().value(), table.getValue(), ColumnName::value);
+                }
+            } else {
+                List<SortedTable> tables = new ArrayList<>(schema.size());
+                schema.forEach((table, columns) -> tables.add(new SortedTable(table.value().toUpperCase(), columns)));
+                // Stable sort, so equally named tables stay in schema order
+                tables.sort(Comparator.comparing(SortedTable::name));
+                for (int position = 0; position < tables.size(); position++) {
+                    SortedTable table = tables.get(position);
+                    while (position + 1 < tables.size() && tables.get(position + 1).name().equals(table.name())) {
+                        table = tables.get(++position);
+                    }
+                    writeTable(generator, table.name(), table.columns().stream()
+                        .map(column -> column.value().toUpperCase())
+                        .sorted()
+                        .toList(), Function.identity());
+                }
+            }
+            
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+    }
+    
+    private <T> void writeTable(JsonGenerator generator, String table, Iterable<T> columns, Function<T, String> value) throws IOException {
+        generator.writeFieldName(table);
+        generator.writeStartObject();
+        writeNames(generator, "COLUMNS", columns, value);
+        generator.writeEndObject();
+    }
+    
+    private record SortedTable(String name, Set<ColumnName> columns) {}
+}
@@ -0,0 +1,152 @@
+package cz.ememsoft.dbdrift.jpa;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads class-level {@code RuntimeVisibleAnnotations} straight from class file bytes,
+ * so that candidate classes can be filtered without being loaded by a class loader.
+ */
+final class ClassFileAnnotationScanner {
+    
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final byte[] RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations".getBytes(StandardCharsets.US_ASCII);
+    
+    private ClassFileAnnotationScanner() {}
+    
+    /**
+     * Thrown when the bytes cannot be interpreted; callers fall back to loading the class.
+     */
+    static class UnreadableClassFileException extends Exception {
+        UnreadableClassFileException(String message) {
+            super(message);
+        }
+    }
+    
+    /**
+     * Returns true when the class declares a runtime-visible annotation with the given
+     * field descriptor (e.g. {@code Ljakarta/persistence/Entity;}).
+     */
+    static boolean hasClassAnnotation(byte[] classFile, String annotationDescriptor) throws UnreadableClassFileException {
+        byte[] descriptor = annotationDescriptor.getBytes(StandardCharsets.US_ASCII);
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(classFile);
+            if (buffer.getInt() != MAGIC) {
+                throw new UnreadableClassFileException("Missing class file magic number");
+            }
+            buffer.getShort(); // minor_version
+            buffer.getShort(); // major_version
+            
+            int constantPoolCount = buffer.getShort() & 0xFFFF;
+            int descriptorIndex = -1;
+            int annotationsAttributeIndex = -1;
+            
+            for (int i = 1; i < constantPoolCount; i++) {
+                int tag = buffer.get() & 0xFF;
+                switch (tag) {
+                    case 1 -> { // Utf8
+                        int length = buffer.getShort() & 0xFFFF;
+                        int start = buffer.position();
+                        if (descriptorIndex < 0 && equalsAt(classFile, start, length, descriptor)) {
+                            descriptorIndex = i;
+                        } else if (annotationsAttributeIndex < 0 && equalsAt(classFile, start, length, RUNTIME_VISIBLE_ANNOTATIONS)) {
+                            annotationsAttributeIndex = i;
+                        }
+                        buffer.position(start + length);
+                    }
+                    case 7, 8, 16, 19, 20 -> skip(buffer, 2); // Class, String, MethodType, Module, Package
+                    case 15 -> skip(buffer, 3); // MethodHandle
+                    case 3, 4, 9, 10, 11, 12, 17, 18 -> skip(buffer, 4); // Integer, Float, refs, NameAndType, (Invoke)Dynamic
+                    case 5, 6 -> { // Long, Double take two slots
+                        skip(buffer, 8);
+                        i++;
+                    }
+                    default -> throw new UnreadableClassFileException("Unknown constant pool tag " + tag);
+                }
+            }
+            
+            // Without both constants in the pool the class cannot carry the annotation
+            if (descriptorIndex < 0 || annotationsAttributeIndex < 0) {
+                return false;
+            }
+            
+            skip(buffer, 6); // access_flags, this_class, super_class
+            int interfacesCount = buffer.getShort() & 0xFFFF;
+            skip(buffer, interfacesCount * 2);
+            skipMembers(buffer); // fields
+            skipMembers(buffer); // methods
+            
+            int attributesCount = buffer.getShort() & 0xFFFF;
+            for (int i = 0; i < attributesCount; i++) {
+                int nameIndex = buffer.getShort() & 0xFFFF;
+                int length = buffer.getInt();
+                int end = buffer.position() + length;
+                if (nameIndex == annotationsAttributeIndex) {
+                    int annotationsCount = buffer.getShort() & 0xFFFF;
+                    for (int a = 0; a < annotationsCount; a++) {
+                        if ((buffer.getShort() & 0xFFFF) == descriptorIndex) {
+                            return true;
+                        }
+                        skipElementValuePairs(buffer);
+                    }
+                }
+                buffer.position(end);
+            }
+            return false;
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new UnreadableClassFileException("Truncated or malformed class file");
+        }
+    }
+    
+    private static void skipMembers(ByteBuffer buffer) {
+        int count = buffer.getShort() & 0xFFFF;
+        for (int i = 0; i < count; i++) {
+            skip(buffer, 6); // access_flags, name_index, descriptor_index
+            int attributesCount = buffer.getShort() & 0xFFFF;
+            for (int a = 0; a < attributesCount; a++) {
+                skip(buffer, 2);
+                skip(buffer, buffer.getInt());
+            }
+        }
+    }
+    
+    private static void skipElementValuePairs(ByteBuffer buffer) throws UnreadableClassFileException {
+        int pairs = buffer.getShort() & 0xFFFF;
+        for (int p = 0; p < pairs; p++) {
+            skip(buffer, 2); // element_name_index
+            skipElementValue(buffer);
+        }
+    }
+    
+    private static void skipElementValue(ByteBuffer buffer) throws UnreadableClassFileException {
+        char tag = (char) (buffer.get() & 0xFF);
+        switch (tag) {
+            case 'B', 'C', 'D', 'F', 'I', 'J', 'S', 'Z', 's', 'c' -> skip(buffer, 2);
+            case 'e' -> skip(buffer, 4);
+            case '@' -> {
+                skip(buffer, 2);
+                skipElementValuePairs(buffer);
+            }
+            case '[' -> {
+                int values = buffer.getShort() & 0xFFFF;
+                for (int i = 0; i < values; i++) {
+                    skipElementValue(buffer);
+                }
+            }
+            default -> throw new UnreadableClassFileException("Unknown element value tag " + tag);
+        }
+    }
+    
+    private static void skip(ByteBuffer buffer, int bytes) {
+        buffer.position(buffer.position() + bytes);
+    }
+    
+    private static boolean equalsAt(byte[] data, int offset, int length, byte[] expected) {
+        if (length != expected.length) return false;
+        for (int i = 0; i < length; i++) {
+            if (data[offset + i] != expected[i]) return false;
+        }
+        return true;
+    }
+}
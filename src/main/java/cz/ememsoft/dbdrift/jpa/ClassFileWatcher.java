@@ -0,0 +1,150 @@
+package cz.ememsoft.dbdrift.jpa;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the directories of a classpath for changed class files. {@link WatchService} is not recursive,
+ * so every subdirectory is registered, including directories created later. A build writes many class
+ * files, so changes are collected until none arrives for a quiet period. Archives on the classpath are
+ * not watched; a classpath directory deleted by a clean build is registered again once it reappears.
+ */
+@Slf4j
+public class ClassFileWatcher implements AutoCloseable {
+
+    public static final Duration DEFAULT_QUIET_PERIOD = Duration.ofMillis(300);
+    private static final Duration ROOT_RECHECK_INTERVAL = Duration.ofSeconds(1);
+
+    private final WatchService watchService;
+    private final List<Path> roots = new ArrayList<>();
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private final Duration quietPeriod;
+
+    public ClassFileWatcher(String classpath) throws IOException {
+        this(classpath, DEFAULT_QUIET_PERIOD);
+    }
+
+    public ClassFileWatcher(String classpath, Duration quietPeriod) throws IOException {
+        this.quietPeriod = quietPeriod;
+        for (String element : classpath.split(File.pathSeparator)) {
+            if (element.isBlank()) continue;
+            Path path = Path.of(element.trim()).toAbsolutePath().normalize();
+            if (Files.isDirectory(path)) {
+                roots.add(path);
+            } else {
+                log.info("Not watching classpath archive {}, changes to it need a restart", path);
+            }
+        }
+        if (roots.isEmpty()) {
+            throw new IllegalArgumentException("The classpath contains no directory to watch: " + classpath);
+        }
+        this.watchService = FileSystems.getDefault().newWatchService();
+        for (Path root : roots) {
+            registerTree(root);
+        }
+        log.info("Watching {} classpath directories ({} directories in total)", roots.size(), directories.size());
+    }
+
+    /**
+     * Blocks until class files change and no further change arrives for the quiet period.
+     * Returns the changed class files; a directory in the result stands for changes that were not
+     * reported one by one (a new directory or lost events).
+     */
+    public Set<Path> awaitChanges() throws InterruptedException {
+        Set<Path> changed = new TreeSet<>();
+        while (changed.isEmpty()) {
+            WatchKey key = watchService.poll(ROOT_RECHECK_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+            if (key != null) {
+                collect(key, changed);
+            } else {
+                registerReappearedRoots(changed);
+            }
+        }
+        for (WatchKey key; (key = watchService.poll(quietPeriod.toMillis(), TimeUnit.MILLISECONDS)) != null; ) {
+            collect(key, changed);
+        }
+        registerReappearedRoots(changed);
+        return changed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private void collect(WatchKey key, Set<Path> changed) {
+        Path directory = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (directory == null) continue;
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                log.debug("Lost file events in {}", directory);
+                changed.add(directory);
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                // Class files written before the registration produce no events of their own
+                registerTree(path);
+                changed.add(path);
+            } else if (path.getFileName().toString().endsWith(".class")) {
+                changed.add(path);
+            }
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+    }
+
+    private void registerReappearedRoots(Set<Path> changed) {
+        for (Path root : roots) {
+            if (!directories.containsValue(root) && Files.isDirectory(root)) {
+                log.info("Classpath directory {} reappeared, watching it again", root);
+                registerTree(root);
+                changed.add(root);
+            }
+        }
+    }
+
+    private void registerTree(Path root) {
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) throws IOException {
+                    WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                    directories.put(key, directory);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    // Deleted by a concurrent build; its parent reports the change
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Could not watch directory {}", root, e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package cz.ememsoft.dbdrift.jpa;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Loads classes from directories, JARs and JARs nested in Spring Boot jars without extracting anything.
+ * Delegates to the parent first, like {@link java.net.URLClassLoader}.
+ */
+final class ClasspathClassLoader extends ClassLoader {
+    
+    static {
+        registerAsParallelCapable();
+    }
+    
+    private final List<ClasspathRoot> roots;
+    
+    ClasspathClassLoader(List<ClasspathRoot> roots, ClassLoader parent) {
+        super(parent);
+        this.roots = List.copyOf(roots);
+    }
+    
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        String resourcePath = name.replace('.', '/') + ".class";
+        for (ClasspathRoot root : roots) {
+            try {
+                byte[] bytes = root.read(resourcePath);
+                if (bytes != null) {
+                    return defineClass(name, bytes, 0, bytes.length);
+                }
+            } catch (IOException e) {
+                throw new ClassNotFoundException("Could not read " + resourcePath, e);
+            }
+        }
+        throw new ClassNotFoundException(name);
+    }
+}
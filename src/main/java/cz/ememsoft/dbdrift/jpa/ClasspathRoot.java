@@ -0,0 +1,154 @@
+package cz.ememsoft.dbdrift.jpa;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * One element of the scanned classpath: a class directory, a JAR, or a JAR nested inside a Spring Boot jar.
+ */
+sealed interface ClasspathRoot permits ClasspathRoot.Directory, ClasspathRoot.Archive {
+    
+    String BOOT_CLASSES = "BOOT-INF/classes/";
+    String BOOT_LIB = "BOOT-INF/lib/";
+    
+    @FunctionalInterface
+    interface ClassBytesSource {
+        byte[] read() throws IOException;
+    }
+    
+    /**
+     * A class file with a fingerprint that changes whenever its content does
+     * (modification time and size for files, CRC and size for archive entries).
+     */
+    record ClassFile(String className, String fingerprint, ClassBytesSource bytes) {}
+    
+    /**
+     * Reads a resource such as {@code com/example/Foo.class}, or returns null when this root does not contain it.
+     */
+    byte[] read(String resourcePath) throws IOException;
+    
+    List<ClassFile> listClasses(String packagePath) throws IOException;
+    
+    /**
+     * Fingerprint of a class file such as {@code com/example/Foo.class} in the format of {@link ClassFile},
+     * or null when this root does not contain it.
+     */
+    String fingerprint(String resourcePath) throws IOException;
+    
+    /**
+     * Opens every element of a path-separator delimited classpath. Spring Boot jars contribute
+     * their {@code BOOT-INF/classes} and each {@code BOOT-INF/lib} jar, read in place.
+     */
+    static List<ClasspathRoot> open(String classpath) throws IOException {
+        List<ClasspathRoot> roots = new ArrayList<>();
+        for (String element : classpath.split(File.pathSeparator)) {
+            if (element.isBlank()) continue;
+            
+            Path path = Path.of(element.trim());
+            if (Files.isDirectory(path)) {
+                roots.add(new Directory(path));
+            } else if (Files.isRegularFile(path) && path.getFileName().toString().endsWith(".jar")) {
+                ZipArchive archive = ZipArchive.open(path);
+                if (archive.entry(BOOT_CLASSES) != null || archive.entries().stream().anyMatch(e -> e.name().startsWith(BOOT_LIB))) {
+                    addBootJar(archive, roots);
+                } else {
+                    roots.add(new Archive(archive, ""));
+                }
+            } else {
+                throw new IllegalArgumentException("Classpath entry must be a directory or JAR file: " + element);
+            }
+        }
+        return roots;
+    }
+    
+    private static void addBootJar(ZipArchive bootJar, List<ClasspathRoot> roots) throws IOException {
+        roots.add(new Archive(bootJar, BOOT_CLASSES));
+        for (ZipArchive.Entry entry : bootJar.entries()) {
+            String name = entry.name();
+            if (name.startsWith(BOOT_LIB) && name.endsWith(".jar") && name.indexOf('/', BOOT_LIB.length()) < 0) {
+                roots.add(new Archive(bootJar.openNested(entry), ""));
+            }
+        }
+    }
+    
+    record Directory(Path root) implements ClasspathRoot {
+        @Override
+        public byte[] read(String resourcePath) throws IOException {
+            Path file = root.resolve(resourcePath);
+            return Files.isRegularFile(file) ? Files.readAllBytes(file) : null;
+        }
+        
+        @Override
+        public List<ClassFile> listClasses(String packagePath) throws IOException {
+            Path packageDir = root.resolve(packagePath);
+            if (!Files.isDirectory(packageDir)) {
+                return List.of();
+            }
+            
+            List<ClassFile> classes = new ArrayList<>();
+            try (Stream<Path> files = Files.walk(packageDir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    if (!file.getFileName().toString().endsWith(".class")) continue;
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    if (!attributes.isRegularFile()) continue;
+                    
+                    String relativePath = root.relativize(file).toString().replace(File.separatorChar, '/');
+                    String className = relativePath.substring(0, relativePath.length() - 6).replace('/', '.');
+                    classes.add(new ClassFile(className, fingerprint(attributes), () -> Files.readAllBytes(file)));
+                }
+            }
+            return classes;
+        }
+        
+        @Override
+        public String fingerprint(String resourcePath) throws IOException {
+            Path file = root.resolve(resourcePath);
+            if (!Files.isRegularFile(file)) {
+                return null;
+            }
+            return fingerprint(Files.readAttributes(file, BasicFileAttributes.class));
+        }
+        
+        private static String fingerprint(BasicFileAttributes attributes) {
+            return attributes.lastModifiedTime().toMillis() + ":" + attributes.size();
+        }
+    }
+    
+    record Archive(ZipArchive archive, String prefix) implements ClasspathRoot {
+        @Override
+        public byte[] read(String resourcePath) throws IOException {
+            ZipArchive.Entry entry = archive.entry(prefix + resourcePath);
+            return entry != null && !entry.isDirectory() ? archive.read(entry) : null;
+        }
+        
+        @Override
+        public List<ClassFile> listClasses(String packagePath) {
+            String entryPrefix = packagePath.isEmpty() ? prefix : prefix + packagePath + "/";
+            List<ClassFile> classes = new ArrayList<>();
+            for (ZipArchive.Entry entry : archive.entries()) {
+                String name = entry.name();
+                if (name.startsWith(entryPrefix) && name.endsWith(".class")) {
+                    String className = name.substring(prefix.length(), name.length() - 6).replace('/', '.');
+                    classes.add(new ClassFile(className, fingerprint(entry), () -> archive.read(entry)));
+                }
+            }
+            return classes;
+        }
+        
+        @Override
+        public String fingerprint(String resourcePath) {
+            ZipArchive.Entry entry = archive.entry(prefix + resourcePath);
+            return entry != null && !entry.isDirectory() ? fingerprint(entry) : null;
+        }
+        
+        private static String fingerprint(ZipArchive.Entry entry) {
+            return Long.toHexString(entry.crc()) + ":" + entry.size();
+        }
+    }
+}
@@ -3,99 +3,203 @@ package cz.ememsoft.dbdrift.jpa;
 import jakarta.persistence.Entity;
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.File;
-import java.net.URL;
-import java.net.URLClassLoader;
-import java.util.Enumeration;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 @Slf4j
 public class EntityDiscovery {
     
+    private static final String ENTITY_DESCRIPTOR = "Ljakarta/persistence/Entity;";
+    
+    /**
+     * How candidate classes are checked for the {@code @Entity} annotation.
+     */
+    public enum ScanMode {
+        /** Reads annotations from class file bytes and loads only the entities. */
+        BYTECODE,
+        /** Loads every class under the package and checks it via reflection. */
+        REFLECTION
+    }
+    
+    private final ScanMode scanMode;
+    private final int parallelism;
+    
+    public EntityDiscovery() {
+        this(ScanMode.BYTECODE);
+    }
+    
+    public EntityDiscovery(ScanMode scanMode) {
+        this(scanMode, Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * @param parallelism number of worker threads checking class files; 1 scans sequentially
+     */
+    public EntityDiscovery(ScanMode scanMode, int parallelism) {
+        this.scanMode = scanMode;
+        this.parallelism = Math.max(1, parallelism);
+    }
+    
     public Set<Class<?>> findEntitiesInPackage(String classpath, String packageName) throws Exception {
-        Set<Class<?>> entities = new LinkedHashSet<>();
-        
-        File classpathFile = new File(classpath);
-        URLClassLoader classLoader = new URLClassLoader(new URL[]{classpathFile.toURI().toURL()});
+        ClasspathScan scan = openScan(classpath, packageName);
+        List<Class<?>> entities = scan.findEntities(scan.classNames());
+        log.info("Found {} JPA entities in package '{}' (scan mode: {}, parallelism: {})",
+            entities.size(), packageName, scanMode, parallelism);
+        return new LinkedHashSet<>(entities);
+    }
+    
+    /**
+     * Lists the class files under the package without reading them. The classpath may contain
+     * several directories and JARs separated by the platform path separator; Spring Boot jars
+     * are read in place including their nested {@code BOOT-INF/lib} jars. When a class occurs
+     * in several roots the first one wins, as on a regular classpath.
+     */
+    public ClasspathScan openScan(String classpath, String packageName) throws IOException {
+        List<ClasspathRoot> roots = ClasspathRoot.open(classpath);
+        ClasspathClassLoader classLoader = new ClasspathClassLoader(roots, ClassLoader.getSystemClassLoader());
         
-        if (classpathFile.isDirectory()) {
-            entities.addAll(findEntitiesInDirectory(classLoader, classpathFile, packageName));
-        } else if (classpathFile.getName().endsWith(".jar")) {
-            entities.addAll(findEntitiesInJar(classLoader, classpathFile, packageName));
-        } else {
-            throw new IllegalArgumentException("Classpath must be a directory or JAR file");
+        String packagePath = packageName.replace('.', '/');
+        Map<String, ClasspathRoot.ClassFile> candidates = new TreeMap<>();
+        for (ClasspathRoot root : roots) {
+            for (ClasspathRoot.ClassFile classFile : root.listClasses(packagePath)) {
+                candidates.putIfAbsent(classFile.className(), classFile);
+            }
         }
         
-        log.info("Found {} JPA entities in package '{}'", entities.size(), packageName);
-        return entities;
+        if (candidates.isEmpty()) {
+            log.warn("No classes found in package '{}' on classpath: {}", packageName, classpath);
+        }
+        log.debug("Listed {} classes in package '{}' from {} classpath roots", candidates.size(), packageName, roots.size());
+        return new ClasspathScan(roots, classLoader, candidates);
     }
     
-    private Set<Class<?>> findEntitiesInDirectory(URLClassLoader classLoader, File directory, String packageName) throws Exception {
-        Set<Class<?>> entities = new LinkedHashSet<>();
-        String packagePath = packageName.replace('.', '/');
-        File packageDir = new File(directory, packagePath);
+    /**
+     * Class files found under a package, keyed by class name, with the class loader that loads them.
+     * Archives stay mapped as long as the class loader is reachable: the loaded entities resolve field
+     * types and superclasses through it lazily, so the mappings cannot be released when the scan ends.
+     */
+    public class ClasspathScan {
+        private final List<ClasspathRoot> roots;
+        private final ClassLoader classLoader;
+        private final Map<String, ClasspathRoot.ClassFile> candidates;
         
-        if (!packageDir.exists()) {
-            log.warn("Package directory not found: {}", packageDir.getAbsolutePath());
-            return entities;
+        private ClasspathScan(List<ClasspathRoot> roots, ClassLoader classLoader, Map<String, ClasspathRoot.ClassFile> candidates) {
+            this.roots = roots;
+            this.classLoader = classLoader;
+            this.candidates = candidates;
         }
         
-        scanDirectoryForClasses(classLoader, packageDir, packageName, entities);
-        return entities;
-    }
-    
-    private void scanDirectoryForClasses(URLClassLoader classLoader, File directory, String packageName, Set<Class<?>> entities) throws Exception {
-        File[] files = directory.listFiles();
-        if (files == null) return;
+        public Set<String> classNames() {
+            return Collections.unmodifiableSet(candidates.keySet());
+        }
+        
+        public Map<String, String> fingerprints() {
+            Map<String, String> fingerprints = new TreeMap<>();
+            candidates.forEach((className, candidate) -> fingerprints.put(className, candidate.fingerprint()));
+            return fingerprints;
+        }
         
-        for (File file : files) {
-            if (file.isDirectory()) {
-                scanDirectoryForClasses(classLoader, file, packageName + "." + file.getName(), entities);
-            } else if (file.getName().endsWith(".class")) {
-                String className = packageName + "." + file.getName().substring(0, file.getName().length() - 6);
-                try {
-                    Class<?> clazz = classLoader.loadClass(className);
-                    if (clazz.isAnnotationPresent(Entity.class)) {
-                        entities.add(clazz);
-                        log.debug("Found entity: {}", className);
-                    }
-                } catch (ClassNotFoundException e) {
-                    log.warn("Could not load class: {}", className);
+        /**
+         * Fingerprint of any class on the scanned classpath, also outside the package, taken from the first
+         * root that contains it as the class loader would; null when the classpath does not contain it.
+         */
+        public String fingerprint(String className) throws IOException {
+            String resourcePath = className.replace('.', '/') + ".class";
+            for (ClasspathRoot root : roots) {
+                String fingerprint = root.fingerprint(resourcePath);
+                if (fingerprint != null) {
+                    return fingerprint;
                 }
             }
+            return null;
+        }
+        
+        /**
+         * Returns the entities among the given classes, ordered by class name.
+         */
+        public List<Class<?>> findEntities(Collection<String> classNames) throws Exception {
+            List<ClasspathRoot.ClassFile> selected = classNames.stream()
+                .map(candidates::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+            return filterEntities(classLoader, selected);
         }
     }
     
-    private Set<Class<?>> findEntitiesInJar(URLClassLoader classLoader, File jarFile, String packageName) throws Exception {
-        Set<Class<?>> entities = new LinkedHashSet<>();
-        String packagePath = packageName.replace('.', '/');
+    /**
+     * Checks all candidates, in parallel when configured, and returns the entities ordered
+     * by class name so the result does not depend on file system order or thread scheduling.
+     */
+    private List<Class<?>> filterEntities(ClassLoader classLoader, List<ClasspathRoot.ClassFile> candidates) throws Exception {
+        List<ClasspathRoot.ClassFile> sorted = new ArrayList<>(candidates);
+        sorted.sort(Comparator.comparing(ClasspathRoot.ClassFile::className));
         
-        try (JarFile jar = new JarFile(jarFile)) {
-            Enumeration<JarEntry> entries = jar.entries();
-            
-            while (entries.hasMoreElements()) {
-                JarEntry entry = entries.nextElement();
-                String entryName = entry.getName();
-                
-                if (entryName.startsWith(packagePath) && entryName.endsWith(".class")) {
-                    String className = entryName.replace('/', '.').substring(0, entryName.length() - 6);
-                    
-                    try {
-                        Class<?> clazz = classLoader.loadClass(className);
-                        if (clazz.isAnnotationPresent(Entity.class)) {
-                            entities.add(clazz);
-                            log.debug("Found entity in JAR: {}", className);
-                        }
-                    } catch (ClassNotFoundException e) {
-                        log.warn("Could not load class from JAR: {}", className);
-                    }
+        if (parallelism <= 1 || sorted.size() < 2) {
+            return sorted.stream()
+                .map(candidate -> checkClass(classLoader, candidate))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        }
+        
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            // The ordered parallel stream keeps the encounter (sorted) order in the result
+            return pool.submit(() -> sorted.parallelStream()
+                    .<Class<?>>map(candidate -> checkClass(classLoader, candidate))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList()))
+                .get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    /**
+     * Returns the loaded class if it is an entity, otherwise null. In bytecode mode
+     * classes without {@code @Entity} in their class file are never loaded.
+     */
+    private Class<?> checkClass(ClassLoader classLoader, ClasspathRoot.ClassFile candidate) {
+        String className = candidate.className();
+        if (scanMode == ScanMode.BYTECODE) {
+            try {
+                if (!ClassFileAnnotationScanner.hasClassAnnotation(candidate.bytes().read(), ENTITY_DESCRIPTOR)) {
+                    return null;
                 }
+                log.debug("Found entity: {}", className);
+                return loadClass(classLoader, className);
+            } catch (IOException e) {
+                log.warn("Could not read class file: {}", className, e);
+                return null;
+            } catch (ClassFileAnnotationScanner.UnreadableClassFileException e) {
+                log.debug("Falling back to class loading for {}: {}", className, e.getMessage());
             }
         }
         
-        return entities;
+        Class<?> clazz = loadClass(classLoader, className);
+        if (clazz != null && clazz.isAnnotationPresent(Entity.class)) {
+            log.debug("Found entity: {}", className);
+            return clazz;
+        }
+        return null;
+    }
+    
+    private Class<?> loadClass(ClassLoader classLoader, String className) {
+        try {
+            return classLoader.loadClass(className);
+        } catch (ClassNotFoundException | NoClassDefFoundError e) {
+            log.warn("Could not load class: {}", className);
+            return null;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,267 @@
+package cz.ememsoft.dbdrift.jpa;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.ememsoft.dbdrift.model.ColumnName;
+import cz.ememsoft.dbdrift.model.SymbolTable;
+import cz.ememsoft.dbdrift.model.TableName;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * On-disk index of discovered entities and their table/column mapping, keyed by class file fingerprints.
+ * Unchanged classpaths are answered without loading a single class; otherwise only entities whose
+ * own class file or one of their mapped superclasses/embeddables changed are analysed again. Each entity
+ * records the fingerprints of those dependencies, so a shared base class outside the scanned package,
+ * such as a {@code common.BaseEntity}, invalidates the entities that inherit from or embed it.
+ * The last index of each classpath is also kept in memory for long-running processes; without a cache
+ * directory it is kept only there.
+ */
+@Slf4j
+public class EntityIndexCache {
+    
+    private static final int FORMAT_VERSION = 2;
+    
+    /**
+     * Analyses the given entities and returns their schema keyed by entity class.
+     */
+    @FunctionalInterface
+    public interface EntityAnalysis {
+        Map<Class<?>, Map<TableName, Set<ColumnName>>> analyze(List<Class<?>> entities);
+    }
+    
+    /**
+     * @param dependencies fingerprints of the mapped superclasses and embeddables on the scanned classpath,
+     *                     inside the package or not, keyed by class name
+     */
+    record CachedEntity(String table, List<String> columns, Map<String, String> dependencies) {}
+    
+    record EntityIndex(int version, String classpath, String packageName,
+                       Map<String, String> classes, Map<String, CachedEntity> entities) {}
+    
+    private final Path cacheDirectory;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, EntityIndex> loadedIndexes = new ConcurrentHashMap<>();
+    private final SymbolTable symbols;
+    
+    public EntityIndexCache(Path cacheDirectory) {
+        this(cacheDirectory, new SymbolTable());
+    }
+    
+    public EntityIndexCache(Path cacheDirectory, SymbolTable symbols) {
+        this.cacheDirectory = cacheDirectory;
+        this.symbols = symbols;
+    }
+    
+    public Map<TableName, Set<ColumnName>> analyze(EntityDiscovery discovery, JpaEntityAnalyzer analyzer,
+                                                   String classpath, String packageName,
+                                                   EntityAnalysis analysis) throws Exception {
+        String classpathKey = Arrays.stream(classpath.split(File.pathSeparator))
+            .filter(element -> !element.isBlank())
+            .map(element -> Path.of(element.trim()).toAbsolutePath().normalize().toString())
+            .collect(Collectors.joining(File.pathSeparator));
+        String indexKey = indexKey(classpathKey, packageName);
+        
+        EntityDiscovery.ClasspathScan scan = discovery.openScan(classpath, packageName);
+        Map<String, String> fingerprints = scan.fingerprints();
+        CurrentFingerprints current = new CurrentFingerprints(scan, fingerprints);
+        EntityIndex previous = readIndex(indexKey, classpathKey, packageName);
+        
+        if (previous != null && previous.classes().equals(fingerprints) && current.unchanged(previous.entities().values())) {
+            log.info("Entity index cache hit for '{}' ({} entities, {} classes)",
+                packageName, previous.entities().size(), fingerprints.size());
+            return toSchema(previous.entities());
+        }
+        
+        Map<String, CachedEntity> entities = new TreeMap<>();
+        Set<String> classesToCheck = new TreeSet<>();
+        
+        if (previous == null) {
+            classesToCheck.addAll(fingerprints.keySet());
+        } else {
+            Set<String> dirty = new TreeSet<>();
+            fingerprints.forEach((className, fingerprint) -> {
+                if (!fingerprint.equals(previous.classes().get(className))) dirty.add(className);
+            });
+            
+            classesToCheck.addAll(dirty);
+            int changedDependencies = 0;
+            for (Map.Entry<String, CachedEntity> cached : previous.entities().entrySet()) {
+                String className = cached.getKey();
+                if (!fingerprints.containsKey(className)) continue;
+                if (dirty.contains(className)) {
+                    classesToCheck.add(className);
+                } else if (!current.unchanged(cached.getValue())) {
+                    classesToCheck.add(className);
+                    changedDependencies++;
+                } else {
+                    entities.put(className, cached.getValue());
+                }
+            }
+            log.info("Entity index cache partially valid for '{}': {} changed classes, {} entities with changed "
+                + "dependencies, {} entities reused", packageName, dirty.size(), changedDependencies, entities.size());
+        }
+        
+        int reused = entities.size();
+        List<Class<?>> changedEntities = scan.findEntities(classesToCheck);
+        for (Map.Entry<Class<?>, Map<TableName, Set<ColumnName>>> analysed : analysis.analyze(changedEntities).entrySet()) {
+            Class<?> entityClass = analysed.getKey();
+            Map<String, String> dependencies = new TreeMap<>();
+            for (Class<?> type : analyzer.findMappedTypes(entityClass)) {
+                // Types that are not on the scanned classpath come with the JDK or this tool and cannot change
+                String fingerprint = type != entityClass ? current.of(type.getName()) : null;
+                if (fingerprint != null) {
+                    dependencies.put(type.getName(), fingerprint);
+                }
+            }
+            analysed.getValue().forEach((table, columns) -> entities.put(entityClass.getName(), new CachedEntity(
+                table.value(), columns.stream().map(ColumnName::value).collect(Collectors.toList()), dependencies)));
+        }
+        log.info("Analysed {} entities, {} taken from the entity index cache", changedEntities.size(), reused);
+        
+        writeIndex(indexKey, new EntityIndex(FORMAT_VERSION, classpathKey, packageName, fingerprints, entities));
+        return toSchema(entities);
+    }
+    
+    /**
+     * Current fingerprints of the classes in the package and, read once when first needed, of classes
+     * outside it.
+     */
+    private static final class CurrentFingerprints {
+        private final EntityDiscovery.ClasspathScan scan;
+        private final Map<String, String> packageClasses;
+        private final Map<String, String> otherClasses = new HashMap<>();
+        
+        CurrentFingerprints(EntityDiscovery.ClasspathScan scan, Map<String, String> packageClasses) {
+            this.scan = scan;
+            this.packageClasses = packageClasses;
+        }
+        
+        /**
+         * Null when the class is not on the scanned classpath (any more).
+         */
+        String of(String className) throws IOException {
+            if (packageClasses.containsKey(className)) {
+                return packageClasses.get(className);
+            }
+            if (!otherClasses.containsKey(className)) {
+                otherClasses.put(className, scan.fingerprint(className));
+            }
+            return otherClasses.get(className);
+        }
+        
+        boolean unchanged(Collection<CachedEntity> entities) throws IOException {
+            for (CachedEntity entity : entities) {
+                if (!unchanged(entity)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        boolean unchanged(CachedEntity entity) throws IOException {
+            for (Map.Entry<String, String> dependency : entity.dependencies().entrySet()) {
+                if (!dependency.getValue().equals(of(dependency.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+    
+    /**
+     * Merges entity mappings in class name order, the same order discovery returns entities in.
+     */
+    private Map<TableName, Set<ColumnName>> toSchema(Map<String, CachedEntity> entities) {
+        Map<TableName, Set<ColumnName>> schema = new LinkedHashMap<>();
+        new TreeMap<>(entities).values().forEach(entity -> {
+            Set<ColumnName> columns = entity.columns().stream()
+                .map(symbols::columnName)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+            schema.put(symbols.tableName(entity.table()), columns);
+        });
+        return schema;
+    }
+    
+    private EntityIndex readIndex(String indexKey, String classpath, String packageName) {
+        // Only used when its fingerprints still match the classpath, so it cannot be stale
+        EntityIndex loaded = loadedIndexes.get(indexKey);
+        if (loaded != null) {
+            return loaded;
+        }
+        if (cacheDirectory == null) {
+            return null;
+        }
+        Path indexFile = indexFile(indexKey);
+        if (!Files.exists(indexFile)) {
+            return null;
+        }
+        try {
+            // The version is checked first, an index of an older format may not match the records
+            JsonNode tree = mapper.readTree(indexFile.toFile());
+            EntityIndex index = tree.path("version").asInt() == FORMAT_VERSION ? mapper.treeToValue(tree, EntityIndex.class) : null;
+            if (index == null || !classpath.equals(index.classpath())
+                    || !packageName.equals(index.packageName())) {
+                log.info("Ignoring entity index cache {} written for a different classpath or format", indexFile);
+                return null;
+            }
+            loadedIndexes.put(indexKey, index);
+            return index;
+        } catch (IOException e) {
+            log.warn("Could not read entity index cache {}, analysing all entities", indexFile, e);
+            return null;
+        }
+    }
+    
+    private void writeIndex(String indexKey, EntityIndex index) {
+        loadedIndexes.put(indexKey, index);
+        if (cacheDirectory == null) {
+            return;
+        }
+        Path indexFile = indexFile(indexKey);
+        try {
+            Files.createDirectories(cacheDirectory);
+            Path tempFile = Files.createTempFile(cacheDirectory, "entity-index", ".tmp");
+            mapper.writeValue(tempFile.toFile(), index);
+            Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Entity index cache written to {}", indexFile);
+        } catch (IOException e) {
+            log.warn("Could not write entity index cache {}", indexFile, e);
+        }
+    }
+    
+    private Path indexFile(String indexKey) {
+        return cacheDirectory.resolve("entity-index-" + indexKey + ".json");
+    }
+    
+    private static String indexKey(String classpath, String packageName) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((classpath + "|" + packageName).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package cz.ememsoft.dbdrift.jpa;
 
 import cz.ememsoft.dbdrift.model.ColumnName;
+import cz.ememsoft.dbdrift.model.SymbolTable;
 import cz.ememsoft.dbdrift.model.TableName;
 import cz.ememsoft.dbdrift.util.NameConverter;
 import jakarta.persistence.AttributeOverride;
@@ -21,14 +22,95 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 @Slf4j
 public class JpaEntityAnalyzer {
     
+    /**
+     * Mapping metadata of one class in an entity hierarchy, resolved once per class and shared by all
+     * entities that extend or embed it.
+     */
+    private static final class ClassMapping {
+        private final List<FieldMapping> fields;
+        private final Map<String, String> attributeOverrides;
+        private final Class<?> mappedSuperclass;
+        private final String explicitTableName;
+        private final String discriminatorColumn;
+        // Columns of this class and its superclasses without prefix and overrides, filled on first use
+        private volatile List<ColumnName> unprefixedColumns;
+        
+        private ClassMapping(Class<?> clazz) {
+            List<FieldMapping> fieldMappings = new ArrayList<>();
+            for (Field field : clazz.getDeclaredFields()) {
+                if (!isMappableField(field)) continue;
+                
+                if (field.isAnnotationPresent(Embedded.class)) {
+                    Map<String, String> embeddedOverrides = new HashMap<>();
+                    extractAttributeOverrides(field, embeddedOverrides);
+                    fieldMappings.add(new FieldMapping(field.getName(), null, field.getType(),
+                        NameConverter.camelToSnake(field.getName()) + "_", embeddedOverrides));
+                } else {
+                    fieldMappings.add(new FieldMapping(field.getName(), extractColumnName(field), null, null, Map.of()));
+                }
+            }
+            this.fields = List.copyOf(fieldMappings);
+            
+            Map<String, String> overrides = new HashMap<>();
+            extractAttributeOverrides(clazz, overrides);
+            this.attributeOverrides = Map.copyOf(overrides);
+            
+            Class<?> superClass = clazz.getSuperclass();
+            this.mappedSuperclass = superClass != null && superClass != Object.class ? superClass : null;
+            ClassMapping parent = mappedSuperclass != null ? MAPPINGS.get(mappedSuperclass) : null;
+            
+            // The nearest @Table with a name and the nearest @Inheritance win, as when walking up the hierarchy
+            Table table = clazz.getAnnotation(Table.class);
+            if (table != null && !table.name().isEmpty()) {
+                this.explicitTableName = table.name();
+            } else {
+                this.explicitTableName = parent != null ? parent.explicitTableName : null;
+            }
+            
+            if (clazz.isAnnotationPresent(Inheritance.class)) {
+                DiscriminatorColumn discriminator = clazz.getAnnotation(DiscriminatorColumn.class);
+                this.discriminatorColumn = discriminator != null && !discriminator.name().isEmpty()
+                    ? discriminator.name() : "DTYPE"; // JPA default
+            } else {
+                this.discriminatorColumn = parent != null ? parent.discriminatorColumn : null;
+            }
+        }
+    }
+    
+    /**
+     * A mappable field; either a basic/foreign key column without overrides applied, or an embedded type.
+     */
+    private record FieldMapping(String name, String columnName, Class<?> embeddedType,
+                                String embeddedPrefix, Map<String, String> embeddedOverrides) {}
+    
+    private static final ClassValue<ClassMapping> MAPPINGS = new ClassValue<>() {
+        @Override
+        protected ClassMapping computeValue(Class<?> type) {
+            log.trace("Resolving mapping metadata of class: {}", type.getName());
+            return new ClassMapping(type);
+        }
+    };
+    
+    private final SymbolTable symbols;
+    
+    public JpaEntityAnalyzer() {
+        this(new SymbolTable());
+    }
+    
+    public JpaEntityAnalyzer(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+    
     public Map<TableName, Set<ColumnName>> analyzeEntity(Class<?> entityClass) {
         if (!entityClass.isAnnotationPresent(Entity.class)) {
             throw new IllegalArgumentException("Class " + entityClass.getName() + " is not a JPA entity");
@@ -43,64 +125,96 @@ public class JpaEntityAnalyzer {
         addDiscriminatorColumn(entityClass, columns);
         
         // Collect columns from the entity and its inheritance hierarchy
-        collectColumns(entityClass, "", columns, new HashMap<>());
+        columns.addAll(unprefixedColumns(entityClass));
         
         return Map.of(tableName, columns);
     }
     
+    /**
+     * Returns the entity class together with every superclass and embeddable type its columns are read from.
+     */
+    public Set<Class<?>> findMappedTypes(Class<?> entityClass) {
+        Set<Class<?>> types = new LinkedHashSet<>();
+        collectMappedTypes(entityClass, types);
+        return types;
+    }
+    
+    private void collectMappedTypes(Class<?> clazz, Set<Class<?>> types) {
+        if (!types.add(clazz)) return;
+        
+        ClassMapping mapping = MAPPINGS.get(clazz);
+        for (FieldMapping field : mapping.fields) {
+            if (field.embeddedType() != null) {
+                collectMappedTypes(field.embeddedType(), types);
+            }
+        }
+        
+        if (mapping.mappedSuperclass != null) {
+            collectMappedTypes(mapping.mappedSuperclass, types);
+        }
+    }
+    
+    private List<ColumnName> unprefixedColumns(Class<?> clazz) {
+        ClassMapping mapping = MAPPINGS.get(clazz);
+        List<ColumnName> columns = mapping.unprefixedColumns;
+        if (columns == null) {
+            Set<ColumnName> collected = new LinkedHashSet<>();
+            collectColumns(clazz, "", collected, Map.of());
+            columns = List.copyOf(collected);
+            mapping.unprefixedColumns = columns;
+        }
+        return columns;
+    }
+    
     private void collectColumns(Class<?> clazz, String prefix, Set<ColumnName> columns, Map<String, String> overrides) {
         log.trace("Processing class: {} with prefix: '{}'", clazz.getSimpleName(), prefix);
+        ClassMapping mapping = MAPPINGS.get(clazz);
         
         // Process fields from current class
-        for (Field field : clazz.getDeclaredFields()) {
-            if (!isMappableField(field)) continue;
-            
-            if (field.isAnnotationPresent(Embedded.class)) {
+        for (FieldMapping field : mapping.fields) {
+            if (field.embeddedType() != null) {
                 processEmbeddedField(field, prefix, columns, overrides);
                 continue;
             }
             
-            String columnName = extractColumnName(field, overrides);
+            String columnName = overrides.containsKey(field.name()) ? overrides.get(field.name()) : field.columnName();
             if (columnName != null) {
                 String fullColumnName = prefix + columnName;
                 log.trace("Adding column: '{}' from field '{}' in class '{}'", 
-                    fullColumnName, field.getName(), clazz.getSimpleName());
-                columns.add(new ColumnName(fullColumnName.toUpperCase()));
+                    fullColumnName, field.name(), clazz.getSimpleName());
+                columns.add(symbols.columnName(fullColumnName.toUpperCase()));
             }
         }
         
         // Process superclass if it exists and is not Object
-        Class<?> superClass = clazz.getSuperclass();
-        if (superClass != null && superClass != Object.class) {
+        if (mapping.mappedSuperclass != null) {
+            if (prefix.isEmpty() && overrides.isEmpty() && mapping.attributeOverrides.isEmpty()) {
+                // Shared superclasses such as audit base classes are resolved only once
+                columns.addAll(unprefixedColumns(mapping.mappedSuperclass));
+                return;
+            }
             Map<String, String> newOverrides = new HashMap<>(overrides);
-            extractAttributeOverrides(clazz, newOverrides);
-            collectColumns(superClass, prefix, columns, newOverrides);
+            newOverrides.putAll(mapping.attributeOverrides);
+            collectColumns(mapping.mappedSuperclass, prefix, columns, newOverrides);
         }
     }
     
-    private void processEmbeddedField(Field field, String prefix, Set<ColumnName> columns, Map<String, String> parentOverrides) {
-        String fieldName = field.getName();
-        log.trace("Found embedded field: '{}'", fieldName);
+    private void processEmbeddedField(FieldMapping field, String prefix, Set<ColumnName> columns, Map<String, String> parentOverrides) {
+        log.trace("Found embedded field: '{}'", field.name());
         
-        Class<?> embeddedType = field.getType();
-        String newPrefix = prefix + NameConverter.camelToSnake(fieldName) + "_";
+        String newPrefix = prefix + field.embeddedPrefix();
         
         Map<String, String> embeddedOverrides = new HashMap<>(parentOverrides);
-        extractAttributeOverrides(field, embeddedOverrides);
+        embeddedOverrides.putAll(field.embeddedOverrides());
         
         log.trace("Recursively processing @Embedded class '{}' with prefix '{}'", 
-            embeddedType.getSimpleName(), newPrefix);
-        collectColumns(embeddedType, newPrefix, columns, embeddedOverrides);
+            field.embeddedType().getSimpleName(), newPrefix);
+        collectColumns(field.embeddedType(), newPrefix, columns, embeddedOverrides);
     }
     
-    private String extractColumnName(Field field, Map<String, String> overrides) {
+    private static String extractColumnName(Field field) {
         String fieldName = field.getName();
         
-        // Check for override first
-        if (overrides.containsKey(fieldName)) {
-            return overrides.get(fieldName);
-        }
-        
         // Check for @JoinColumn annotation (for foreign keys)
         if (field.isAnnotationPresent(JoinColumn.class)) {
             JoinColumn joinColumn = field.getAnnotation(JoinColumn.class);
@@ -129,46 +243,26 @@ public class JpaEntityAnalyzer {
     }
     
     private TableName extractTableName(Class<?> entityClass) {
-        // Look for @Table annotation in the entire hierarchy
-        Class<?> currentClass = entityClass;
-        while (currentClass != null && currentClass != Object.class) {
-            if (currentClass.isAnnotationPresent(Table.class)) {
-                Table table = currentClass.getAnnotation(Table.class);
-                if (!table.name().isEmpty()) {
-                    return new TableName(table.name());
-                }
-            }
-            currentClass = currentClass.getSuperclass();
+        // @Table of the entire hierarchy, resolved in the class mapping
+        String explicitTableName = MAPPINGS.get(entityClass).explicitTableName;
+        if (explicitTableName != null) {
+            return symbols.tableName(explicitTableName);
         }
         
         // Use Spring Boot naming convention (CamelCase -> snake_case) from the entity class
-        return new TableName(NameConverter.camelToSnake(entityClass.getSimpleName()));
+        return symbols.tableName(NameConverter.camelToSnake(entityClass.getSimpleName()));
     }
     
     private void addDiscriminatorColumn(Class<?> entityClass, Set<ColumnName> columns) {
-        // Look for @Inheritance annotation in the inheritance hierarchy
-        Class<?> currentClass = entityClass;
-        while (currentClass != null && currentClass != Object.class) {
-            if (currentClass.isAnnotationPresent(Inheritance.class)) {
-                String discriminatorColumnName = "DTYPE"; // JPA default
-                
-                // Look for @DiscriminatorColumn in the same class that has @Inheritance
-                if (currentClass.isAnnotationPresent(DiscriminatorColumn.class)) {
-                    DiscriminatorColumn discriminatorColumn = currentClass.getAnnotation(DiscriminatorColumn.class);
-                    if (!discriminatorColumn.name().isEmpty()) {
-                        discriminatorColumnName = discriminatorColumn.name();
-                    }
-                }
-                
-                log.trace("Adding discriminator column '{}' for entity '{}'", discriminatorColumnName, entityClass.getSimpleName());
-                columns.add(new ColumnName(discriminatorColumnName.toUpperCase()));
-                return;
-            }
-            currentClass = currentClass.getSuperclass();
+        // Discriminator of the nearest class with @Inheritance, resolved in the class mapping
+        String discriminatorColumnName = MAPPINGS.get(entityClass).discriminatorColumn;
+        if (discriminatorColumnName != null) {
+            log.trace("Adding discriminator column '{}' for entity '{}'", discriminatorColumnName, entityClass.getSimpleName());
+            columns.add(symbols.columnName(discriminatorColumnName.toUpperCase()));
         }
     }
     
-    private void extractAttributeOverrides(Object source, Map<String, String> overrides) {
+    private static void extractAttributeOverrides(Object source, Map<String, String> overrides) {
         Class<?> sourceClass = (source instanceof Class) ? (Class<?>) source : source.getClass();
         
         if (sourceClass.isAnnotationPresent(AttributeOverrides.class)) {
@@ -184,7 +278,7 @@ public class JpaEntityAnalyzer {
         }
     }
     
-    private boolean isMappableField(Field field) {
+    private static boolean isMappableField(Field field) {
         return !Modifier.isStatic(field.getModifiers()) 
             && !Modifier.isFinal(field.getModifiers())
             && !field.isAnnotationPresent(Transient.class)
@@ -193,7 +287,7 @@ public class JpaEntityAnalyzer {
             && !isUnmappedRelationship(field);
     }
     
-    private boolean isUnmappedRelationship(Field field) {
+    private static boolean isUnmappedRelationship(Field field) {
         // Check for @ManyToOne or @OneToOne without explicit column mapping
         if (field.isAnnotationPresent(ManyToOne.class)) {
             // If it has @JoinColumn, it should be mapped as foreign key column
@@ -0,0 +1,253 @@
+package cz.ememsoft.dbdrift.jpa;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Minimal read-only ZIP reader over a memory-mapped file. Only the central directory is parsed
+ * upfront; entries are read on demand. Stored (uncompressed) nested archives, such as the
+ * {@code BOOT-INF/lib/*.jar} entries of a Spring Boot jar, are opened in place as a slice of the
+ * outer mapping, so nothing is ever extracted to disk. All reads use absolute positions and are
+ * safe to call from multiple threads.
+ */
+final class ZipArchive {
+    
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int END_RECORD_SIZE = 22;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+    
+    record Entry(String name, int method, long crc, long compressedSize, long size, long localHeaderOffset) {
+        boolean isDirectory() {
+            return name.endsWith("/");
+        }
+    }
+    
+    private final ByteBuffer data;
+    private final String description;
+    private final Map<String, Entry> entries;
+    
+    private ZipArchive(ByteBuffer data, String description) throws IOException {
+        this.data = data.order(ByteOrder.LITTLE_ENDIAN);
+        this.description = description;
+        try {
+            this.entries = readCentralDirectory();
+        } catch (IndexOutOfBoundsException | ArithmeticException e) {
+            throw new ZipException("Corrupt central directory in " + description);
+        }
+    }
+    
+    static ZipArchive open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new ZipException("Archives larger than 2 GB are not supported: " + file);
+            }
+            // The mapping stays valid after the channel is closed
+            return new ZipArchive(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), file.toString());
+        }
+    }
+    
+    /**
+     * Opens an archive stored inside this one. Stored entries are sliced from the mapping,
+     * compressed ones are inflated into memory.
+     */
+    ZipArchive openNested(Entry entry) throws IOException {
+        ByteBuffer content;
+        if (entry.method() == METHOD_STORED) {
+            try {
+                content = data.slice(dataOffset(entry), Math.toIntExact(entry.size()));
+            } catch (IndexOutOfBoundsException | ArithmeticException e) {
+                throw new ZipException("Entry " + entry.name() + " lies outside of " + description);
+            }
+        } else {
+            content = ByteBuffer.wrap(read(entry));
+        }
+        return new ZipArchive(content, description + "!/" + entry.name());
+    }
+    
+    Collection<Entry> entries() {
+        return Collections.unmodifiableCollection(entries.values());
+    }
+    
+    Entry entry(String name) {
+        return entries.get(name);
+    }
+    
+    String description() {
+        return description;
+    }
+    
+    byte[] read(Entry entry) throws IOException {
+        try {
+            return readContent(entry);
+        } catch (IndexOutOfBoundsException | ArithmeticException e) {
+            throw new ZipException("Entry " + entry.name() + " lies outside of " + description);
+        }
+    }
+    
+    private byte[] readContent(Entry entry) throws IOException {
+        int offset = dataOffset(entry);
+        byte[] content = new byte[Math.toIntExact(entry.size())];
+        
+        if (entry.method() == METHOD_STORED) {
+            data.get(offset, content);
+            return content;
+        }
+        if (entry.method() != METHOD_DEFLATED) {
+            throw new ZipException("Unsupported compression method " + entry.method() + " for " + entry.name() + " in " + description);
+        }
+        
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data.slice(offset, Math.toIntExact(entry.compressedSize())));
+            int written = 0;
+            while (written < content.length) {
+                int count = inflater.inflate(content, written, content.length - written);
+                if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new ZipException("Truncated entry " + entry.name() + " in " + description);
+                }
+                written += count;
+            }
+            return content;
+        } catch (DataFormatException e) {
+            throw new ZipException("Corrupt entry " + entry.name() + " in " + description + ": " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+    
+    private int dataOffset(Entry entry) throws ZipException {
+        int header = Math.toIntExact(entry.localHeaderOffset());
+        if (header < 0 || header + 30 > data.limit() || data.getInt(header) != LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException("Invalid local header for " + entry.name() + " in " + description);
+        }
+        return header + 30 + u16(header + 26) + u16(header + 28);
+    }
+    
+    private Map<String, Entry> readCentralDirectory() throws IOException {
+        int end = findEndRecord();
+        long entryCount = u16(end + 10);
+        long directorySize = u32(end + 12);
+        long directoryOffset = u32(end + 16);
+        int directoryEnd = end;
+        
+        int locator = end - 20;
+        boolean hasZip64Locator = locator >= 0 && data.getInt(locator) == ZIP64_LOCATOR_SIGNATURE;
+        if (directorySize == 0xFFFFFFFFL || directoryOffset == 0xFFFFFFFFL || (entryCount == 0xFFFF && hasZip64Locator)) {
+            if (!hasZip64Locator) {
+                throw new ZipException("Missing ZIP64 end locator in " + description);
+            }
+            int zip64End = findZip64EndRecord(locator);
+            entryCount = data.getLong(zip64End + 32);
+            directorySize = data.getLong(zip64End + 40);
+            directoryOffset = data.getLong(zip64End + 48);
+            directoryEnd = zip64End;
+        }
+        
+        // Archives with a prepended launch script have all offsets shifted by the script length
+        long shift = directoryEnd - directorySize - directoryOffset;
+        if (shift < 0) {
+            throw new ZipException("Invalid central directory in " + description);
+        }
+        
+        Map<String, Entry> result = new LinkedHashMap<>();
+        int position = Math.toIntExact(directoryOffset + shift);
+        for (long i = 0; i < entryCount; i++) {
+            if (data.getInt(position) != CENTRAL_HEADER_SIGNATURE) {
+                throw new ZipException("Invalid central directory entry in " + description);
+            }
+            int method = u16(position + 10);
+            long crc = u32(position + 16);
+            long compressedSize = u32(position + 20);
+            long size = u32(position + 24);
+            int nameLength = u16(position + 28);
+            int extraLength = u16(position + 30);
+            int commentLength = u16(position + 32);
+            long localHeaderOffset = u32(position + 42);
+            
+            byte[] nameBytes = new byte[nameLength];
+            data.get(position + 46, nameBytes);
+            String name = new String(nameBytes, StandardCharsets.UTF_8);
+            
+            if (size == 0xFFFFFFFFL || compressedSize == 0xFFFFFFFFL || localHeaderOffset == 0xFFFFFFFFL) {
+                long[] values = readZip64Extra(position + 46 + nameLength, extraLength,
+                    size == 0xFFFFFFFFL, compressedSize == 0xFFFFFFFFL, localHeaderOffset == 0xFFFFFFFFL);
+                if (values[0] >= 0) size = values[0];
+                if (values[1] >= 0) compressedSize = values[1];
+                if (values[2] >= 0) localHeaderOffset = values[2];
+            }
+            
+            result.put(name, new Entry(name, method, crc, compressedSize, size, localHeaderOffset + shift));
+            position += 46 + nameLength + extraLength + commentLength;
+        }
+        return result;
+    }
+    
+    private int findEndRecord() throws ZipException {
+        int last = data.limit() - END_RECORD_SIZE;
+        int first = Math.max(0, last - 0xFFFF);
+        for (int position = last; position >= first; position--) {
+            if (data.getInt(position) == END_SIGNATURE && position + END_RECORD_SIZE + u16(position + 20) == data.limit()) {
+                return position;
+            }
+        }
+        throw new ZipException("End of central directory not found in " + description);
+    }
+    
+    private int findZip64EndRecord(int locator) throws ZipException {
+        // Without extensible data the record directly precedes the locator, which also works for shifted archives
+        int adjacent = locator - 56;
+        if (adjacent >= 0 && data.getInt(adjacent) == ZIP64_END_SIGNATURE) {
+            return adjacent;
+        }
+        long recorded = data.getLong(locator + 8);
+        if (recorded >= 0 && recorded < locator && data.getInt((int) recorded) == ZIP64_END_SIGNATURE) {
+            return (int) recorded;
+        }
+        throw new ZipException("ZIP64 end of central directory not found in " + description);
+    }
+    
+    private long[] readZip64Extra(int offset, int length, boolean hasSize, boolean hasCompressedSize, boolean hasOffset) {
+        long[] values = {-1, -1, -1};
+        int end = offset + length;
+        while (offset + 4 <= end) {
+            int id = u16(offset);
+            int size = u16(offset + 2);
+            if (id == ZIP64_EXTRA_ID) {
+                int field = offset + 4;
+                if (hasSize) { values[0] = data.getLong(field); field += 8; }
+                if (hasCompressedSize) { values[1] = data.getLong(field); field += 8; }
+                if (hasOffset) { values[2] = data.getLong(field); }
+                break;
+            }
+            offset += 4 + size;
+        }
+        return values;
+    }
+    
+    private int u16(int position) {
+        return data.getShort(position) & 0xFFFF;
+    }
+    
+    private long u32(int position) {
+        return data.getInt(position) & 0xFFFFFFFFL;
+    }
+}
@@ -0,0 +1,271 @@
+package cz.ememsoft.dbdrift.model;
+
+import lombok.NonNull;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Nemenná stĺpcová forma schémy pre veľké databázy: zoradené pole tabuliek a jediné pole stĺpcov,
+ * v ktorom sú stĺpce každej tabuľky uložené za sebou a zoradené; {@code columnOffsets[i]} až
+ * {@code columnOffsets[i + 1]} ohraničujú stĺpce tabuľky {@code i}. Tabuľky aj stĺpce sa hľadajú
+ * binárne. Pri internovaných názvoch z {@link SymbolTable} stojí jeden stĺpec iba jeden odkaz v poli.
+ */
+public final class CompactSchema {
+    private final TableName[] tables;
+    private final int[] columnOffsets;
+    private final ColumnName[] columns;
+    private final TableMap view = new TableMap();
+    
+    private CompactSchema(TableName[] tables, int[] columnOffsets, ColumnName[] columns) {
+        this.tables = tables;
+        this.columnOffsets = columnOffsets;
+        this.columns = columns;
+    }
+    
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    public int tableCount() {
+        return tables.length;
+    }
+    
+    public int columnCount() {
+        return columns.length;
+    }
+    
+    public TableName table(int tableIndex) {
+        return tables[tableIndex];
+    }
+    
+    /**
+     * Index tabuľky, alebo záporné číslo, ak v schéme nie je.
+     */
+    public int indexOf(@NonNull TableName table) {
+        return Arrays.binarySearch(tables, table);
+    }
+    
+    public boolean containsColumn(@NonNull TableName table, @NonNull ColumnName column) {
+        int tableIndex = indexOf(table);
+        return tableIndex >= 0 && columnIndex(tableIndex, column) >= 0;
+    }
+    
+    /**
+     * Zoradené stĺpce tabuľky ako nemenná množina nad poľom stĺpcov.
+     */
+    public Set<ColumnName> columns(int tableIndex) {
+        return new ColumnSet(tableIndex);
+    }
+    
+    /**
+     * Nemenný pohľad v tvare {@link DatabaseSchema#tables()}, zoradený podľa názvu tabuľky.
+     */
+    public Map<TableName, Set<ColumnName>> asMap() {
+        return view;
+    }
+    
+    /**
+     * Či je mapa pohľadom {@link #asMap()}; jej tabuľky a stĺpce sa potom dajú čítať zoradené bez kopírovania.
+     */
+    public static boolean isView(Map<TableName, Set<ColumnName>> tables) {
+        return tables instanceof TableMap;
+    }
+    
+    private int columnIndex(int tableIndex, ColumnName column) {
+        return Arrays.binarySearch(columns, columnOffsets[tableIndex], columnOffsets[tableIndex + 1], column);
+    }
+    
+    private final class TableMap extends AbstractMap<TableName, Set<ColumnName>> {
+        private final Set<Entry<TableName, Set<ColumnName>>> entries = new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<TableName, Set<ColumnName>>> iterator() {
+                return new IndexIterator<>(tables.length) {
+                    @Override
+                    Entry<TableName, Set<ColumnName>> element(int index) {
+                        return new SimpleImmutableEntry<>(tables[index], columns(index));
+                    }
+                };
+            }
+            
+            @Override
+            public int size() {
+                return tables.length;
+            }
+        };
+        
+        CompactSchema schema() {
+            return CompactSchema.this;
+        }
+        
+        @Override
+        public Set<Entry<TableName, Set<ColumnName>>> entrySet() {
+            return entries;
+        }
+        
+        @Override
+        public int size() {
+            return tables.length;
+        }
+        
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof TableName table && indexOf(table) >= 0;
+        }
+        
+        @Override
+        public Set<ColumnName> get(Object key) {
+            int tableIndex = key instanceof TableName table ? indexOf(table) : -1;
+            return tableIndex >= 0 ? columns(tableIndex) : null;
+        }
+    }
+    
+    private final class ColumnSet extends AbstractSet<ColumnName> {
+        private final int tableIndex;
+        
+        private ColumnSet(int tableIndex) {
+            this.tableIndex = tableIndex;
+        }
+        
+        @Override
+        public Iterator<ColumnName> iterator() {
+            int offset = columnOffsets[tableIndex];
+            return new IndexIterator<>(size()) {
+                @Override
+                ColumnName element(int index) {
+                    return columns[offset + index];
+                }
+            };
+        }
+        
+        @Override
+        public int size() {
+            return columnOffsets[tableIndex + 1] - columnOffsets[tableIndex];
+        }
+        
+        @Override
+        public boolean contains(Object value) {
+            return value instanceof ColumnName column && columnIndex(tableIndex, column) >= 0;
+        }
+    }
+    
+    private abstract static class IndexIterator<T> implements Iterator<T> {
+        private final int size;
+        private int next;
+        
+        IndexIterator(int size) {
+            this.size = size;
+        }
+        
+        abstract T element(int index);
+        
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+        
+        @Override
+        public T next() {
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+            return element(next++);
+        }
+    }
+    
+    /**
+     * Vráti kompaktnú formu mapy tabuliek; pohľad vrátený {@link #asMap()} sa neprevádza znovu.
+     */
+    static CompactSchema of(@NonNull Map<TableName, Set<ColumnName>> tables) {
+        if (tables instanceof TableMap view) {
+            return view.schema();
+        }
+        Builder builder = builder();
+        tables.forEach(builder::addTable);
+        return builder.build();
+    }
+    
+    /**
+     * Zbiera dvojice tabuľka a stĺpec v ľubovoľnom poradí. Extraktory pridávajú riadky zoradené podľa
+     * tabuľky a stĺpca, vtedy sa pri zostavení nič netriedi. Opakované dvojice sa uložia raz.
+     */
+    public static final class Builder {
+        private TableName[] rowTables = new TableName[256];
+        private ColumnName[] rowColumns = new ColumnName[256];
+        private int size;
+        private boolean sorted = true;
+        
+        private Builder() {
+        }
+        
+        public Builder add(@NonNull TableName table, @NonNull ColumnName column) {
+            if (size == rowTables.length) {
+                rowTables = Arrays.copyOf(rowTables, size * 2);
+                rowColumns = Arrays.copyOf(rowColumns, size * 2);
+            }
+            if (sorted && size > 0) {
+                int order = rowTables[size - 1].compareTo(table);
+                sorted = order < 0 || order == 0 && rowColumns[size - 1].compareTo(column) <= 0;
+            }
+            rowTables[size] = table;
+            rowColumns[size] = column;
+            size++;
+            return this;
+        }
+        
+        public Builder addTable(@NonNull TableName table, @NonNull Collection<ColumnName> columns) {
+            columns.forEach(column -> add(table, column));
+            return this;
+        }
+        
+        /**
+         * Počet doteraz pridaných dvojíc vrátane opakovaných.
+         */
+        public int size() {
+            return size;
+        }
+        
+        public CompactSchema build() {
+            TableName[] sortedTables = rowTables;
+            ColumnName[] sortedColumns = rowColumns;
+            if (!sorted) {
+                Integer[] order = new Integer[size];
+                Arrays.setAll(order, i -> i);
+                Arrays.sort(order, Comparator.<Integer, TableName>comparing(i -> rowTables[i])
+                    .thenComparing(i -> rowColumns[i]));
+                sortedTables = new TableName[size];
+                sortedColumns = new ColumnName[size];
+                for (int i = 0; i < size; i++) {
+                    sortedTables[i] = rowTables[order[i]];
+                    sortedColumns[i] = rowColumns[order[i]];
+                }
+            }
+            
+            TableName[] tables = new TableName[size];
+            int[] offsets = new int[size + 1];
+            ColumnName[] columns = new ColumnName[size];
+            int tableCount = 0;
+            int columnCount = 0;
+            for (int i = 0; i < size; i++) {
+                boolean newTable = tableCount == 0 || !tables[tableCount - 1].equals(sortedTables[i]);
+                if (newTable) {
+                    offsets[tableCount] = columnCount;
+                    tables[tableCount++] = sortedTables[i];
+                } else if (columns[columnCount - 1].equals(sortedColumns[i])) {
+                    continue;
+                }
+                columns[columnCount++] = sortedColumns[i];
+            }
+            offsets[tableCount] = columnCount;
+            return new CompactSchema(Arrays.copyOf(tables, tableCount), Arrays.copyOf(offsets, tableCount + 1),
+                Arrays.copyOf(columns, columnCount));
+        }
+    }
+}
@@ -1,10 +1,64 @@
 package cz.ememsoft.dbdrift.model;
 
 import lombok.NonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.Map;
 import java.util.Set;
 
 /**
- * Reprezentuje schému databázy s tabuľkami a ich stĺpcami.
+ * Reprezentuje schému databázy s tabuľkami a ich stĺpcami. Extraktory ju vytvárajú nad
+ * {@link CompactSchema}, ktorej pohľad sú potom {@link #tables()}.
  */
-public record DatabaseSchema(@NonNull Map<TableName, Set<ColumnName>> tables) {}
\ No newline at end of file
+public record DatabaseSchema(@NonNull Map<TableName, Set<ColumnName>> tables) {
+    
+    public static DatabaseSchema of(@NonNull CompactSchema schema) {
+        return new DatabaseSchema(schema.asMap());
+    }
+    
+    /**
+     * Kompaktná forma schémy; pre schému vytvorenú z {@link CompactSchema} bez kopírovania.
+     */
+    public CompactSchema compact() {
+        return CompactSchema.of(tables);
+    }
+    
+    /**
+     * Kanonický štrukturálny odtlačok schémy (SHA-256 v hexadecimálnom tvare) nad zoradenými tabuľkami
+     * a stĺpcami. Nezávisí od vlastníka schémy ani od poradia, v akom extraktor riadky načítal, takže
+     * štrukturálne rovnaké schémy rôznych tenantov majú rovnaký odtlačok.
+     */
+    public String structuralHash() {
+        CompactSchema schema = compact();
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 nie je k dispozícii", e);
+        }
+        updateInt(digest, schema.tableCount());
+        for (int table = 0; table < schema.tableCount(); table++) {
+            updateName(digest, schema.table(table).value());
+            Set<ColumnName> columns = schema.columns(table);
+            updateInt(digest, columns.size());
+            for (ColumnName column : columns) {
+                updateName(digest, column.value());
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+    
+    private static void updateName(MessageDigest digest, String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        updateInt(digest, bytes.length);
+        digest.update(bytes);
+    }
+    
+    private static void updateInt(MessageDigest digest, int value) {
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(value).array());
+    }
+}
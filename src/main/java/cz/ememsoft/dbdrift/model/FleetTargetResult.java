@@ -0,0 +1,20 @@
+package cz.ememsoft.dbdrift.model;
+
+import lombok.NonNull;
+
+/**
+ * Výsledok porovnania jedného cieľa vo flotilovom režime.
+ *
+ * @param target        názov cieľa
+ * @param status        výsledok porovnania
+ * @param structure     štrukturálny odtlačok schémy cieľa ({@link DatabaseSchema#structuralHash()});
+ *                      {@code null}, ak sa schému nepodarilo načítať
+ * @param drift         nájdený drift; {@code null}, ak porovnanie neskončilo
+ * @param error         popis chyby; {@code null}, ak porovnanie skončilo
+ * @param elapsedMillis trvanie porovnania cieľa v milisekundách
+ */
+public record FleetTargetResult(@NonNull String target, @NonNull Status status, String structure, SchemaDrift drift,
+                                String error, long elapsedMillis) {
+    
+    public enum Status { NO_DRIFT, DRIFT, FAILED, TIMED_OUT }
+}
@@ -0,0 +1,68 @@
+package cz.ememsoft.dbdrift.model;
+
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Schéma vyjadrená id z {@link SymbolTable}: tabuľky aj stĺpce každej tabuľky sú zoradené polia id,
+ * takže porovnanie dvoch schém je zlúčenie celočíselných polí. Názvy sú normalizované na veľké písmená;
+ * z tabuliek líšiacich sa iba veľkosťou písmen platí posledná, ako v generovanom YAML.
+ *
+ * @param symbols  tabuľka, z ktorej pochádzajú id
+ * @param tableIds zoradené id tabuliek
+ * @param columnIds zoradené id stĺpcov tabuľky na rovnakom indexe
+ */
+public record InternedSchema(@NonNull SymbolTable symbols, @NonNull int[] tableIds, @NonNull int[][] columnIds) {
+    
+    public static InternedSchema of(@NonNull SymbolTable symbols, @NonNull Map<TableName, Set<ColumnName>> tables) {
+        long[] tableOrder = new long[tables.size()];
+        int[][] tableColumns = new int[tables.size()][];
+        int index = 0;
+        for (Map.Entry<TableName, Set<ColumnName>> entry : tables.entrySet()) {
+            int[] columns = new int[entry.getValue().size()];
+            int count = 0;
+            for (ColumnName column : entry.getValue()) {
+                columns[count++] = symbols.id(column.value().toUpperCase());
+            }
+            tableColumns[index] = distinctSorted(columns);
+            // Id tabuľky v horných 32 bitoch, poradie v schéme v dolných, aby rovnaké tabuľky zostali v poradí schémy
+            tableOrder[index] = (long) symbols.id(entry.getKey().value().toUpperCase()) << 32 | index;
+            index++;
+        }
+        Arrays.sort(tableOrder);
+        
+        int[] tableIds = new int[tableOrder.length];
+        int[][] columnIds = new int[tableOrder.length][];
+        int unique = 0;
+        for (long order : tableOrder) {
+            int tableId = (int) (order >>> 32);
+            if (unique == 0 || tableIds[unique - 1] != tableId) {
+                unique++;
+            }
+            tableIds[unique - 1] = tableId;
+            columnIds[unique - 1] = tableColumns[(int) order];
+        }
+        return new InternedSchema(symbols, Arrays.copyOf(tableIds, unique), Arrays.copyOf(columnIds, unique));
+    }
+    
+    /**
+     * Index tabuľky s daným id, alebo záporné číslo, ak v schéme nie je.
+     */
+    public int indexOf(int tableId) {
+        return Arrays.binarySearch(tableIds, tableId);
+    }
+    
+    private static int[] distinctSorted(int[] ids) {
+        Arrays.sort(ids);
+        int unique = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (unique == 0 || ids[unique - 1] != ids[i]) {
+                ids[unique++] = ids[i];
+            }
+        }
+        return unique == ids.length ? ids : Arrays.copyOf(ids, unique);
+    }
+}
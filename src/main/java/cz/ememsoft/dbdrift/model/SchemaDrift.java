@@ -0,0 +1,30 @@
+package cz.ememsoft.dbdrift.model;
+
+import lombok.NonNull;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Výsledok porovnania JPA schémy so schémou databázy. Názvy tabuliek a stĺpcov sú normalizované
+ * na veľké písmená a zoradené.
+ *
+ * @param missingTables tabuľky namapované v JPA entitách, ktoré v databáze chýbajú
+ * @param extraTables   tabuľky v databáze, ku ktorým neexistuje JPA entita
+ * @param changedTables tabuľky existujúce na oboch stranách, ktorých stĺpce sa líšia
+ */
+public record SchemaDrift(@NonNull List<TableName> missingTables,
+                          @NonNull List<TableName> extraTables,
+                          @NonNull Map<TableName, TableDrift> changedTables) {
+    
+    /**
+     * Rozdiel v stĺpcoch jednej tabuľky.
+     *
+     * @param missingColumns stĺpce namapované v JPA, ktoré v databázovej tabuľke chýbajú
+     * @param extraColumns   stĺpce databázovej tabuľky bez JPA mapovania
+     */
+    public record TableDrift(@NonNull List<ColumnName> missingColumns, @NonNull List<ColumnName> extraColumns) {}
+    
+    public boolean hasDrift() {
+        return !missingTables.isEmpty() || !extraTables.isEmpty() || !changedTables.isEmpty();
+    }
+}
@@ -0,0 +1,87 @@
+package cz.ememsoft.dbdrift.model;
+
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tabuľka internovaných názvov tabuliek a stĺpcov. Každý rôzny názov dostane husté celočíselné id
+ * a jedinú inštanciu reťazca, {@link TableName} a {@link ColumnName}, takže opakované názvy stĺpcov
+ * ako {@code ID} alebo {@code VERSION} existujú v pamäti iba raz a množiny názvov sa dajú porovnávať
+ * ako zoradené polia id. Bezpečná pre súbežné použitie.
+ */
+public final class SymbolTable {
+    private static final int INITIAL_CAPACITY = 1024;
+    
+    private record Symbol(int id, String name, TableName tableName, ColumnName columnName) {}
+    
+    private final ConcurrentHashMap<String, Symbol> symbolsByName = new ConcurrentHashMap<>();
+    private volatile Symbol[] symbolsById = new Symbol[INITIAL_CAPACITY];
+    private int size;
+    
+    /**
+     * Vráti id názvu; nový názov dostane ďalšie voľné id.
+     */
+    public int id(@NonNull String name) {
+        return symbol(name).id();
+    }
+    
+    public TableName tableName(@NonNull String name) {
+        return symbol(name).tableName();
+    }
+    
+    public ColumnName columnName(@NonNull String name) {
+        return symbol(name).columnName();
+    }
+    
+    public String name(int id) {
+        return symbolById(id).name();
+    }
+    
+    public TableName tableName(int id) {
+        return symbolById(id).tableName();
+    }
+    
+    public ColumnName columnName(int id) {
+        return symbolById(id).columnName();
+    }
+    
+    /**
+     * Počet doteraz internovaných názvov; id sú z rozsahu 0 až {@code size() - 1}.
+     */
+    public synchronized int size() {
+        return size;
+    }
+    
+    private Symbol symbol(String name) {
+        Symbol symbol = symbolsByName.get(name);
+        return symbol != null ? symbol : addSymbol(name);
+    }
+    
+    private synchronized Symbol addSymbol(String name) {
+        Symbol symbol = symbolsByName.get(name);
+        if (symbol != null) {
+            return symbol;
+        }
+        Symbol[] symbols = symbolsById;
+        if (size == symbols.length) {
+            symbols = Arrays.copyOf(symbols, size * 2);
+        }
+        symbol = new Symbol(size, name, new TableName(name), new ColumnName(name));
+        symbols[size++] = symbol;
+        symbolsById = symbols;
+        // Id sa zverejní až po zápise do poľa, takže name(id) ho vždy nájde
+        symbolsByName.put(name, symbol);
+        return symbol;
+    }
+    
+    private Symbol symbolById(int id) {
+        Symbol[] symbols = symbolsById;
+        Symbol symbol = id >= 0 && id < symbols.length ? symbols[id] : null;
+        if (symbol == null) {
+            throw new IllegalArgumentException("Neznáme id názvu: " + id);
+        }
+        return symbol;
+    }
+}
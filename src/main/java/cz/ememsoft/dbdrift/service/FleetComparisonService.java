@@ -0,0 +1,227 @@
+package cz.ememsoft.dbdrift.service;
+
+import cz.ememsoft.dbdrift.generator.YamlSchemaGenerator;
+import cz.ememsoft.dbdrift.model.ColumnName;
+import cz.ememsoft.dbdrift.model.DatabaseSchema;
+import cz.ememsoft.dbdrift.model.FleetTargetResult;
+import cz.ememsoft.dbdrift.model.SchemaDrift;
+import cz.ememsoft.dbdrift.model.TableName;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Compares one JPA model with many databases in one process. The JPA side is analysed once; the targets
+ * run concurrently on virtual threads, at most {@code parallelism} at a time, each with its own timeout.
+ * Every target gets a result, whether it succeeded, failed or timed out.
+ * <p>
+ * Targets are grouped by the structural hash of their database schema. The drift comparison and its output
+ * run once per distinct structure, so tenants sharing one schema layout cost one extraction each but only
+ * one comparison in total.
+ */
+@Slf4j
+public class FleetComparisonService {
+    
+    /**
+     * One database schema to compare.
+     *
+     * @param name        unique target name, also the name of its output directory
+     * @param connections opens connections to the target database
+     * @param schemaName  owner of the tables to compare
+     */
+    public record Target(@NonNull String name, @NonNull Supplier<Connection> connections, @NonNull String schemaName) {}
+    
+    private static final String SUMMARY_FILE = "fleet-summary.yaml";
+    private static final String STRUCTURES_DIRECTORY = "structures";
+    // Enough of the hash to keep directory names unique in any realistic fleet
+    private static final int STRUCTURE_DIRECTORY_LENGTH = 16;
+    private static final Duration CANCELLATION_GRACE_PERIOD = Duration.ofSeconds(5);
+    
+    private final SchemaComparisonService comparisonService;
+    private final YamlSchemaGenerator yamlGenerator = new YamlSchemaGenerator();
+    private final int parallelism;
+    private final Duration targetTimeout;
+    
+    public FleetComparisonService(SchemaComparisonService comparisonService, int parallelism, Duration targetTimeout) {
+        this.comparisonService = comparisonService;
+        this.parallelism = Math.max(1, parallelism);
+        this.targetTimeout = targetTimeout;
+    }
+    
+    /**
+     * Writes the JPA schema YAML to {@code outputDirectory} and the database schema and drift YAML of each
+     * distinct structure to {@code outputDirectory/structures/<hash prefix>}. Results are returned in
+     * target order.
+     */
+    public List<FleetTargetResult> compareAll(String classpath, String packageName, List<Target> targets,
+                                              Path outputDirectory) throws Exception {
+        long start = System.nanoTime();
+        Map<TableName, Set<ColumnName>> jpaSchema = comparisonService.buildJpaSchema(classpath, packageName);
+        comparisonService.writeJpaSchemaYaml(jpaSchema, outputDirectory);
+        log.info("Comparing {} JPA tables with {} targets, {} at a time", jpaSchema.size(), targets.size(), parallelism);
+        
+        Semaphore permits = new Semaphore(parallelism);
+        Map<String, CompletableFuture<SchemaDrift>> structures = new ConcurrentHashMap<>();
+        List<FleetTargetResult> results = new ArrayList<>();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<Future<FleetTargetResult>> futures = new ArrayList<>();
+            for (Target target : targets) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return compareTarget(executor, jpaSchema, target, structures, outputDirectory);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (Future<FleetTargetResult> future : futures) {
+                results.add(future.get());
+            }
+        } finally {
+            // Does not wait for timed-out targets that ignore the interrupt
+            executor.shutdownNow();
+        }
+        yamlGenerator.generateFleetSummaryYaml(results, outputDirectory.resolve(SUMMARY_FILE).toString());
+        
+        log.info("{} targets share {} distinct schema structures", results.stream()
+            .filter(result -> result.structure() != null).count(), structures.size());
+        long drifted = results.stream().filter(result -> result.status() == FleetTargetResult.Status.DRIFT).count();
+        long failed = results.stream().filter(result -> result.status() == FleetTargetResult.Status.FAILED
+            || result.status() == FleetTargetResult.Status.TIMED_OUT).count();
+        log.info("Compared {} targets in {} ms: {} without drift, {} with drift, {} failed", results.size(),
+            (System.nanoTime() - start) / 1_000_000, results.size() - drifted - failed, drifted, failed);
+        return results;
+    }
+    
+    /**
+     * Runs one target on its own virtual thread, so the timeout covers only the target itself and not the
+     * time spent waiting for a permit. A timed-out target is interrupted and its running queries are cancelled,
+     * since a thread blocked in a JDBC read ignores interrupts; its permit is kept until it has returned its
+     * connections, so a hung target does not let more extractions than {@code parallelism} run on a host.
+     */
+    private FleetTargetResult compareTarget(ExecutorService executor, Map<TableName, Set<ColumnName>> jpaSchema,
+                                            Target target, Map<String, CompletableFuture<SchemaDrift>> structures,
+                                            Path outputDirectory) throws InterruptedException {
+        long start = System.nanoTime();
+        AtomicReference<String> structure = new AtomicReference<>();
+        RunningStatements statements = new RunningStatements();
+        CountDownLatch finished = new CountDownLatch(1);
+        Future<SchemaDrift> comparison = executor.submit(() -> {
+            try {
+                DatabaseSchema dbSchema = comparisonService.extractDatabaseSchema(statements.track(target.connections()),
+                    target.schemaName());
+                String hash = dbSchema.structuralHash();
+                structure.set(hash);
+                return compareStructure(jpaSchema, dbSchema, hash, structures, outputDirectory);
+            } finally {
+                finished.countDown();
+            }
+        });
+        FleetTargetResult result;
+        try {
+            SchemaDrift drift = comparison.get(targetTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            result = new FleetTargetResult(target.name(), drift.hasDrift() ? FleetTargetResult.Status.DRIFT
+                : FleetTargetResult.Status.NO_DRIFT, structure.get(), drift, null, elapsedMillis(start));
+        } catch (TimeoutException e) {
+            cancel(target, comparison, statements, finished);
+            result = new FleetTargetResult(target.name(), FleetTargetResult.Status.TIMED_OUT, structure.get(), null,
+                "Timed out after " + targetTimeout.toSeconds() + " s", elapsedMillis(start));
+        } catch (ExecutionException e) {
+            log.debug("Target '{}' failed", target.name(), e.getCause());
+            result = new FleetTargetResult(target.name(), FleetTargetResult.Status.FAILED, structure.get(), null,
+                String.valueOf(e.getCause()), elapsedMillis(start));
+        } catch (InterruptedException e) {
+            comparison.cancel(true);
+            statements.cancelAll();
+            throw e;
+        }
+        
+        if (result.drift() != null && result.drift().hasDrift()) {
+            log.warn("Target '{}': {} missing tables, {} extra tables, {} tables with different columns ({} ms)",
+                target.name(), result.drift().missingTables().size(), result.drift().extraTables().size(),
+                result.drift().changedTables().size(), result.elapsedMillis());
+        } else if (result.error() != null) {
+            log.error("Target '{}' {}: {}", target.name(), result.status(), result.error());
+        } else {
+            log.info("Target '{}': no drift ({} ms)", target.name(), result.elapsedMillis());
+        }
+        return result;
+    }
+    
+    /**
+     * Interrupts a timed-out target, cancels its queries and waits briefly until it has released its connections.
+     */
+    private static void cancel(Target target, Future<SchemaDrift> comparison, RunningStatements statements,
+                               CountDownLatch finished) throws InterruptedException {
+        comparison.cancel(true);
+        statements.cancelAll();
+        if (!finished.await(CANCELLATION_GRACE_PERIOD.toMillis(), TimeUnit.MILLISECONDS)) {
+            log.warn("Timed-out target '{}' is still running after {} s", target.name(), CANCELLATION_GRACE_PERIOD.toSeconds());
+        }
+    }
+    
+    /**
+     * Compares and writes the output of a structure the first time it is seen; later targets with the same
+     * structure wait for that comparison and share its drift. A failed comparison is not shared: it is
+     * removed, and the waiting and later targets compare the structure again.
+     */
+    private SchemaDrift compareStructure(Map<TableName, Set<ColumnName>> jpaSchema, DatabaseSchema dbSchema,
+                                         String hash, Map<String, CompletableFuture<SchemaDrift>> structures,
+                                         Path outputDirectory) throws Exception {
+        while (true) {
+            CompletableFuture<SchemaDrift> comparison = new CompletableFuture<>();
+            CompletableFuture<SchemaDrift> existing = structures.putIfAbsent(hash, comparison);
+            if (existing != null) {
+                try {
+                    return existing.get();
+                } catch (ExecutionException e) {
+                    log.debug("Comparison of structure {} failed in another target, comparing it again", hash, e.getCause());
+                    continue;
+                }
+            }
+            try {
+                SchemaDrift drift = comparisonService.writeDatabaseComparison(jpaSchema, dbSchema,
+                    structureDirectory(outputDirectory, hash));
+                comparison.complete(drift);
+                return drift;
+            } catch (Throwable e) {
+                // Removed before completing, so a released waiter cannot find the failed comparison again
+                structures.remove(hash, comparison);
+                comparison.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+    
+    /**
+     * Output directory of one distinct database schema structure.
+     */
+    public static Path structureDirectory(Path outputDirectory, String hash) {
+        return outputDirectory.resolve(STRUCTURES_DIRECTORY).resolve(hash.substring(0, STRUCTURE_DIRECTORY_LENGTH));
+    }
+    
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
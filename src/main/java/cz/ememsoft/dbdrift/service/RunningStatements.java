@@ -0,0 +1,89 @@
+package cz.ememsoft.dbdrift.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Keeps track of the statements open on wrapped connections so they can be cancelled from another thread.
+ * A thread blocked in a JDBC read does not react to interrupts; {@link Statement#cancel()} makes the
+ * driver abort the query on the server and the blocked call fail.
+ */
+@Slf4j
+final class RunningStatements {
+    
+    private final Set<Statement> statements = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+    private volatile boolean cancelled;
+    
+    Supplier<Connection> track(Supplier<Connection> connections) {
+        return () -> track(connections.get());
+    }
+    
+    Connection track(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+            (proxy, method, args) -> {
+                Object result = invoke(connection, method, args);
+                if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                    return register(statement, method.getReturnType());
+                }
+                return result;
+            });
+    }
+    
+    /**
+     * Cancels every open statement; statements created afterwards fail immediately.
+     */
+    void cancelAll() {
+        cancelled = true;
+        List<Statement> running;
+        synchronized (statements) {
+            running = List.copyOf(statements);
+        }
+        // Outside the lock, a driver may block in cancel() until the server acknowledges it
+        running.forEach(RunningStatements::cancel);
+    }
+    
+    private Object register(Statement statement, Class<?> statementType) throws SQLException {
+        // Added before the check, so a concurrent cancelAll() either sees the statement or is seen here
+        statements.add(statement);
+        if (cancelled) {
+            statements.remove(statement);
+            statement.close();
+            throw new SQLException("The statement was cancelled before it ran");
+        }
+        return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {statementType},
+            (proxy, method, args) -> {
+                if (method.getName().equals("close") && method.getParameterCount() == 0) {
+                    statements.remove(statement);
+                }
+                return invoke(statement, method, args);
+            });
+    }
+    
+    private static void cancel(Statement statement) {
+        try {
+            statement.cancel();
+        } catch (SQLException | RuntimeException e) {
+            // Already closed or finished; nothing left to cancel
+            log.debug("Could not cancel statement: {}", e.getMessage());
+        }
+    }
+    
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
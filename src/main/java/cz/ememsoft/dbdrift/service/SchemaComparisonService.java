@@ -1,80 +1,412 @@
 package cz.ememsoft.dbdrift.service;
 
+import cz.ememsoft.dbdrift.config.ComparisonOptions;
+import cz.ememsoft.dbdrift.db.MetadataExtractor;
+import cz.ememsoft.dbdrift.db.MetadataExtractors;
 import cz.ememsoft.dbdrift.db.OracleMetadataExtractor;
+import cz.ememsoft.dbdrift.db.SchemaSnapshotFile;
+import cz.ememsoft.dbdrift.db.SchemaSnapshotStore;
+import cz.ememsoft.dbdrift.exception.ApplicationExceptions;
 import cz.ememsoft.dbdrift.generator.YamlSchemaGenerator;
 import cz.ememsoft.dbdrift.jpa.EntityDiscovery;
+import cz.ememsoft.dbdrift.jpa.EntityIndexCache;
 import cz.ememsoft.dbdrift.jpa.JpaEntityAnalyzer;
 import cz.ememsoft.dbdrift.model.ColumnName;
 import cz.ememsoft.dbdrift.model.DatabaseSchema;
+import cz.ememsoft.dbdrift.model.SchemaDrift;
+import cz.ememsoft.dbdrift.model.SymbolTable;
 import cz.ememsoft.dbdrift.model.TableName;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @Slf4j
 public class SchemaComparisonService {
     
+    private static final String JPA_SCHEMA_FILE = "jpa-schema.yaml";
+    private static final String DATABASE_SCHEMA_FILE = "database-schema.yaml";
+    private static final String DRIFT_FILE = "drift.yaml";
+    // More buckets than connections keep all connections busy when bucket sizes differ
+    private static final int BUCKETS_PER_CONNECTION = 4;
+    private static final Duration CANCELLATION_GRACE_PERIOD = Duration.ofSeconds(5);
+    
     private final EntityDiscovery entityDiscovery;
     private final JpaEntityAnalyzer entityAnalyzer;
-    private final OracleMetadataExtractor metadataExtractor;
+    private final MetadataExtractor metadataExtractor;
+    // Fingerprints, DDL times and hash buckets are Oracle-only; null for other databases
+    private final OracleMetadataExtractor oracleExtractor;
     private final YamlSchemaGenerator yamlGenerator;
+    private final EntityIndexCache entityIndexCache;
+    private final int analysisThreads;
+    private final SchemaDriftDetector driftDetector;
+    private final Path driftFile;
+    private final int extractionConnections;
+    private final SchemaSnapshotStore snapshotStore;
+    private final boolean incrementalExtraction;
     
     public SchemaComparisonService() {
+        this(ComparisonOptions.defaults());
+    }
+    
+    public SchemaComparisonService(ComparisonOptions options) {
+        // Both schemas share one symbol table, so equal names are single instances and compare as equal ids
+        SymbolTable symbols = new SymbolTable();
         this.entityDiscovery = new EntityDiscovery();
-        this.entityAnalyzer = new JpaEntityAnalyzer();
-        this.metadataExtractor = new OracleMetadataExtractor();
+        this.entityAnalyzer = new JpaEntityAnalyzer(symbols);
+        String databaseType = options.databaseType() != null ? options.databaseType() : ComparisonOptions.DEFAULT_DATABASE_TYPE;
+        this.metadataExtractor = MetadataExtractors.create(databaseType, options.fetchSize(), symbols);
+        this.oracleExtractor = metadataExtractor instanceof OracleMetadataExtractor oracle ? oracle : null;
+        if (oracleExtractor == null && (options.snapshotDirectory() != null || options.extractionConnections() > 1)) {
+            throw new IllegalArgumentException("Snapshots and parallel extraction are only supported for Oracle, not for " + databaseType);
+        }
         this.yamlGenerator = new YamlSchemaGenerator();
+        this.entityIndexCache = options.cacheDirectory() != null || options.daemon()
+            ? new EntityIndexCache(options.cacheDirectory(), symbols) : null;
+        this.analysisThreads = Math.max(1, options.analysisThreads());
+        this.driftDetector = new SchemaDriftDetector(symbols);
+        this.driftFile = options.driftFile();
+        this.extractionConnections = Math.max(1, options.extractionConnections());
+        this.snapshotStore = options.snapshotDirectory() != null ? new SchemaSnapshotStore(options.snapshotDirectory(), symbols) : null;
+        this.incrementalExtraction = options.incrementalExtraction();
     }
     
-    public void generateSchemaYamls(String classpath, String packageName, Connection dbConnection, String schemaName) throws Exception {
-        log.info("Starting schema YAML generation...");
+    /**
+     * Like {@link #generateSchemaYamls(String, String, Connection, String)}, but opens its own database
+     * connections, several of them when parallel extraction is configured.
+     */
+    public SchemaDrift generateSchemaYamls(String classpath, String packageName, Supplier<Connection> connections, String schemaName) throws Exception {
+        if (extractionConnections <= 1) {
+            try (Connection connection = connections.get()) {
+                return generateSchemaYamls(classpath, packageName, connection, schemaName);
+            }
+        }
+        return generateSchemaYamls(classpath, packageName,
+            statements -> extractDatabaseSchema(statements.track(connections), schemaName));
+    }
+    
+    /**
+     * Runs the CPU-bound JPA half and the network-bound database half concurrently; each YAML file is
+     * written as soon as its schema is ready. When one half fails the first failure is rethrown at once:
+     * the other half is interrupted and its running database queries are cancelled, since a thread blocked
+     * in a JDBC read ignores interrupts. Both schemas are then compared and the drift is returned.
+     */
+    public SchemaDrift generateSchemaYamls(String classpath, String packageName, Connection dbConnection, String schemaName) throws Exception {
+        return generateSchemaYamls(classpath, packageName,
+            statements -> extractDatabaseSchema(statements.track(dbConnection), schemaName));
+    }
+    
+    /**
+     * Compares an already built JPA schema with an extracted database schema and writes the database schema
+     * YAML and the drift YAML into {@code outputDirectory}. Safe to call concurrently for different directories.
+     */
+    public SchemaDrift writeDatabaseComparison(Map<TableName, Set<ColumnName>> jpaSchema, DatabaseSchema dbSchema,
+                                               Path outputDirectory) throws IOException {
+        Files.createDirectories(outputDirectory);
+        yamlGenerator.generateDatabaseSchemaYaml(dbSchema, outputDirectory.resolve(DATABASE_SCHEMA_FILE).toString());
+        SchemaDrift drift = driftDetector.compare(jpaSchema, dbSchema.tables());
+        yamlGenerator.generateDriftYaml(drift, outputDirectory.resolve(DRIFT_FILE).toString());
+        return drift;
+    }
+    
+    public void writeJpaSchemaYaml(Map<TableName, Set<ColumnName>> jpaSchema, Path outputDirectory) throws IOException {
+        Files.createDirectories(outputDirectory);
+        yamlGenerator.generateJpaSchemaYaml(jpaSchema, outputDirectory.resolve(JPA_SCHEMA_FILE).toString());
+    }
+    
+    public void writeDatabaseSchemaYaml(DatabaseSchema dbSchema, Path outputDirectory) throws IOException {
+        Files.createDirectories(outputDirectory);
+        yamlGenerator.generateDatabaseSchemaYaml(dbSchema, outputDirectory.resolve(DATABASE_SCHEMA_FILE).toString());
+    }
+    
+    /**
+     * Builds the JPA schema, writes its YAML and compares it with a database schema extracted earlier.
+     * Watch mode calls this after every rebuild; with the entity index only changed entities are analysed.
+     */
+    public SchemaDrift compareWithDatabaseSchema(String classpath, String packageName, DatabaseSchema dbSchema) throws Exception {
+        Map<TableName, Set<ColumnName>> jpaSchema = buildJpaSchema(classpath, packageName);
+        yamlGenerator.generateJpaSchemaYaml(jpaSchema, JPA_SCHEMA_FILE);
+        SchemaDrift drift = driftDetector.compare(jpaSchema, dbSchema.tables());
+        logDrift(drift);
+        if (driftFile != null) {
+            yamlGenerator.generateDriftYaml(drift, driftFile.toString());
+        }
+        return drift;
+    }
+    
+    /**
+     * Extracts one database schema with the configured connections and snapshot store.
+     */
+    public DatabaseSchema extractDatabaseSchema(Supplier<Connection> connections, String schemaName) {
+        if (extractionConnections <= 1) {
+            try (Connection connection = connections.get()) {
+                return extractDatabaseSchema(connection, schemaName);
+            } catch (SQLException e) {
+                throw new ApplicationExceptions.DatabaseConnectionException("Could not close the database connection", e);
+            }
+        }
+        Supplier<DatabaseSchema> parallelExtraction = () -> oracleExtractor.extractDatabaseSchema(
+            connections, schemaName, extractionConnections, extractionConnections * BUCKETS_PER_CONNECTION);
+        if (snapshotStore == null) {
+            return parallelExtraction.get();
+        }
+        try (Connection connection = connections.get()) {
+            return extractUnlessUnchanged(connection, schemaName, parallelExtraction);
+        } catch (SQLException e) {
+            throw new ApplicationExceptions.DatabaseConnectionException("Could not close the fingerprint connection", e);
+        }
+    }
+    
+    private DatabaseSchema extractDatabaseSchema(Connection connection, String schemaName) {
+        Supplier<DatabaseSchema> extraction = () -> metadataExtractor.extractDatabaseSchema(connection, schemaName);
+        return snapshotStore != null ? extractUnlessUnchanged(connection, schemaName, extraction) : extraction.get();
+    }
+    
+    /**
+     * Uses the stored snapshot while the schema fingerprint matches. Otherwise, in incremental mode, re-reads
+     * only the tables whose LAST_DDL_TIME changed; the result must add up to the column count of the
+     * fingerprint, else the full extraction runs.
+     */
+    private DatabaseSchema extractUnlessUnchanged(Connection connection, String schemaName, Supplier<DatabaseSchema> extraction) {
+        String database;
+        try {
+            database = connection.getMetaData().getURL() + "|" + connection.getMetaData().getUserName();
+        } catch (SQLException e) {
+            throw new ApplicationExceptions.MetadataExtractionException("Could not read the connection metadata", e);
+        }
+        String fingerprint = oracleExtractor.computeFingerprint(connection, schemaName);
+        SchemaSnapshotFile previous = snapshotStore.load(database, schemaName).orElse(null);
+        if (previous != null && previous.fingerprint().equals(fingerprint)) {
+            log.info("Schema '{}' is unchanged since the last snapshot, skipping metadata extraction", schemaName);
+            return previous.schema();
+        }
         
-        // Discover and analyze JPA entities
-        Set<Class<?>> entities = entityDiscovery.findEntitiesInPackage(classpath, packageName);
-        Map<TableName, Set<ColumnName>> jpaSchema = analyzeJpaEntities(entities);
+        // Fingerprint and DDL times are taken before the extraction, so a concurrent DDL change only causes another extraction next time
+        OracleMetadataExtractor.DdlTimes ddlTimes = incrementalExtraction ? oracleExtractor.readDdlTimes(connection, schemaName) : null;
+        DatabaseSchema schema = null;
+        OracleMetadataExtractor.DdlTimes previousDdlTimes = ddlTimes != null && previous != null ? previous.ddlTimes() : null;
+        if (previousDdlTimes != null) {
+            schema = oracleExtractor.extractChangedTables(connection, schemaName, previous.schema(), previousDdlTimes, ddlTimes);
+            long columnCount = schema.compact().columnCount();
+            if (columnCount != OracleMetadataExtractor.fingerprintColumnCount(fingerprint)) {
+                log.warn("Incremental extraction of schema '{}' found {} columns instead of {}, extracting the whole schema",
+                    schemaName, columnCount, OracleMetadataExtractor.fingerprintColumnCount(fingerprint));
+                schema = null;
+            }
+        }
+        if (schema == null) {
+            schema = extraction.get();
+        }
+        snapshotStore.save(database, schemaName, new SchemaSnapshotStore.StoredSnapshot(fingerprint, schema, ddlTimes));
+        return schema;
+    }
+    
+    private SchemaDrift generateSchemaYamls(String classpath, String packageName,
+                                           Function<RunningStatements, DatabaseSchema> dbExtraction) throws Exception {
+        log.info("Starting schema YAML generation...");
         
-        // Extract database schema
-        DatabaseSchema dbSchema = metadataExtractor.extractDatabaseSchema(dbConnection, schemaName);
+        Map<TableName, Set<ColumnName>> jpaSchema;
+        DatabaseSchema dbSchema;
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        RunningStatements statements = new RunningStatements();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        try {
+            // Discover and analyze JPA entities, then generate the JPA schema YAML
+            CompletableFuture<Map<TableName, Set<ColumnName>>> jpaBranch = CompletableFuture.supplyAsync(() -> {
+                Map<TableName, Set<ColumnName>> schema = call(() -> buildJpaSchema(classpath, packageName));
+                checkNotCancelled();
+                write(() -> yamlGenerator.generateJpaSchemaYaml(schema, JPA_SCHEMA_FILE));
+                return schema;
+            }, executor);
+            
+            // Extract database schema, then generate the database schema YAML
+            CompletableFuture<DatabaseSchema> dbBranch = CompletableFuture.supplyAsync(() -> {
+                DatabaseSchema schema = dbExtraction.apply(statements);
+                checkNotCancelled();
+                write(() -> yamlGenerator.generateDatabaseSchemaYaml(schema, DATABASE_SCHEMA_FILE));
+                return schema;
+            }, executor);
+            
+            // Completed exceptionally by the first failing branch, without waiting for the other one
+            CompletableFuture<Void> bothBranches = CompletableFuture.allOf(jpaBranch, dbBranch);
+            jpaBranch.whenComplete((schema, e) -> cancelOnFailure(e, failure, bothBranches, executor, statements));
+            dbBranch.whenComplete((schema, e) -> cancelOnFailure(e, failure, bothBranches, executor, statements));
+            
+            try {
+                bothBranches.join();
+            } catch (CompletionException | CancellationException e) {
+                Throwable cause = failure.get() != null ? failure.get() : e;
+                if (cause instanceof Exception exception) throw exception;
+                throw (Error) cause;
+            }
+            jpaSchema = jpaBranch.join();
+            dbSchema = dbBranch.join();
+            
+            log.info("Generated YAML files:");
+            log.info("  - {} ({} tables)", JPA_SCHEMA_FILE, jpaSchema.size());
+            log.info("  - {} ({} tables)", DATABASE_SCHEMA_FILE, dbSchema.tables().size());
+        } finally {
+            executor.shutdownNow();
+            // The failure is already reported; wait briefly so a cancelled query no longer uses the connection when it is closed
+            if (failure.get() != null && !executor.awaitTermination(CANCELLATION_GRACE_PERIOD.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Cancelled schema generation branch is still running after {} s", CANCELLATION_GRACE_PERIOD.toSeconds());
+            }
+        }
         
-        // Generate YAML files
-        generateYamlFiles(jpaSchema, dbSchema);
+        SchemaDrift drift = driftDetector.compare(jpaSchema, dbSchema.tables());
+        logDrift(drift);
+        if (driftFile != null) {
+            yamlGenerator.generateDriftYaml(drift, driftFile.toString());
+        }
+        return drift;
+    }
+    
+    public Map<TableName, Set<ColumnName>> buildJpaSchema(String classpath, String packageName) throws Exception {
+        if (entityIndexCache != null) {
+            return entityIndexCache.analyze(entityDiscovery, entityAnalyzer, classpath, packageName, this::analyzeEntities);
+        }
         
-        log.info("Schema YAML files generated successfully. Use diff tool to compare:");
-        log.info("  diff jpa-schema.yaml database-schema.yaml");
+        Set<Class<?>> entities = entityDiscovery.findEntitiesInPackage(classpath, packageName);
+        return analyzeJpaEntities(entities);
     }
     
     private Map<TableName, Set<ColumnName>> analyzeJpaEntities(Set<Class<?>> entities) {
-        log.info("Analyzing {} JPA entities...", entities.size());
-        
         Map<TableName, Set<ColumnName>> jpaSchema = new LinkedHashMap<>();
+        analyzeEntities(List.copyOf(entities)).values().forEach(jpaSchema::putAll);
+        return jpaSchema;
+    }
+    
+    /**
+     * Analyses the entities, concurrently when more than one analysis thread is configured. The result
+     * always keeps the input order and omits entities that failed, so the merged schema does not depend
+     * on the number of threads.
+     */
+    private Map<Class<?>, Map<TableName, Set<ColumnName>>> analyzeEntities(List<Class<?>> entities) {
+        log.info("Analyzing {} JPA entities...", entities.size());
+        long start = System.nanoTime();
         
-        for (Class<?> entity : entities) {
+        List<Map<TableName, Set<ColumnName>>> entitySchemas;
+        if (analysisThreads <= 1 || entities.size() < 2) {
+            entitySchemas = entities.stream().map(this::analyzeEntity).toList();
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(analysisThreads);
             try {
-                Map<TableName, Set<ColumnName>> entitySchema = entityAnalyzer.analyzeEntity(entity);
-                jpaSchema.putAll(entitySchema);
-                log.debug("Analyzed entity: {} -> {} columns", entity.getSimpleName(), 
-                    entitySchema.values().stream().mapToInt(Set::size).sum());
-            } catch (Exception e) {
-                log.error("Failed to analyze entity: {}", entity.getSimpleName(), e);
+                // The ordered parallel stream keeps the input order in the result
+                entitySchemas = pool.submit(() -> entities.parallelStream().map(this::analyzeEntity).toList()).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Entity analysis was interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Entity analysis failed", e.getCause());
+            } finally {
+                pool.shutdown();
             }
         }
         
-        return jpaSchema;
+        Map<Class<?>, Map<TableName, Set<ColumnName>>> results = new LinkedHashMap<>();
+        for (int i = 0; i < entities.size(); i++) {
+            if (entitySchemas.get(i) != null) {
+                results.put(entities.get(i), entitySchemas.get(i));
+            }
+        }
+        
+        long elapsedNanos = Math.max(1, System.nanoTime() - start);
+        log.info("Analyzed {} entities in {} ms using {} thread(s) ({} entities/s)", results.size(),
+            elapsedNanos / 1_000_000, analysisThreads, Math.round(results.size() * 1e9 / elapsedNanos));
+        return results;
     }
     
-    private void generateYamlFiles(Map<TableName, Set<ColumnName>> jpaSchema, DatabaseSchema dbSchema) throws Exception {
-        // Generate JPA schema YAML
-        yamlGenerator.generateJpaSchemaYaml(jpaSchema, "jpa-schema.yaml");
+    private Map<TableName, Set<ColumnName>> analyzeEntity(Class<?> entity) {
+        try {
+            Map<TableName, Set<ColumnName>> entitySchema = entityAnalyzer.analyzeEntity(entity);
+            log.debug("Analyzed entity: {} -> {} columns", entity.getSimpleName(), 
+                entitySchema.values().stream().mapToInt(Set::size).sum());
+            return entitySchema;
+        } catch (Exception e) {
+            log.error("Failed to analyze entity: {}", entity.getSimpleName(), e);
+            return null;
+        }
+    }
+    
+    private void logDrift(SchemaDrift drift) {
+        if (!drift.hasDrift()) {
+            log.info("No schema drift found between JPA entities and the database");
+            return;
+        }
         
-        // Generate database schema YAML
-        yamlGenerator.generateDatabaseSchemaYaml(dbSchema, "database-schema.yaml");
+        log.warn("Schema drift found: {} missing tables, {} extra tables, {} tables with different columns",
+            drift.missingTables().size(), drift.extraTables().size(), drift.changedTables().size());
+        drift.missingTables().forEach(table -> log.warn("  Missing table: {}", table.value()));
+        drift.extraTables().forEach(table -> log.warn("  Extra table: {}", table.value()));
+        drift.changedTables().forEach((table, tableDrift) -> {
+            tableDrift.missingColumns().forEach(column -> log.warn("  Missing column: {}.{}", table.value(), column.value()));
+            tableDrift.extraColumns().forEach(column -> log.warn("  Extra column: {}.{}", table.value(), column.value()));
+        });
+    }
+    
+    private static void cancelOnFailure(Throwable e, AtomicReference<Throwable> failure, CompletableFuture<Void> bothBranches,
+                                        ExecutorService executor, RunningStatements statements) {
+        if (e == null) return;
         
-        log.info("Generated YAML files:");
-        log.info("  - jpa-schema.yaml ({} tables)", jpaSchema.size());
-        log.info("  - database-schema.yaml ({} tables)", dbSchema.tables().size());
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (failure.compareAndSet(null, cause)) {
+            log.debug("Schema generation branch failed, cancelling the other branch", cause);
+            bothBranches.completeExceptionally(cause);
+            executor.shutdownNow();
+            statements.cancelAll();
+        }
+    }
+    
+    private static void checkNotCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Schema generation was cancelled");
+        }
+    }
+    
+    /**
+     * Runs a step that throws checked exceptions inside a {@link CompletableFuture} stage.
+     */
+    private static <T> T call(Callable<T> step) {
+        try {
+            return step.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+    
+    private static void write(IoStep step) {
+        try {
+            step.run();
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+    
+    @FunctionalInterface
+    private interface IoStep {
+        void run() throws IOException;
     }
 }
\ No newline at end of file
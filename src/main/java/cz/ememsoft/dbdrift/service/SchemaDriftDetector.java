@@ -0,0 +1,97 @@
+package cz.ememsoft.dbdrift.service;
+
+import cz.ememsoft.dbdrift.model.ColumnName;
+import cz.ememsoft.dbdrift.model.InternedSchema;
+import cz.ememsoft.dbdrift.model.SchemaDrift;
+import cz.ememsoft.dbdrift.model.SymbolTable;
+import cz.ememsoft.dbdrift.model.TableName;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Compares the JPA schema with the database schema by a merge-join over both sides interned into sorted
+ * id arrays, after upper-casing names as the YAML files do. Reported names are sorted.
+ */
+@Slf4j
+public class SchemaDriftDetector {
+    
+    private final SymbolTable symbols;
+    
+    public SchemaDriftDetector() {
+        this(new SymbolTable());
+    }
+    
+    public SchemaDriftDetector(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+    
+    public SchemaDrift compare(Map<TableName, Set<ColumnName>> jpaSchema, Map<TableName, Set<ColumnName>> dbSchema) {
+        long start = System.nanoTime();
+        InternedSchema expected = InternedSchema.of(symbols, jpaSchema);
+        InternedSchema actual = InternedSchema.of(symbols, dbSchema);
+        int[] expectedTables = expected.tableIds();
+        int[] actualTables = actual.tableIds();
+        
+        List<TableName> missingTables = new ArrayList<>();
+        List<TableName> extraTables = new ArrayList<>();
+        Map<TableName, SchemaDrift.TableDrift> changedTables = new TreeMap<>();
+        
+        int i = 0;
+        int j = 0;
+        while (i < expectedTables.length || j < actualTables.length) {
+            int order = i == expectedTables.length ? 1 : j == actualTables.length ? -1 : Integer.compare(expectedTables[i], actualTables[j]);
+            if (order < 0) {
+                missingTables.add(symbols.tableName(expectedTables[i++]));
+            } else if (order > 0) {
+                extraTables.add(symbols.tableName(actualTables[j++]));
+            } else {
+                SchemaDrift.TableDrift tableDrift = compareColumns(expected.columnIds()[i], actual.columnIds()[j]);
+                if (tableDrift != null) {
+                    changedTables.put(symbols.tableName(expectedTables[i]), tableDrift);
+                }
+                i++;
+                j++;
+            }
+        }
+        missingTables.sort(null);
+        extraTables.sort(null);
+        
+        log.debug("Compared {} JPA tables with {} database tables in {} ms",
+            expectedTables.length, actualTables.length, (System.nanoTime() - start) / 1_000_000);
+        return new SchemaDrift(Collections.unmodifiableList(missingTables), Collections.unmodifiableList(extraTables),
+            Collections.unmodifiableMap(new LinkedHashMap<>(changedTables)));
+    }
+    
+    private SchemaDrift.TableDrift compareColumns(int[] expected, int[] actual) {
+        if (Arrays.equals(expected, actual)) {
+            return null;
+        }
+        List<ColumnName> missingColumns = new ArrayList<>();
+        List<ColumnName> extraColumns = new ArrayList<>();
+        
+        int i = 0;
+        int j = 0;
+        while (i < expected.length || j < actual.length) {
+            int order = i == expected.length ? 1 : j == actual.length ? -1 : Integer.compare(expected[i], actual[j]);
+            if (order < 0) {
+                missingColumns.add(symbols.columnName(expected[i++]));
+            } else if (order > 0) {
+                extraColumns.add(symbols.columnName(actual[j++]));
+            } else {
+                i++;
+                j++;
+            }
+        }
+        missingColumns.sort(null);
+        extraColumns.sort(null);
+        return new SchemaDrift.TableDrift(Collections.unmodifiableList(missingColumns), Collections.unmodifiableList(extraColumns));
+    }
+}
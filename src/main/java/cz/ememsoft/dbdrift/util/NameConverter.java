@@ -1,15 +1,17 @@
 package cz.ememsoft.dbdrift.util;
 
 import lombok.NonNull;
-import java.util.regex.Pattern;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Pomocná trieda na konverziu názvov medzi rôznymi konvenciami podľa Spring Boot JPA pravidiel.
  */
 public final class NameConverter {
-    private static final Pattern CAMEL_CASE_PATTERN = Pattern.compile("(?<=[a-z])(?=[A-Z])");
-    private static final Pattern UPPER_CASE_ACRONYM_PATTERN = Pattern.compile("(?<=[A-Z])(?=[A-Z][a-z])");
-    private static final Pattern DIGIT_LETTER_PATTERN = Pattern.compile("(?<=[0-9])(?=[A-Za-z])|(?<=[A-Za-z])(?=[0-9])");
+    /** Horná hranica veľkosti cache; po jej dosiahnutí sa ďalšie názvy len konvertujú. */
+    private static final int MAX_CACHED_NAMES = 8192;
+    private static final Map<String, String> SNAKE_CASE_CACHE = new ConcurrentHashMap<>();
     
     private NameConverter() {}
     
@@ -23,22 +25,79 @@ public final class NameConverter {
      * - getId -> get_id
      * - setURL -> set_url
      * - userID -> user_id
-     * - firstName2 -> first_name2
-     * - version2Beta -> version2_beta
+     * - firstName2 -> first_name_2
+     * - version2Beta -> version_2_beta
      */
     public static String camelToSnake(@NonNull String input) {
         if (input.isEmpty()) return "";
         
-        // Spracovanie akronymov (XML, HTML, URL, atď.)
-        String result = UPPER_CASE_ACRONYM_PATTERN.matcher(input).replaceAll("_");
+        // Názvy polí sa medzi entitami často opakujú
+        String cached = SNAKE_CASE_CACHE.get(input);
+        if (cached != null) return cached;
         
-        // Spracovanie prechodu z malého na veľké písmeno
-        result = CAMEL_CASE_PATTERN.matcher(result).replaceAll("_");
+        String result = convertCamelToSnake(input);
+        if (SNAKE_CASE_CACHE.size() < MAX_CACHED_NAMES) {
+            SNAKE_CASE_CACHE.putIfAbsent(input, result);
+        }
+        return result;
+    }
+    
+    /**
+     * Jednoprechodová konverzia. Podčiarkovník sa vkladá pred znak na pozícii i, ak:
+     * - ide o akronym pred slovom (veľké, veľké, malé písmeno: XMLParser -> xml_parser),
+     * - ide o prechod z malého na veľké písmeno (firstName -> first_name),
+     * - ide o prechod medzi číslicou a písmenom (version2Beta -> version_2_beta).
+     * Písmená sa posudzujú iba v rozsahu ASCII, rovnako ako pôvodné regulárne výrazy.
+     */
+    private static String convertCamelToSnake(String input) {
+        int length = input.length();
+        char[] buffer = new char[length * 2];
+        int position = 0;
+        boolean ascii = true;
         
-        // Spracovanie prechodu medzi číslami a písmenami
-        result = DIGIT_LETTER_PATTERN.matcher(result).replaceAll("_");
+        char previous = 0;
+        for (int i = 0; i < length; i++) {
+            char current = input.charAt(i);
+            if (i > 0) {
+                boolean boundary;
+                if (isUpper(current)) {
+                    boundary = isLower(previous)
+                        || (isUpper(previous) && i + 1 < length && isLower(input.charAt(i + 1)))
+                        || isDigit(previous);
+                } else if (isLower(current)) {
+                    boundary = isDigit(previous);
+                } else if (isDigit(current)) {
+                    boundary = isUpper(previous) || isLower(previous);
+                } else {
+                    boundary = false;
+                }
+                if (boundary) buffer[position++] = '_';
+            }
+            
+            if (isUpper(current)) {
+                buffer[position++] = (char) (current + ('a' - 'A'));
+            } else {
+                ascii &= current < 0x80;
+                buffer[position++] = current;
+            }
+            previous = current;
+        }
         
-        return result.toLowerCase();
+        String result = new String(buffer, 0, position);
+        // Ne-ASCII znaky prevedie na malé písmená štandardná konverzia
+        return ascii ? result : result.toLowerCase(Locale.ROOT);
+    }
+    
+    private static boolean isUpper(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+    
+    private static boolean isLower(char c) {
+        return c >= 'a' && c <= 'z';
+    }
+    
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
     }
     
     /**
@@ -0,0 +1,167 @@
+package cz.ememsoft.dbdrift.integration;
+
+import cz.ememsoft.dbdrift.jpa.ClassFileWatcher;
+import cz.ememsoft.dbdrift.jpa.EntityDiscovery;
+import cz.ememsoft.dbdrift.jpa.EntityIndexCache;
+import cz.ememsoft.dbdrift.jpa.JpaEntityAnalyzer;
+import cz.ememsoft.dbdrift.model.ColumnName;
+import cz.ememsoft.dbdrift.model.TableName;
+import cz.ememsoft.dbdrift.service.SchemaComparisonService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for watch mode: the watcher reports rewritten class files and class files in new
+ * directories, and the in-memory entity index of a long-running service keeps producing the same
+ * schema as a full analysis after a shared superclass changes, analysing again only the entities
+ * that inherit from it, also when that superclass lives outside the watched package.
+ */
+public class ClassFileWatcherTest {
+    
+    private static final String PACKAGE_NAME = "cz.ememsoft.dbdrift.testentities";
+    private static final String PACKAGE_PATH = "cz/ememsoft/dbdrift/testentities";
+    private static final String ORDERS_PACKAGE_NAME = "cz.ememsoft.dbdrift.testorders";
+    private static final String ORDERS_PACKAGE_PATH = "cz/ememsoft/dbdrift/testorders";
+    
+    @TempDir
+    Path tempDir;
+    
+    private Path classesDir;
+    private Path packageDir;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        classesDir = tempDir.resolve("classes");
+        packageDir = copyPackage(PACKAGE_PATH);
+        copyPackage(ORDERS_PACKAGE_PATH);
+    }
+    
+    private Path copyPackage(String packagePath) throws Exception {
+        Path target = Files.createDirectories(classesDir.resolve(packagePath));
+        try (Stream<Path> files = Files.list(Path.of("target/test-classes").resolve(packagePath))) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.copy(file, target.resolve(file.getFileName()));
+            }
+        }
+        return target;
+    }
+    
+    @Test
+    void testWatcherReportsChangedAndNewClassFiles() throws Exception {
+        try (ClassFileWatcher watcher = new ClassFileWatcher(classesDir.toString(), Duration.ofMillis(200))) {
+            CompletableFuture<Set<Path>> changes = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return watcher.awaitChanges();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            Path person = packageDir.resolve("Person.class");
+            Files.write(person, Files.readAllBytes(person));
+            Path newDirectory = Files.createDirectories(packageDir.resolve("generated"));
+            Files.write(newDirectory.resolve("Generated.class"), new byte[] {1});
+            
+            Set<Path> changed = changes.get(10, TimeUnit.SECONDS);
+            assertTrue(changed.contains(person.toAbsolutePath()), "Rewritten class file should be reported: " + changed);
+            assertTrue(changed.stream().anyMatch(path -> path.startsWith(newDirectory.toAbsolutePath())),
+                "New directory should be reported: " + changed);
+        }
+    }
+    
+    @Test
+    void testInMemoryIndexMatchesFullAnalysisAfterChange() throws Exception {
+        Map<TableName, Set<ColumnName>> expected = new SchemaComparisonService()
+            .buildJpaSchema(classesDir.toString(), PACKAGE_NAME);
+        // The index of a long-running service without a cache directory
+        EntityIndexCache cache = new EntityIndexCache(null);
+        List<String> analysed = new ArrayList<>();
+        assertSchemaEquals(expected, analyze(cache, analysed));
+        assertFalse(analysed.isEmpty(), "First run should analyse the entities");
+        
+        analysed.clear();
+        Path baseClass = packageDir.resolve("AbstractAuditEntity.class");
+        Files.setLastModifiedTime(baseClass, FileTime.from(Instant.now().plusSeconds(60)));
+        assertSchemaEquals(expected, analyze(cache, analysed));
+        assertEquals(Set.of("Person", "Individual"), Set.copyOf(analysed),
+            "Only the entities inheriting from the changed superclass should be analysed again");
+        
+        analysed.clear();
+        Files.delete(packageDir.resolve("Veterinarian.class"));
+        Map<TableName, Set<ColumnName>> afterDelete = analyze(cache, analysed);
+        assertSchemaEquals(new SchemaComparisonService().buildJpaSchema(classesDir.toString(), PACKAGE_NAME), afterDelete);
+        assertEquals(List.of(), analysed, "Deleting an entity should not analyse the others again");
+    }
+    
+    @Test
+    void testChangedBaseClassOutsideWatchedPackageReanalysesDependentEntity() throws Exception {
+        EntityIndexCache cache = new EntityIndexCache(null);
+        List<String> analysed = new ArrayList<>();
+        analyze(cache, ORDERS_PACKAGE_NAME, analysed);
+        assertEquals(List.of("PurchaseOrder"), analysed);
+        
+        try (ClassFileWatcher watcher = new ClassFileWatcher(classesDir.toString(), Duration.ofMillis(200))) {
+            CompletableFuture<Set<Path>> changes = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return watcher.awaitChanges();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            // The @MappedSuperclass of PurchaseOrder is in another package than the one being analysed
+            Path baseClass = packageDir.resolve("BaseEntity.class");
+            Files.write(baseClass, Files.readAllBytes(baseClass));
+            Files.setLastModifiedTime(baseClass, FileTime.from(Instant.now().plusSeconds(60)));
+            
+            Set<Path> changed = changes.get(10, TimeUnit.SECONDS);
+            assertTrue(changed.contains(baseClass.toAbsolutePath()), "Rewritten base class should be reported: " + changed);
+        }
+        
+        analysed.clear();
+        Map<TableName, Set<ColumnName>> afterChange = analyze(cache, ORDERS_PACKAGE_NAME, analysed);
+        assertEquals(List.of("PurchaseOrder"), analysed, "The entity inheriting from the changed base class should be analysed again");
+        assertSchemaEquals(new SchemaComparisonService().buildJpaSchema(classesDir.toString(), ORDERS_PACKAGE_NAME), afterChange);
+        
+        analysed.clear();
+        analyze(cache, ORDERS_PACKAGE_NAME, analysed);
+        assertEquals(List.of(), analysed, "The next run should use the recorded fingerprint of the new base class");
+    }
+    
+    private Map<TableName, Set<ColumnName>> analyze(EntityIndexCache cache, List<String> analysed) throws Exception {
+        return analyze(cache, PACKAGE_NAME, analysed);
+    }
+    
+    private Map<TableName, Set<ColumnName>> analyze(EntityIndexCache cache, String packageName, List<String> analysed) throws Exception {
+        JpaEntityAnalyzer analyzer = new JpaEntityAnalyzer();
+        return cache.analyze(new EntityDiscovery(), analyzer, classesDir.toString(), packageName, entities -> {
+            Map<Class<?>, Map<TableName, Set<ColumnName>>> result = new LinkedHashMap<>();
+            for (Class<?> entity : entities) {
+                analysed.add(entity.getSimpleName());
+                result.put(entity, analyzer.analyzeEntity(entity));
+            }
+            return result;
+        });
+    }
+    
+    private void assertSchemaEquals(Map<TableName, Set<ColumnName>> expected, Map<TableName, Set<ColumnName>> actual) {
+        assertEquals(List.copyOf(expected.keySet()), List.copyOf(actual.keySet()), "Tables should match in the same order");
+        expected.forEach((table, columns) ->
+            assertEquals(List.copyOf(columns), List.copyOf(actual.get(table)), "Columns of " + table.value() + " should match"));
+    }
+}
@@ -0,0 +1,80 @@
+package cz.ememsoft.dbdrift.integration;
+
+import cz.ememsoft.dbdrift.model.ColumnName;
+import cz.ememsoft.dbdrift.model.CompactSchema;
+import cz.ememsoft.dbdrift.model.DatabaseSchema;
+import cz.ememsoft.dbdrift.model.SymbolTable;
+import cz.ememsoft.dbdrift.model.TableName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for the columnar schema form and its map view.
+ */
+public class CompactSchemaTest {
+    
+    @Test
+    void testUnsortedRowsAreSortedAndDeduplicated() {
+        CompactSchema schema = CompactSchema.builder()
+            .add(new TableName("PERSON"), new ColumnName("NAME"))
+            .add(new TableName("ADDRESS"), new ColumnName("ID"))
+            .add(new TableName("PERSON"), new ColumnName("ID"))
+            .add(new TableName("PERSON"), new ColumnName("NAME"))
+            .build();
+        
+        assertEquals(2, schema.tableCount());
+        assertEquals(3, schema.columnCount(), "Repeated pairs should be stored once");
+        assertEquals(List.of(new TableName("ADDRESS"), new TableName("PERSON")), List.copyOf(schema.asMap().keySet()));
+        assertEquals(List.of(new ColumnName("ID"), new ColumnName("NAME")),
+            List.copyOf(schema.asMap().get(new TableName("PERSON"))));
+        assertTrue(schema.containsColumn(new TableName("PERSON"), new ColumnName("NAME")));
+        assertFalse(schema.containsColumn(new TableName("ADDRESS"), new ColumnName("NAME")));
+        assertNull(schema.asMap().get(new TableName("MISSING")));
+        assertThrows(UnsupportedOperationException.class, () -> schema.asMap().put(new TableName("X"), Set.of()));
+    }
+    
+    @Test
+    void testViewEqualsMapBasedSchema() {
+        SymbolTable symbols = new SymbolTable();
+        Random random = new Random(42);
+        Map<TableName, Set<ColumnName>> expected = new TreeMap<>();
+        List<TableName> rowTables = new ArrayList<>();
+        List<ColumnName> rowColumns = new ArrayList<>();
+        for (int table = 0; table < 2_000; table++) {
+            TableName tableName = symbols.tableName("TABLE_" + table);
+            for (int column = 0; column < 100; column++) {
+                ColumnName columnName = symbols.columnName("COLUMN_" + random.nextInt(150));
+                expected.computeIfAbsent(tableName, k -> new TreeSet<>()).add(columnName);
+                rowTables.add(tableName);
+                rowColumns.add(columnName);
+            }
+        }
+        
+        // Rows arrive in a different order, as when parallel buckets are merged
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < rowTables.size(); i++) {
+            order.add(i);
+        }
+        Collections.shuffle(order, random);
+        CompactSchema.Builder builder = CompactSchema.builder();
+        order.forEach(i -> builder.add(rowTables.get(i), rowColumns.get(i)));
+        DatabaseSchema schema = DatabaseSchema.of(builder.build());
+        
+        assertEquals(expected, schema.tables(), "The view should equal the map-based schema");
+        assertEquals(List.copyOf(expected.keySet()), List.copyOf(schema.tables().keySet()), "Tables should be sorted");
+        expected.forEach((table, columns) -> assertEquals(List.copyOf(columns), List.copyOf(schema.tables().get(table)),
+            "Columns of " + table.value() + " should be sorted"));
+        assertSame(schema.compact(), schema.compact(), "A view should not be converted again");
+        assertEquals(expected.values().stream().mapToInt(Set::size).sum(), schema.compact().columnCount());
+    }
+}
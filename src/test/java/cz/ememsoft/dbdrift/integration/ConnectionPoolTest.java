@@ -0,0 +1,115 @@
+package cz.ememsoft.dbdrift.integration;
+
+import cz.ememsoft.dbdrift.config.DatabaseConfig;
+import cz.ememsoft.dbdrift.db.ConnectionPool;
+import cz.ememsoft.dbdrift.exception.ApplicationExceptions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the connection pool: returned connections are reused without a new login,
+ * borrows beyond the per-host limit wait and time out, expired or broken connections are replaced, and
+ * extractions holding several connections take them from the host limit together.
+ */
+public class ConnectionPoolTest {
+
+    private static final String JDBC_URL = "jdbc:h2:mem:connection_pool;DB_CLOSE_DELAY=-1";
+    private static final DatabaseConfig CONFIG = new DatabaseConfig("h2", "db1.example.com", 1521, "POOL", "sa", "", "APP");
+    private static final DatabaseConfig OTHER_SCHEMA = new DatabaseConfig("h2", "DB1.example.com", 1521, "POOL", "sa", "", "HR");
+
+    private final List<Connection> opened = new ArrayList<>();
+    private final Function<DatabaseConfig, Connection> connector = config -> {
+        try {
+            Connection connection = DriverManager.getConnection(JDBC_URL, "sa", "");
+            opened.add(connection);
+            return connection;
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    };
+
+    @Test
+    void testReturnedConnectionIsReusedAndHostLimitIsEnforced() throws Exception {
+        try (ConnectionPool pool = new ConnectionPool(1, Duration.ofMinutes(5), Duration.ofMillis(200), connector)) {
+            Connection first = pool.getConnection(CONFIG);
+            first.setAutoCommit(false);
+            // Same host in another case: the limit of one connection is already used
+            assertThrows(ApplicationExceptions.DatabaseConnectionException.class, () -> pool.getConnection(OTHER_SCHEMA));
+            first.close();
+            assertTrue(first.isClosed(), "Returned connection should report closed");
+            assertThrows(SQLException.class, first::createStatement, "Returned connection should not be usable");
+
+            try (Connection second = pool.getConnection(CONFIG); Statement statement = second.createStatement()) {
+                assertTrue(statement.execute("SELECT 1"));
+                assertTrue(second.getAutoCommit(), "Reused connection should be reset to auto-commit");
+            }
+            assertEquals(1, opened.size(), "Returned connection should be reused without a new login");
+            assertFalse(opened.get(0).isClosed(), "Idle connection should stay open in the pool");
+        }
+        assertTrue(opened.get(0).isClosed(), "Closing the pool should close idle connections");
+    }
+
+    @Test
+    void testExpiredAndBrokenConnectionsAreReplaced() throws Exception {
+        try (ConnectionPool pool = new ConnectionPool(4, Duration.ZERO, Duration.ofSeconds(1), connector)) {
+            pool.getConnection(CONFIG).close();
+            pool.getConnection(CONFIG).close();
+            assertEquals(2, opened.size(), "Connection idle beyond the timeout should not be reused");
+            assertTrue(opened.get(0).isClosed(), "Expired connection should be closed");
+        }
+
+        opened.clear();
+        try (ConnectionPool pool = new ConnectionPool(4, Duration.ofMinutes(5), Duration.ofSeconds(1), connector)) {
+            pool.getConnection(CONFIG).close();
+            opened.get(0).close();
+            try (Connection connection = pool.getConnection(CONFIG)) {
+                assertFalse(connection.isClosed());
+            }
+            assertEquals(2, opened.size(), "Connection closed behind the pool should be replaced");
+        }
+    }
+
+    @Test
+    void testExtractionReservesAllItsConnectionsAtOnce() throws Exception {
+        try (ConnectionPool pool = new ConnectionPool(2, Duration.ofMinutes(5), Duration.ofSeconds(5), connector)) {
+            Supplier<Connection> first = pool.connections(CONFIG, 2);
+            Supplier<Connection> second = pool.connections(OTHER_SCHEMA, 2);
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                Connection fingerprint = first.get();
+                Future<?> otherExtraction = executor.submit(() -> {
+                    try (Connection connection = second.get(); Connection bucket = second.get()) {
+                        assertFalse(bucket.isClosed());
+                    }
+                    return null;
+                });
+                // Borrowing one by one, the other extraction would take the second connection of the limit
+                assertThrows(TimeoutException.class, () -> otherExtraction.get(200, TimeUnit.MILLISECONDS));
+                try (Connection bucket = first.get()) {
+                    assertFalse(bucket.isClosed());
+                }
+                fingerprint.close();
+                otherExtraction.get(5, TimeUnit.SECONDS);
+            } finally {
+                executor.shutdownNow();
+            }
+            assertThrows(IllegalArgumentException.class, () -> pool.connections(CONFIG, 3));
+        }
+    }
+}
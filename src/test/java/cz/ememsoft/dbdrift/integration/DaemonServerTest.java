@@ -0,0 +1,135 @@
+package cz.ememsoft.dbdrift.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.ememsoft.dbdrift.cli.DaemonServer;
+import cz.ememsoft.dbdrift.model.ColumnName;
+import cz.ememsoft.dbdrift.model.SchemaDrift;
+import cz.ememsoft.dbdrift.model.TableName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the daemon HTTP API: checks run with the command line defaults or the values
+ * from the request body, drift is returned as JSON, bad requests and failing checks are reported
+ * as errors, a shutdown request releases the waiting daemon, and requests without the token from the
+ * owner-only token file or from a browser are rejected.
+ */
+public class DaemonServerTest {
+    
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newHttpClient();
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testCheckReturnsDriftAsJson() throws Exception {
+        List<String> calls = new ArrayList<>();
+        SchemaDrift drift = new SchemaDrift(List.of(new TableName("INVOICE")), List.of(),
+            Map.of(new TableName("CUSTOMER"), new SchemaDrift.TableDrift(List.of(new ColumnName("EMAIL")), List.of())));
+        DaemonServer.DriftCheck check = (classpath, packageName) -> {
+            calls.add(classpath + "|" + packageName);
+            if (packageName.equals("com.example.broken")) {
+                throw new IllegalStateException("Entity analysis failed");
+            }
+            return Map.of("status", "DRIFT", "drift", DaemonServer.driftJson(drift));
+        };
+        
+        try (DaemonServer daemon = DaemonServer.start(0, tokenFile(), "target/classes", "com.example.entities", check)) {
+            HttpResponse<String> health = send(daemon, "GET", "/health", "");
+            assertEquals(200, health.statusCode());
+            assertEquals("UP", mapper.readTree(health.body()).path("status").asText());
+            
+            HttpResponse<String> response = send(daemon, "POST", "/check", "");
+            assertEquals(200, response.statusCode());
+            JsonNode body = mapper.readTree(response.body());
+            assertEquals("DRIFT", body.path("status").asText());
+            assertEquals("INVOICE", body.path("drift").path("missingTables").get(0).asText());
+            assertEquals("EMAIL", body.path("drift").path("changedTables").path("CUSTOMER").path("missingColumns").get(0).asText());
+            assertTrue(body.has("elapsedMillis"));
+            
+            assertEquals(200, send(daemon, "POST", "/check", "{\"package\": \"com.example.other\"}").statusCode());
+            assertEquals(List.of("target/classes|com.example.entities", "target/classes|com.example.other"), calls);
+            
+            assertEquals(400, send(daemon, "POST", "/check", "{not json").statusCode());
+            assertEquals(405, send(daemon, "GET", "/check", "").statusCode());
+            HttpResponse<String> failed = send(daemon, "POST", "/check", "{\"package\": \"com.example.broken\"}");
+            assertEquals(500, failed.statusCode());
+            assertEquals("Entity analysis failed", mapper.readTree(failed.body()).path("error").asText());
+            assertEquals(2, mapper.readTree(send(daemon, "GET", "/health", "").body()).path("checks").asLong());
+        }
+    }
+    
+    @Test
+    void testShutdownRequestStopsDaemon() throws Exception {
+        try (DaemonServer daemon = DaemonServer.start(0, tokenFile(), "target/classes", "com.example.entities", (classpath, packageName) -> Map.of())) {
+            CompletableFuture<Void> waiting = CompletableFuture.runAsync(() -> {
+                try {
+                    daemon.awaitShutdown();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            assertFalse(waiting.isDone());
+            assertEquals(200, send(daemon, "POST", "/shutdown", "").statusCode());
+            waiting.get(5, TimeUnit.SECONDS);
+        }
+    }
+    
+    @Test
+    void testRequestsWithoutTokenOrFromBrowserAreRejected() throws Exception {
+        Path tokenFile = tokenFile();
+        try (DaemonServer daemon = DaemonServer.start(0, tokenFile, "target/classes", "com.example.entities",
+                (classpath, packageName) -> Map.of("status", "NO_DRIFT"))) {
+            String token = Files.readString(tokenFile);
+            assertTrue(token.matches("[0-9a-f]{64}"), "Token should be 32 random bytes in hex: " + token);
+            if (Files.getFileStore(tokenFile).supportsFileAttributeView("posix")) {
+                assertEquals(PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(tokenFile));
+            }
+            
+            assertEquals(401, send(daemon, "GET", "/health", "", Map.of()).statusCode());
+            assertEquals(401, send(daemon, "POST", "/check", "", Map.of("Authorization", "Bearer " + "0".repeat(64))).statusCode());
+            assertEquals(401, send(daemon, "POST", "/shutdown", "", Map.of("Authorization", token)).statusCode());
+            assertEquals(403, send(daemon, "POST", "/check", "", Map.of("Authorization", "Bearer " + token,
+                "Origin", "http://example.com")).statusCode());
+            assertEquals(415, send(daemon, "POST", "/check", "{}", Map.of("Authorization", "Bearer " + token,
+                "Content-Type", "text/plain")).statusCode());
+            assertEquals(200, send(daemon, "POST", "/check", "{}").statusCode());
+            assertEquals(1, mapper.readTree(send(daemon, "GET", "/health", "").body()).path("checks").asLong());
+        }
+        assertFalse(Files.exists(tokenFile), "Token file should be deleted when the daemon stops");
+    }
+    
+    private Path tokenFile() {
+        return tempDir.resolve("daemon.token");
+    }
+    
+    private HttpResponse<String> send(DaemonServer daemon, String method, String path, String body) throws Exception {
+        return send(daemon, method, path, body, Map.of("Authorization", "Bearer " + Files.readString(tokenFile()),
+            "Content-Type", "application/json"));
+    }
+    
+    private HttpResponse<String> send(DaemonServer daemon, String method, String path, String body,
+                                      Map<String, String> headers) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + daemon.port() + path))
+            .method(method, body.isEmpty() ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+        headers.forEach(request::header);
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
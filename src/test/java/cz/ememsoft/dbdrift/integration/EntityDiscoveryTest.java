@@ -0,0 +1,196 @@
+package cz.ememsoft.dbdrift.integration;
+
+import cz.ememsoft.dbdrift.jpa.EntityDiscovery;
+import cz.ememsoft.dbdrift.testentities.BaseAuditEntity;
+import cz.ememsoft.dbdrift.testentities.Individual;
+import cz.ememsoft.dbdrift.testentities.StandardQuery;
+import jakarta.persistence.Entity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for entity discovery: scan modes, parallel scanning and
+ * the supported classpath layouts (directories, jars, Spring Boot jars), including classes
+ * that exist only in the scanned directory or jar and not on the test classpath.
+ */
+public class EntityDiscoveryTest {
+    
+    private static final String TEST_CLASSPATH = "target/test-classes";
+    private static final String PACKAGE_NAME = "cz.ememsoft.dbdrift.testentities";
+    private static final String ISOLATED_PACKAGE = "com.example.isolated";
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testBytecodeScanMatchesReflectionScan() throws Exception {
+        Set<Class<?>> bytecodeEntities = new EntityDiscovery(EntityDiscovery.ScanMode.BYTECODE)
+            .findEntitiesInPackage(TEST_CLASSPATH, PACKAGE_NAME);
+        Set<Class<?>> reflectionEntities = new EntityDiscovery(EntityDiscovery.ScanMode.REFLECTION)
+            .findEntitiesInPackage(TEST_CLASSPATH, PACKAGE_NAME);
+        
+        Set<String> bytecodeNames = bytecodeEntities.stream().map(Class::getName).collect(Collectors.toSet());
+        Set<String> reflectionNames = reflectionEntities.stream().map(Class::getName).collect(Collectors.toSet());
+        
+        System.out.println("Entities found by bytecode scan: " + bytecodeNames);
+        
+        assertEquals(reflectionNames, bytecodeNames, "Both scan modes should find the same entities");
+        assertTrue(bytecodeNames.contains(Individual.class.getName()), "Should find Individual");
+        assertTrue(bytecodeNames.contains(StandardQuery.class.getName()), "Should find StandardQuery");
+        assertFalse(bytecodeNames.contains(BaseAuditEntity.class.getName()), "Should NOT find @MappedSuperclass");
+    }
+    
+    @Test
+    void testParallelScanIsDeterministicAndSorted() throws Exception {
+        List<String> sequential = new EntityDiscovery(EntityDiscovery.ScanMode.BYTECODE, 1)
+            .findEntitiesInPackage(TEST_CLASSPATH, PACKAGE_NAME).stream()
+            .map(Class::getName)
+            .toList();
+        List<String> parallel = new EntityDiscovery(EntityDiscovery.ScanMode.BYTECODE, 8)
+            .findEntitiesInPackage(TEST_CLASSPATH, PACKAGE_NAME).stream()
+            .map(Class::getName)
+            .toList();
+        
+        assertEquals(sequential, parallel, "Parallel scan should return the same entities in the same order");
+        assertEquals(sequential.stream().sorted().toList(), sequential, "Entities should be sorted by class name");
+    }
+    
+    @Test
+    void testSpringBootJarWithNestedLibraryJar() throws Exception {
+        Set<String> expected = entityNames(TEST_CLASSPATH);
+        
+        // Entities packed in a library jar nested (stored) under BOOT-INF/lib of a boot jar
+        byte[] libraryJar = createJar(Path.of(TEST_CLASSPATH));
+        Path bootJar = tempDir.resolve("application.jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(bootJar))) {
+            out.putNextEntry(new JarEntry("BOOT-INF/classes/"));
+            out.closeEntry();
+            
+            CRC32 crc = new CRC32();
+            crc.update(libraryJar);
+            JarEntry nested = new JarEntry("BOOT-INF/lib/entities.jar");
+            nested.setMethod(ZipEntry.STORED);
+            nested.setSize(libraryJar.length);
+            nested.setCompressedSize(libraryJar.length);
+            nested.setCrc(crc.getValue());
+            out.putNextEntry(nested);
+            out.write(libraryJar);
+            out.closeEntry();
+        }
+        
+        assertEquals(expected, entityNames(bootJar.toString()), "Boot jar should expose the entities of its nested jar");
+    }
+    
+    @Test
+    void testMultiRootClasspath() throws Exception {
+        Set<String> expected = entityNames(TEST_CLASSPATH);
+        
+        Path jar = tempDir.resolve("entities.jar");
+        Files.write(jar, createJar(Path.of(TEST_CLASSPATH)));
+        Path emptyDir = Files.createDirectories(tempDir.resolve("empty-classes"));
+        String classpath = emptyDir + File.pathSeparator + jar;
+        
+        assertEquals(expected, entityNames(classpath), "Entities should be found in any classpath root");
+    }
+    
+    @Test
+    void testClassesOnlyOnScannedClasspathAreLoadedFromDirectoryAndNestedJar() throws Exception {
+        Path classesDir = compileIsolatedEntities();
+        assertThrows(ClassNotFoundException.class, () -> Class.forName(ISOLATED_PACKAGE + ".Invoice"),
+            "Isolated classes must not be on the test classpath");
+        
+        Path bootJar = tempDir.resolve("isolated-application.jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(bootJar))) {
+            byte[] libraryJar = createJar(classesDir);
+            CRC32 crc = new CRC32();
+            crc.update(libraryJar);
+            JarEntry nested = new JarEntry("BOOT-INF/lib/isolated.jar");
+            nested.setMethod(ZipEntry.STORED);
+            nested.setSize(libraryJar.length);
+            nested.setCompressedSize(libraryJar.length);
+            nested.setCrc(crc.getValue());
+            out.putNextEntry(nested);
+            out.write(libraryJar);
+            out.closeEntry();
+        }
+        
+        for (String classpath : List.of(classesDir.toString(), bootJar.toString())) {
+            Set<Class<?>> entities = new EntityDiscovery().findEntitiesInPackage(classpath, ISOLATED_PACKAGE);
+            assertEquals(1, entities.size(), "Only Invoice is an entity in " + classpath);
+            Class<?> invoice = entities.iterator().next();
+            
+            assertEquals(ISOLATED_PACKAGE + ".Invoice", invoice.getName());
+            assertNotSame(ClassLoader.getSystemClassLoader(), invoice.getClassLoader(),
+                "Invoice should be defined by the scanning class loader");
+            assertEquals(ISOLATED_PACKAGE + ".AuditedRecord", invoice.getSuperclass().getName());
+            assertSame(invoice.getClassLoader(), invoice.getSuperclass().getClassLoader(),
+                "The superclass should be found in the same classpath root");
+            assertSame(invoice.getClassLoader(), invoice.getDeclaredField("status").getType().getClassLoader(),
+                "Field types should be loaded lazily from the classpath root after the scan");
+            assertTrue(invoice.isAnnotationPresent(Entity.class));
+        }
+    }
+    
+    /**
+     * Compiles a small entity model into a temporary directory, so the classes exist nowhere else.
+     */
+    private Path compileIsolatedEntities() throws Exception {
+        Path sourceDir = Files.createDirectories(tempDir.resolve("isolated-src"));
+        Path classesDir = Files.createDirectories(tempDir.resolve("isolated-classes"));
+        List<Path> sources = List.of(
+            writeSource(sourceDir, "AuditedRecord", "@jakarta.persistence.MappedSuperclass public abstract class AuditedRecord { private java.time.Instant createdAt; }"),
+            writeSource(sourceDir, "InvoiceStatus", "public enum InvoiceStatus { OPEN, PAID }"),
+            writeSource(sourceDir, "Invoice", "@jakarta.persistence.Entity public class Invoice extends AuditedRecord { @jakarta.persistence.Id private Long id; private InvoiceStatus status; }"));
+        
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        String persistenceApi = Path.of(Entity.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        List<String> arguments = new ArrayList<>(List.of("-d", classesDir.toString(), "-cp", persistenceApi));
+        sources.forEach(source -> arguments.add(source.toString()));
+        assertEquals(0, compiler.run(null, null, null, arguments.toArray(String[]::new)), "Isolated entities should compile");
+        return classesDir;
+    }
+    
+    private Path writeSource(Path sourceDir, String className, String body) throws Exception {
+        Path file = sourceDir.resolve(className + ".java");
+        Files.writeString(file, "package " + ISOLATED_PACKAGE + ";\n" + body + "\n");
+        return file;
+    }
+    
+    private Set<String> entityNames(String classpath) throws Exception {
+        return new EntityDiscovery().findEntitiesInPackage(classpath, PACKAGE_NAME).stream()
+            .map(Class::getName)
+            .collect(Collectors.toSet());
+    }
+    
+    private byte[] createJar(Path classesDir) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (JarOutputStream out = new JarOutputStream(bytes); Stream<Path> files = Files.walk(classesDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (!file.toString().endsWith(".class")) continue;
+                String name = classesDir.relativize(file).toString().replace(File.separatorChar, '/');
+                out.putNextEntry(new JarEntry(name));
+                out.write(Files.readAllBytes(file));
+                out.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
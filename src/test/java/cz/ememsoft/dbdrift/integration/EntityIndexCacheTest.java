@@ -0,0 +1,169 @@
+package cz.ememsoft.dbdrift.integration;
+
+import cz.ememsoft.dbdrift.config.ComparisonOptions;
+import cz.ememsoft.dbdrift.jpa.EntityDiscovery;
+import cz.ememsoft.dbdrift.jpa.EntityIndexCache;
+import cz.ememsoft.dbdrift.jpa.JpaEntityAnalyzer;
+import cz.ememsoft.dbdrift.model.ColumnName;
+import cz.ememsoft.dbdrift.model.TableName;
+import cz.ememsoft.dbdrift.service.SchemaComparisonService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the persistent entity index: cached runs must produce
+ * exactly the same JPA schema as an uncached analysis. Without a cache directory
+ * the index is kept in memory only.
+ */
+public class EntityIndexCacheTest {
+    
+    private static final String PACKAGE_NAME = "cz.ememsoft.dbdrift.testentities";
+    private static final String PACKAGE_PATH = "cz/ememsoft/dbdrift/testentities";
+    private static final String ORDERS_PACKAGE_NAME = "cz.ememsoft.dbdrift.testorders";
+    private static final String ORDERS_PACKAGE_PATH = "cz/ememsoft/dbdrift/testorders";
+    
+    @TempDir
+    Path tempDir;
+    
+    private Path classesDir;
+    private Path cacheDir;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        // Copy compiled test entities so that their timestamps can be changed safely
+        classesDir = tempDir.resolve("classes");
+        cacheDir = tempDir.resolve("cache");
+        for (String packagePath : List.of(PACKAGE_PATH, ORDERS_PACKAGE_PATH)) {
+            Path source = Path.of("target/test-classes").resolve(packagePath);
+            Path target = Files.createDirectories(classesDir.resolve(packagePath));
+            try (Stream<Path> files = Files.list(source)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.copy(file, target.resolve(file.getFileName()));
+                }
+            }
+        }
+    }
+    
+    @Test
+    void testCachedAnalysisMatchesFullAnalysis() throws Exception {
+        Map<TableName, Set<ColumnName>> expected = new SchemaComparisonService()
+            .buildJpaSchema(classesDir.toString(), PACKAGE_NAME);
+        
+        SchemaComparisonService cachedService = new SchemaComparisonService(
+            ComparisonOptions.builder().cacheDirectory(cacheDir).build());
+        
+        Map<TableName, Set<ColumnName>> coldRun = cachedService.buildJpaSchema(classesDir.toString(), PACKAGE_NAME);
+        assertSchemaEquals(expected, coldRun);
+        
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            assertEquals(1, files.count(), "Cold run should write exactly one index file");
+        }
+        
+        Map<TableName, Set<ColumnName>> warmRun = cachedService.buildJpaSchema(classesDir.toString(), PACKAGE_NAME);
+        assertSchemaEquals(expected, warmRun);
+    }
+    
+    @Test
+    void testUnchangedClasspathIsAnsweredFromIndexWithoutAnalysis() throws Exception {
+        List<String> coldAnalysed = new ArrayList<>();
+        Map<TableName, Set<ColumnName>> coldRun = analyze(new EntityIndexCache(cacheDir), coldAnalysed);
+        assertFalse(coldAnalysed.isEmpty(), "Cold run should analyse the entities");
+        
+        // A new instance has no in-memory index, so the hit must come from the index file
+        List<String> warmAnalysed = new ArrayList<>();
+        Map<TableName, Set<ColumnName>> warmRun = analyze(new EntityIndexCache(cacheDir), warmAnalysed);
+        assertEquals(List.of(), warmAnalysed, "Warm run should not analyse any entity");
+        assertSchemaEquals(coldRun, warmRun);
+    }
+    
+    @Test
+    void testInMemoryIndexAnswersLaterRunsWithoutCacheDirectory() throws Exception {
+        EntityIndexCache cache = new EntityIndexCache(null);
+        List<String> coldAnalysed = new ArrayList<>();
+        Map<TableName, Set<ColumnName>> coldRun = analyze(cache, coldAnalysed);
+        assertFalse(coldAnalysed.isEmpty(), "Cold run should analyse the entities");
+        
+        List<String> warmAnalysed = new ArrayList<>();
+        assertSchemaEquals(coldRun, analyze(cache, warmAnalysed));
+        assertEquals(List.of(), warmAnalysed, "Warm run of the same instance should not analyse any entity");
+        assertFalse(Files.exists(cacheDir), "The in-memory index should not write any file");
+        
+        List<String> freshAnalysed = new ArrayList<>();
+        analyze(new EntityIndexCache(null), freshAnalysed);
+        assertEquals(coldAnalysed, freshAnalysed, "A new instance should start without an index");
+    }
+    
+    @Test
+    void testChangedBaseClassOutsidePackageInvalidatesDependentEntity() throws Exception {
+        List<String> coldAnalysed = new ArrayList<>();
+        analyze(new EntityIndexCache(cacheDir), ORDERS_PACKAGE_NAME, coldAnalysed);
+        assertEquals(List.of("PurchaseOrder"), coldAnalysed);
+    
+        List<String> warmAnalysed = new ArrayList<>();
+        analyze(new EntityIndexCache(cacheDir), ORDERS_PACKAGE_NAME, warmAnalysed);
+        assertEquals(List.of(), warmAnalysed, "Unchanged dependencies should still give a cache hit");
+    
+        // The @MappedSuperclass lives in another package, so it is not among the scanned class files
+        Path baseClass = classesDir.resolve(PACKAGE_PATH).resolve("BaseEntity.class");
+        Files.setLastModifiedTime(baseClass, FileTime.from(Instant.now().plusSeconds(60)));
+    
+        List<String> partialAnalysed = new ArrayList<>();
+        Map<TableName, Set<ColumnName>> partialRun = analyze(new EntityIndexCache(cacheDir), ORDERS_PACKAGE_NAME, partialAnalysed);
+        assertEquals(List.of("PurchaseOrder"), partialAnalysed, "The entity extending the changed base class should be re-analysed");
+        assertSchemaEquals(new SchemaComparisonService().buildJpaSchema(classesDir.toString(), ORDERS_PACKAGE_NAME), partialRun);
+    
+        List<String> repeatedAnalysed = new ArrayList<>();
+        analyze(new EntityIndexCache(cacheDir), ORDERS_PACKAGE_NAME, repeatedAnalysed);
+        assertEquals(List.of(), repeatedAnalysed, "The new base class fingerprint should be recorded");
+    }
+    
+    private Map<TableName, Set<ColumnName>> analyze(EntityIndexCache cache, List<String> analysed) throws Exception {
+        return analyze(cache, PACKAGE_NAME, analysed);
+    }
+    
+    private Map<TableName, Set<ColumnName>> analyze(EntityIndexCache cache, String packageName, List<String> analysed) throws Exception {
+        JpaEntityAnalyzer analyzer = new JpaEntityAnalyzer();
+        return cache.analyze(new EntityDiscovery(), analyzer, classesDir.toString(), packageName, entities -> {
+            Map<Class<?>, Map<TableName, Set<ColumnName>>> result = new LinkedHashMap<>();
+            for (Class<?> entity : entities) {
+                analysed.add(entity.getSimpleName());
+                result.put(entity, analyzer.analyzeEntity(entity));
+            }
+            return result;
+        });
+    }
+    
+    @Test
+    void testChangedMappedSuperclassInvalidatesDependentEntities() throws Exception {
+        SchemaComparisonService cachedService = new SchemaComparisonService(
+            ComparisonOptions.builder().cacheDirectory(cacheDir).build());
+        Map<TableName, Set<ColumnName>> expected = cachedService.buildJpaSchema(classesDir.toString(), PACKAGE_NAME);
+        
+        // Touch the @MappedSuperclass shared by the Person hierarchy
+        Path baseClass = classesDir.resolve(PACKAGE_PATH).resolve("AbstractAuditEntity.class");
+        Files.setLastModifiedTime(baseClass, FileTime.from(Instant.now().plusSeconds(60)));
+        
+        Map<TableName, Set<ColumnName>> partialRun = cachedService.buildJpaSchema(classesDir.toString(), PACKAGE_NAME);
+        assertSchemaEquals(expected, partialRun);
+    }
+    
+    private void assertSchemaEquals(Map<TableName, Set<ColumnName>> expected, Map<TableName, Set<ColumnName>> actual) {
+        assertEquals(List.copyOf(expected.keySet()), List.copyOf(actual.keySet()), "Tables should match in the same order");
+        expected.forEach((table, columns) ->
+            assertEquals(List.copyOf(columns), List.copyOf(actual.get(table)), "Columns of " + table.value() + " should match"));
+    }
+}
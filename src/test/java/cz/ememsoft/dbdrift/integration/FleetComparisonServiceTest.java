@@ -0,0 +1,214 @@
+package cz.ememsoft.dbdrift.integration;
+
+import cz.ememsoft.dbdrift.config.DatabaseConfig;
+import cz.ememsoft.dbdrift.db.ConnectionPool;
+import cz.ememsoft.dbdrift.model.FleetTargetResult;
+import cz.ememsoft.dbdrift.service.FleetComparisonService;
+import cz.ememsoft.dbdrift.service.SchemaComparisonService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for fleet mode: every target gets its own result, a failing or hanging target does
+ * not affect the others, a timed-out query is cancelled so its connection is free for the next target,
+ * and structurally identical schemas share one comparison unless it failed.
+ */
+public class FleetComparisonServiceTest {
+    
+    private static final String JDBC_URL = "jdbc:h2:mem:fleet_dictionary;MODE=Oracle;DB_CLOSE_DELAY=-1";
+    private static final String TEST_CLASSPATH = "target/test-classes";
+    private static final String PACKAGE_NAME = "cz.ememsoft.dbdrift.testentities";
+    private static final DatabaseConfig HOST = new DatabaseConfig("h2", "db1.example.com", 1521, "FLEET", "sa", "", "APP");
+    
+    private Connection connection;
+    
+    @TempDir
+    Path tempDir;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection(JDBC_URL, "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SCHEMA APP");
+            statement.execute("CREATE TABLE APP.PERSON (ID NUMBER PRIMARY KEY, NAME VARCHAR2(100))");
+            statement.execute("CREATE SCHEMA TENANT_B");
+            statement.execute("CREATE TABLE TENANT_B.PERSON (NAME VARCHAR2(100), ID NUMBER PRIMARY KEY)");
+            statement.execute("CREATE SCHEMA TENANT_C");
+            statement.execute("CREATE TABLE TENANT_C.PERSON (ID NUMBER PRIMARY KEY, NAME VARCHAR2(100), EMAIL VARCHAR2(100))");
+        }
+        OracleDictionary.create(connection);
+    }
+    
+    @AfterEach
+    void tearDown() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+    
+    @Test
+    void testEveryTargetGetsResultDespiteFailures() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        // Blocks as an unreachable database would, until the timeout interrupts it
+        Supplier<Connection> hanging = () -> {
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            throw new IllegalStateException("Hanging target should have been interrupted");
+        };
+        Supplier<Connection> failing = () -> (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                throw new SQLException("Connection refused");
+            });
+        
+        List<FleetComparisonService.Target> targets = List.of(
+            new FleetComparisonService.Target("tenant-a", this::openConnection, "APP"),
+            new FleetComparisonService.Target("hanging", hanging, "APP"),
+            new FleetComparisonService.Target("failing", failing, "APP"),
+            new FleetComparisonService.Target("tenant-b", this::openConnection, "TENANT_B"),
+            new FleetComparisonService.Target("tenant-c", this::openConnection, "TENANT_C"));
+        
+        List<FleetTargetResult> results = new FleetComparisonService(new SchemaComparisonService(), 2, Duration.ofSeconds(2))
+            .compareAll(TEST_CLASSPATH, PACKAGE_NAME, targets, tempDir);
+        
+        assertEquals(List.of("tenant-a", "hanging", "failing", "tenant-b", "tenant-c"),
+            results.stream().map(FleetTargetResult::target).toList(), "Results should be in target order");
+        assertEquals(FleetTargetResult.Status.DRIFT, results.get(0).status());
+        assertEquals(FleetTargetResult.Status.TIMED_OUT, results.get(1).status());
+        assertEquals(FleetTargetResult.Status.FAILED, results.get(2).status());
+        assertEquals(FleetTargetResult.Status.DRIFT, results.get(3).status());
+        assertEquals(FleetTargetResult.Status.DRIFT, results.get(4).status());
+        assertEquals(results.get(0).drift(), results.get(3).drift(), "Equal structures should have equal drift");
+        assertEquals(results.get(0).structure(), results.get(3).structure(),
+            "Schemas differing only in owner and column order should share a structure");
+        assertNotEquals(results.get(0).structure(), results.get(4).structure(), "An extra column should be a new structure");
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS), "Timed-out target should be interrupted");
+        
+        assertTrue(Files.exists(tempDir.resolve("jpa-schema.yaml")), "JPA schema should be written once");
+        assertTrue(Files.exists(tempDir.resolve("fleet-summary.yaml")), "Summary should be written");
+        try (var structureDirectories = Files.list(tempDir.resolve("structures"))) {
+            assertEquals(2, structureDirectories.count(), "Output should be written once per structure");
+        }
+        for (FleetTargetResult result : List.of(results.get(0), results.get(4))) {
+            Path directory = FleetComparisonService.structureDirectory(tempDir, result.structure());
+            assertTrue(Files.exists(directory.resolve("database-schema.yaml")));
+            assertTrue(Files.exists(directory.resolve("drift.yaml")));
+        }
+        String summary = Files.readString(tempDir.resolve("fleet-summary.yaml"));
+        assertTrue(summary.contains("STATUS: TIMED_OUT") && summary.contains("STATUS: FAILED"),
+            "Summary should report failed targets:\n" + summary);
+    }
+    
+    @Test
+    @Timeout(value = 1, unit = TimeUnit.MINUTES, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+    void testFailedStructureComparisonIsRetriedByLaterTarget() throws Exception {
+        // A file in place of the structures directory makes writing the first comparison fail
+        Path structuresDirectory = Files.createFile(tempDir.resolve("structures"));
+        Supplier<Connection> afterRepair = () -> {
+            try {
+                Files.delete(structuresDirectory);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return openConnection();
+        };
+        List<FleetComparisonService.Target> targets = List.of(
+            new FleetComparisonService.Target("tenant-a", this::openConnection, "APP"),
+            new FleetComparisonService.Target("tenant-b", afterRepair, "TENANT_B"));
+        
+        List<FleetTargetResult> results = new FleetComparisonService(new SchemaComparisonService(), 1, Duration.ofSeconds(30))
+            .compareAll(TEST_CLASSPATH, PACKAGE_NAME, targets, tempDir);
+        
+        assertEquals(FleetTargetResult.Status.FAILED, results.get(0).status());
+        assertEquals(FleetTargetResult.Status.DRIFT, results.get(1).status(),
+            "A later target with the same structure should compare it again: " + results.get(1).error());
+        assertEquals(results.get(0).structure(), results.get(1).structure());
+        assertTrue(Files.exists(FleetComparisonService.structureDirectory(tempDir, results.get(1).structure())
+            .resolve("drift.yaml")));
+    }
+    
+    @Test
+    @Timeout(value = 1, unit = TimeUnit.MINUTES, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+    void testTimedOutQueryIsCancelledAndFreesItsConnection() throws Exception {
+        try (ConnectionPool pool = new ConnectionPool(1, Duration.ofMinutes(5), Duration.ofSeconds(20), config -> openConnection())) {
+            // Every query of the hung target blocks like a read from an unresponsive server until it is cancelled
+            Supplier<Connection> hung = () -> {
+                Connection connection = pool.getConnection(HOST);
+                return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class},
+                    (proxy, method, args) -> method.getName().equals("prepareStatement")
+                        ? blockingStatement()
+                        : method.invoke(connection, args));
+            };
+            List<FleetComparisonService.Target> targets = List.of(
+                new FleetComparisonService.Target("hung", hung, "APP"),
+                new FleetComparisonService.Target("tenant-a", () -> pool.getConnection(HOST), "APP"));
+            
+            long start = System.nanoTime();
+            List<FleetTargetResult> results = new FleetComparisonService(new SchemaComparisonService(), 1, Duration.ofSeconds(2))
+                .compareAll(TEST_CLASSPATH, PACKAGE_NAME, targets, tempDir);
+            
+            assertEquals(FleetTargetResult.Status.TIMED_OUT, results.get(0).status());
+            assertEquals(FleetTargetResult.Status.DRIFT, results.get(1).status(),
+                "The next target on the same host should get the connection of the cancelled one: " + results.get(1).error());
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(15),
+                "The next target should not wait for the borrow timeout");
+        }
+    }
+    
+    /**
+     * A statement whose query ignores interrupts, as a thread blocked in a JDBC read does, and fails once cancelled.
+     */
+    private static PreparedStatement blockingStatement() {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        return (PreparedStatement) Proxy.newProxyInstance(FleetComparisonServiceTest.class.getClassLoader(),
+            new Class<?>[] {PreparedStatement.class}, (proxy, method, args) -> switch (method.getName()) {
+                case "executeQuery" -> {
+                    while (true) {
+                        try {
+                            cancelled.await();
+                            throw new SQLException("ORA-01013: user requested cancel of current operation");
+                        } catch (InterruptedException e) {
+                            // Ignored like in a blocked socket read
+                        }
+                    }
+                }
+                case "cancel" -> {
+                    cancelled.countDown();
+                    yield null;
+                }
+                default -> null;
+            });
+    }
+    
+    private Connection openConnection() {
+        try {
+            return DriverManager.getConnection(JDBC_URL, "sa", "");
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package cz.ememsoft.dbdrift.integration;
+
+import cz.ememsoft.dbdrift.config.FleetConfigLoader;
+import cz.ememsoft.dbdrift.config.FleetTarget;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for loading fleet targets and their passwords: targets are read from YAML,
+ * empty, duplicate and invalid targets are rejected, and passwords come from the environment
+ * variable of a target or from the secrets file.
+ */
+public class FleetConfigLoaderTest {
+    
+    private final FleetConfigLoader loader = new FleetConfigLoader();
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testLoadsTargetsInFileOrder() throws Exception {
+        Path file = write("targets.yaml", """
+            targets:
+              - name: tenant-a
+                host: db1.example.com
+                port: 1521
+                serviceName: ORCL
+                user: TENANT_A
+                schema: tenant_a
+                passwordEnv: TENANT_A_PASSWORD
+                comment: ignored
+              - name: tenant.b
+                host: db2.example.com
+                port: 1522
+                serviceName: ORCL2
+                user: TENANT_B
+                schema: TENANT_B
+                passwordKey: shared
+            """);
+        
+        List<FleetTarget> targets = loader.loadTargets(file);
+        
+        assertEquals(List.of(
+            new FleetTarget("tenant-a", "db1.example.com", 1521, "ORCL", "TENANT_A", "tenant_a", "TENANT_A_PASSWORD", null),
+            new FleetTarget("tenant.b", "db2.example.com", 1522, "ORCL2", "TENANT_B", "TENANT_B", null, "shared")), targets);
+    }
+    
+    @Test
+    void testRejectsMissingDuplicateAndInvalidTargets() throws Exception {
+        assertThrows(IllegalArgumentException.class, () -> loader.loadTargets(write("empty.yaml", "targets: []\n")),
+            "A file without targets should be rejected");
+        assertThrows(IllegalArgumentException.class, () -> loader.loadTargets(write("no-targets.yaml", "other: 1\n")),
+            "A file without the targets key should be rejected");
+        
+        IllegalArgumentException duplicate = assertThrows(IllegalArgumentException.class, () -> loader.loadTargets(write("duplicate.yaml", """
+            targets:
+              - {name: tenant-a, host: db1, port: 1521, serviceName: ORCL, user: A, schema: A}
+              - {name: tenant-a, host: db2, port: 1521, serviceName: ORCL, user: B, schema: B}
+            """)));
+        assertTrue(duplicate.getMessage().contains("tenant-a"), duplicate.getMessage());
+        
+        assertThrows(IllegalArgumentException.class, () -> loader.loadTargets(write("invalid.yaml", """
+            targets:
+              - {name: ../outside, host: db1, port: 1521, serviceName: ORCL, user: A, schema: A}
+            """)), "A name that escapes the output directory should be rejected");
+        assertThrows(IOException.class, () -> loader.loadTargets(write("missing-host.yaml", """
+            targets:
+              - {name: tenant-a, port: 1521, serviceName: ORCL, user: A, schema: A}
+            """)), "A target without a host should be rejected");
+    }
+    
+    @Test
+    void testResolvesPasswordFromEnvironmentOrSecretsFile() throws Exception {
+        Path secretsFile = write("secrets.properties", """
+            tenant-b=secret-b
+            shared=shared-secret
+            """);
+        Properties secrets = loader.loadSecrets(secretsFile);
+        Map<String, String> environment = Map.of("TENANT_A_PASSWORD", "from-env");
+        
+        assertEquals("from-env", loader.resolvePassword(target("tenant-a", "TENANT_A_PASSWORD", null), secrets, environment));
+        assertEquals("secret-b", loader.resolvePassword(target("tenant-b", null, null), secrets, environment),
+            "The target name should be the default secrets key");
+        assertEquals("shared-secret", loader.resolvePassword(target("tenant-c", null, "shared"), secrets, environment));
+        
+        assertThrows(IllegalArgumentException.class,
+            () -> loader.resolvePassword(target("tenant-d", "TENANT_D_PASSWORD", null), secrets, environment),
+            "An unset environment variable should not fall back to the secrets file");
+        assertThrows(IllegalArgumentException.class,
+            () -> loader.resolvePassword(target("tenant-e", null, null), secrets, environment));
+        assertTrue(loader.loadSecrets(null).isEmpty(), "Without a secrets file there should be no secrets");
+    }
+    
+    private FleetTarget target(String name, String passwordEnv, String passwordKey) {
+        return new FleetTarget(name, "db1.example.com", 1521, "ORCL", "USER", "SCHEMA", passwordEnv, passwordKey);
+    }
+    
+    private Path write(String fileName, String content) throws Exception {
+        return Files.writeString(tempDir.resolve(fileName), content);
+    }
+}
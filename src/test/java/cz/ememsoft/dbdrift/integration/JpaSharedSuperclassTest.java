@@ -0,0 +1,77 @@
+package cz.ememsoft.dbdrift.integration;
+
+import cz.ememsoft.dbdrift.jpa.JpaEntityAnalyzer;
+import cz.ememsoft.dbdrift.model.ColumnName;
+import cz.ememsoft.dbdrift.model.TableName;
+import cz.ememsoft.dbdrift.testentities.Cat;
+import cz.ememsoft.dbdrift.testentities.Dog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for columns of a shared mapped superclass that the analyzer resolves once and reuses:
+ * sibling entities such as Cat and Dog (both Animal -> BaseEntity) must still get independent results,
+ * and a caller changing a returned column set must not change what later analyses return.
+ */
+public class JpaSharedSuperclassTest {
+    
+    private static final TableName ANIMALS = new TableName("ANIMALS");
+    
+    private JpaEntityAnalyzer analyzer;
+    
+    @BeforeEach
+    void setUp() {
+        analyzer = new JpaEntityAnalyzer();
+    }
+    
+    @Test
+    void testSiblingEntitiesOfSharedSuperclassHaveIndependentResults() {
+        Set<ColumnName> catColumns = analyzer.analyzeEntity(Cat.class).get(ANIMALS);
+        Set<ColumnName> dogColumns = analyzer.analyzeEntity(Dog.class).get(ANIMALS);
+    
+        assertNotSame(catColumns, dogColumns, "Siblings should not share a column set");
+    
+        Set<String> catNames = names(catColumns);
+        Set<String> dogNames = names(dogColumns);
+        for (String inherited : List.of("ANIMAL_TYPE", "CUSTOM_CREATED_AT", "NAME", "SCIENTIFIC_NAME")) {
+            assertTrue(catNames.contains(inherited), "Cat should contain " + inherited);
+            assertTrue(dogNames.contains(inherited), "Dog should contain " + inherited);
+        }
+        assertTrue(catNames.contains("FAVORITE_FOOD"), "Cat should contain favorite_food");
+        assertFalse(catNames.contains("BREED"), "Cat should NOT contain breed of its sibling");
+        assertTrue(dogNames.contains("BREED"), "Dog should contain breed");
+        assertFalse(dogNames.contains("FAVORITE_FOOD"), "Dog should NOT contain favorite_food of its sibling");
+    
+        // Analysing a sibling first must not change the result
+        assertEquals(List.copyOf(catColumns), List.copyOf(new JpaEntityAnalyzer().analyzeEntity(Cat.class).get(ANIMALS)),
+            "Cat should get the same columns whether or not Dog was analysed before");
+    }
+    
+    @Test
+    void testChangingReturnedColumnsDoesNotAffectLaterAnalysis() {
+        Map<TableName, Set<ColumnName>> first = analyzer.analyzeEntity(Cat.class);
+        List<ColumnName> expected = List.copyOf(first.get(ANIMALS));
+    
+        first.get(ANIMALS).removeIf(column -> column.value().equals("CUSTOM_CREATED_AT"));
+        first.get(ANIMALS).add(new ColumnName("INJECTED"));
+    
+        assertEquals(expected, List.copyOf(analyzer.analyzeEntity(Cat.class).get(ANIMALS)),
+            "Cat should be analysed as before the returned set was changed");
+        Set<String> dogNames = names(analyzer.analyzeEntity(Dog.class).get(ANIMALS));
+        assertTrue(dogNames.contains("CUSTOM_CREATED_AT"), "Dog should still inherit custom_created_at");
+        assertFalse(dogNames.contains("INJECTED"), "Dog should not see a column added to the Cat result");
+    }
+    
+    private static Set<String> names(Set<ColumnName> columns) {
+        return columns.stream()
+            .map(column -> column.value().toUpperCase())
+            .collect(Collectors.toSet());
+    }
+}
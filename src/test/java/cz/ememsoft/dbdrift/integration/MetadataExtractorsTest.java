@@ -0,0 +1,118 @@
+package cz.ememsoft.dbdrift.integration;
+
+import cz.ememsoft.dbdrift.db.H2MetadataExtractor;
+import cz.ememsoft.dbdrift.db.JdbcMetadataExtractor;
+import cz.ememsoft.dbdrift.db.MetadataExtractors;
+import cz.ememsoft.dbdrift.db.MySqlMetadataExtractor;
+import cz.ememsoft.dbdrift.db.OracleMetadataExtractor;
+import cz.ememsoft.dbdrift.db.PostgresMetadataExtractor;
+import cz.ememsoft.dbdrift.model.ColumnName;
+import cz.ememsoft.dbdrift.model.DatabaseSchema;
+import cz.ememsoft.dbdrift.model.SymbolTable;
+import cz.ememsoft.dbdrift.model.TableName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the metadata extractor SPI: providers are discovered through ServiceLoader,
+ * vendor fast paths win over the generic extractor, the generic DatabaseMetaData extractor
+ * reads the same tables as the H2 fast path, and the PostgreSQL and MySQL queries read only the
+ * schema whose stored name matches, without its views.
+ */
+public class MetadataExtractorsTest {
+
+    private static final String JDBC_URL = "jdbc:h2:mem:generic_metadata;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+
+    @Test
+    void testVendorFastPathsWinOverGenericExtractor() {
+        SymbolTable symbols = new SymbolTable();
+        assertTrue(MetadataExtractors.databaseTypes().containsAll(List.of("oracle", "postgresql", "mysql", "mariadb", "h2")));
+        assertInstanceOf(OracleMetadataExtractor.class, MetadataExtractors.create("ORACLE", 0, symbols));
+        assertInstanceOf(PostgresMetadataExtractor.class, MetadataExtractors.create("postgresql", 0, symbols));
+        assertInstanceOf(MySqlMetadataExtractor.class, MetadataExtractors.create("mariadb", 0, symbols));
+        assertInstanceOf(H2MetadataExtractor.class, MetadataExtractors.create("h2", 0, symbols));
+        assertEquals("jdbc:postgresql://replica:5432/app",
+            MetadataExtractors.provider("postgresql").jdbcUrl("postgresql", "replica", 5432, "app"));
+        assertEquals("oracle.jdbc.OracleDriver", MetadataExtractors.provider("oracle").driverClassName("oracle"));
+        assertEquals("org.mariadb.jdbc.Driver", MetadataExtractors.provider("mariadb").driverClassName("mariadb"));
+        assertThrows(IllegalArgumentException.class, () -> MetadataExtractors.provider("db2"));
+        assertEquals("HR", MetadataExtractors.provider("oracle").schemaName("hr"));
+        assertEquals("App", MetadataExtractors.provider("postgresql").schemaName("App"));
+    }
+
+    @Test
+    void testGenericExtractorReadsTablesButNotViews() throws Exception {
+        try (Connection connection = DriverManager.getConnection(JDBC_URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SCHEMA APP_1");
+            // Underscore in the schema name must not match this schema as a LIKE wildcard
+            statement.execute("CREATE SCHEMA APPX1");
+            statement.execute("CREATE TABLE APP_1.CUSTOMER (ID BIGINT PRIMARY KEY, NAME VARCHAR(100))");
+            statement.execute("CREATE TABLE APP_1.ORDERS (ID BIGINT PRIMARY KEY, CUSTOMER_ID BIGINT)");
+            statement.execute("CREATE TABLE APPX1.OTHER (ID BIGINT)");
+            statement.execute("CREATE VIEW APP_1.CUSTOMER_NAMES AS SELECT NAME FROM APP_1.CUSTOMER");
+
+            SymbolTable symbols = new SymbolTable();
+            DatabaseSchema generic = new JdbcMetadataExtractor(symbols).extractDatabaseSchema(connection, "app_1");
+            assertEquals(Map.of(
+                new TableName("CUSTOMER"), Set.of(new ColumnName("ID"), new ColumnName("NAME")),
+                new TableName("ORDERS"), Set.of(new ColumnName("CUSTOMER_ID"), new ColumnName("ID"))), generic.tables());
+
+            DatabaseSchema fastPath = new H2MetadataExtractor(symbols).extractDatabaseSchema(connection, "APP_1");
+            generic.tables().forEach((table, columns) -> assertEquals(columns, fastPath.tables().get(table),
+                "Generic and H2 extractor should read the same columns of " + table.value()));
+
+            statement.execute("DROP ALL OBJECTS");
+        }
+    }
+
+    @Test
+    void testPostgresQueryReadsOnlySchemaWithStoredName() throws Exception {
+        // Like PostgreSQL, H2 with DATABASE_TO_LOWER stores unquoted identifiers in lowercase. The PostgreSQL
+        // mode is not used: its own pg_catalog lacks columns the extractor reads.
+        try (Connection connection = DriverManager.getConnection(
+                "jdbc:h2:mem:postgres_catalog;DATABASE_TO_LOWER=TRUE", "sa", "")) {
+            createSchemasDifferingInCase(connection);
+            PostgresCatalog.create(connection);
+            
+            DatabaseSchema schema = MetadataExtractors.create("postgresql", 100, new SymbolTable())
+                .extractDatabaseSchema(connection, "APP");
+            assertEquals(Map.of(new TableName("CUSTOMER"), Set.of(new ColumnName("ID"), new ColumnName("NAME"))),
+                schema.tables());
+            assertTrue(connection.getAutoCommit(), "The cursor transaction should be ended");
+        }
+    }
+    
+    @Test
+    void testMySqlQueryReadsOnlySchemaWithStoredName() throws Exception {
+        // Like MySQL with lower_case_table_names=1, H2 with DATABASE_TO_LOWER stores names in lowercase
+        try (Connection connection = DriverManager.getConnection(
+                "jdbc:h2:mem:mysql_schema;MODE=MySQL;DATABASE_TO_LOWER=TRUE", "sa", "")) {
+            createSchemasDifferingInCase(connection);
+            
+            DatabaseSchema schema = MetadataExtractors.create("mysql", 100, new SymbolTable())
+                .extractDatabaseSchema(connection, "APP");
+            assertEquals(Map.of(new TableName("CUSTOMER"), Set.of(new ColumnName("ID"), new ColumnName("NAME"))),
+                schema.tables());
+        }
+    }
+    
+    private static void createSchemasDifferingInCase(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SCHEMA app");
+            // A quoted name keeps its case; it must not be read together with app
+            statement.execute("CREATE SCHEMA \"APP\"");
+            statement.execute("CREATE TABLE app.customer (id BIGINT PRIMARY KEY, name VARCHAR(100))");
+            statement.execute("CREATE VIEW app.customer_names AS SELECT name FROM app.customer");
+            statement.execute("CREATE TABLE \"APP\".legacy (id BIGINT)");
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package cz.ememsoft.dbdrift.integration;
+
+import cz.ememsoft.dbdrift.util.NameConverter;
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Parity test of the single-pass camelCase to snake_case conversion against
+ * the original three-pass regular expression implementation.
+ */
+public class NameConverterTest {
+    
+    private static final Pattern CAMEL_CASE_PATTERN = Pattern.compile("(?<=[a-z])(?=[A-Z])");
+    private static final Pattern UPPER_CASE_ACRONYM_PATTERN = Pattern.compile("(?<=[A-Z])(?=[A-Z][a-z])");
+    private static final Pattern DIGIT_LETTER_PATTERN = Pattern.compile("(?<=[0-9])(?=[A-Za-z])|(?<=[A-Za-z])(?=[0-9])");
+    
+    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789_$ÄéÜß";
+    
+    @Test
+    void testSpringBootNamingExamples() {
+        assertEquals("camel_case", NameConverter.camelToSnake("camelCase"));
+        assertEquals("pascal_case", NameConverter.camelToSnake("PascalCase"));
+        assertEquals("xml_parser", NameConverter.camelToSnake("XMLParser"));
+        assertEquals("html_element", NameConverter.camelToSnake("HTMLElement"));
+        assertEquals("set_url", NameConverter.camelToSnake("setURL"));
+        assertEquals("user_id", NameConverter.camelToSnake("userID"));
+        assertEquals("first_name_2", NameConverter.camelToSnake("firstName2"));
+        assertEquals("version_2_beta", NameConverter.camelToSnake("version2Beta"));
+        assertEquals("", NameConverter.camelToSnake(""));
+    }
+    
+    @Test
+    void testSinglePassMatchesRegexImplementation() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            int length = random.nextInt(24);
+            StringBuilder name = new StringBuilder(length);
+            for (int j = 0; j < length; j++) {
+                // Mostly letters so that acronyms and camel case boundaries are common
+                name.append(random.nextInt(4) == 0
+                    ? ALPHABET.charAt(random.nextInt(ALPHABET.length()))
+                    : ALPHABET.charAt(random.nextInt(52)));
+            }
+            String input = name.toString();
+            assertEquals(regexCamelToSnake(input), NameConverter.camelToSnake(input), "Conversion of '" + input + "'");
+        }
+    }
+    
+    private static String regexCamelToSnake(String input) {
+        if (input.isEmpty()) return "";
+        String result = UPPER_CASE_ACRONYM_PATTERN.matcher(input).replaceAll("_");
+        result = CAMEL_CASE_PATTERN.matcher(result).replaceAll("_");
+        result = DIGIT_LETTER_PATTERN.matcher(result).replaceAll("_");
+        return result.toLowerCase(Locale.ROOT);
+    }
+}
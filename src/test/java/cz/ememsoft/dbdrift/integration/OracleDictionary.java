@@ -0,0 +1,34 @@
+package cz.ememsoft.dbdrift.integration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Emulates the Oracle dictionary views read by the Oracle extractor on top of the
+ * INFORMATION_SCHEMA of an H2 database in Oracle mode.
+ */
+final class OracleDictionary {
+    
+    private OracleDictionary() {
+    }
+    
+    /**
+     * Creates ALL_TABLES and ALL_TAB_COLUMNS as views and ALL_OBJECTS as a table listing the tables that
+     * exist now. H2 does not track DDL times, so tests maintain LAST_DDL_TIME in ALL_OBJECTS themselves.
+     */
+    static void create(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                CREATE VIEW ALL_TABLES AS SELECT TABLE_SCHEMA AS OWNER, TABLE_NAME
+                FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_TYPE = 'BASE TABLE'""");
+            statement.execute("""
+                CREATE VIEW ALL_TAB_COLUMNS AS SELECT TABLE_SCHEMA AS OWNER, TABLE_NAME, COLUMN_NAME
+                FROM INFORMATION_SCHEMA.COLUMNS""");
+            statement.execute("""
+                CREATE TABLE ALL_OBJECTS AS SELECT TABLE_SCHEMA AS OWNER, TABLE_NAME AS OBJECT_NAME,
+                CAST('TABLE' AS VARCHAR2(30)) AS OBJECT_TYPE, TIMESTAMP '2020-01-01 00:00:00' AS LAST_DDL_TIME
+                FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_TYPE = 'BASE TABLE' AND TABLE_SCHEMA <> 'INFORMATION_SCHEMA'""");
+        }
+    }
+}
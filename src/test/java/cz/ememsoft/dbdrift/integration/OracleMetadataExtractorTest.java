@@ -0,0 +1,196 @@
+package cz.ememsoft.dbdrift.integration;
+
+import cz.ememsoft.dbdrift.config.ComparisonOptions;
+import cz.ememsoft.dbdrift.db.MetadataExtractors;
+import cz.ememsoft.dbdrift.db.OracleMetadataExtractor;
+import cz.ememsoft.dbdrift.db.SchemaSnapshotFile;
+import cz.ememsoft.dbdrift.db.SchemaSnapshotStore;
+import cz.ememsoft.dbdrift.model.DatabaseSchema;
+import cz.ememsoft.dbdrift.model.SymbolTable;
+import cz.ememsoft.dbdrift.model.TableName;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the Oracle extractor against H2 in Oracle mode, with the Oracle
+ * dictionary views emulated by {@link OracleDictionary}, including the fetch size set on
+ * the metadata queries.
+ */
+public class OracleMetadataExtractorTest {
+    
+    private static final String JDBC_URL = "jdbc:h2:mem:oracle_dictionary;MODE=Oracle;DB_CLOSE_DELAY=-1";
+    private static final int TABLE_COUNT = 60;
+    
+    private Connection connection;
+    
+    @TempDir
+    Path tempDir;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection(JDBC_URL, "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SCHEMA APP");
+            for (int table = 0; table < TABLE_COUNT; table++) {
+                statement.execute("CREATE TABLE APP.TABLE_" + table + " (ID NUMBER PRIMARY KEY, NAME VARCHAR2(100), COLUMN_" + table + " DATE)");
+            }
+        }
+        OracleDictionary.create(connection);
+    }
+    
+    @AfterEach
+    void tearDown() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+    
+    @Test
+    void testParallelBucketExtractionMatchesSerialExtraction() {
+        OracleMetadataExtractor extractor = new OracleMetadataExtractor();
+        DatabaseSchema serial = extractor.extractDatabaseSchema(connection, "APP");
+        assertEquals(TABLE_COUNT, serial.tables().size(), "Serial extraction should find all tables");
+        
+        AtomicInteger openedConnections = new AtomicInteger();
+        Supplier<Connection> connections = () -> {
+            openedConnections.incrementAndGet();
+            try {
+                return DriverManager.getConnection(JDBC_URL, "sa", "");
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+        DatabaseSchema parallel = extractor.extractDatabaseSchema(connections, "APP", 3, 12);
+        
+        assertEquals(3, openedConnections.get(), "Should open one connection per worker");
+        assertEquals(List.copyOf(serial.tables().keySet()), List.copyOf(parallel.tables().keySet()),
+            "Parallel extraction should return the same tables in the same order");
+        serial.tables().forEach((table, columns) -> assertEquals(List.copyOf(columns), List.copyOf(parallel.tables().get(table)),
+            "Columns of " + table.value() + " should match"));
+    }
+    
+    @Test
+    void testFetchSizeIsSetOnMetadataQueryOnlyWhenConfigured() throws Exception {
+        int driverDefault;
+        try (PreparedStatement statement = connection.prepareStatement("SELECT 1 FROM DUAL")) {
+            driverDefault = statement.getFetchSize();
+        }
+        assertNotEquals(500, driverDefault);
+        
+        assertEquals(List.of(500), executedFetchSizes(500), "Configured fetch size should be set on the statement");
+        assertEquals(List.of(driverDefault), executedFetchSizes(0), "Fetch size 0 should keep the driver default");
+        assertEquals(List.of(OracleMetadataExtractor.DEFAULT_FETCH_SIZE),
+            executedFetchSizes(ComparisonOptions.defaults().fetchSize()),
+            "Default options should use the default fetch size");
+    }
+    
+    /**
+     * Extracts the schema with an extractor from the provider and returns the fetch size of every executed query.
+     */
+    private List<Integer> executedFetchSizes(int fetchSize) {
+        List<Integer> fetchSizes = new ArrayList<>();
+        Connection recording = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class},
+            (proxy, method, args) -> {
+                Object result = invoke(connection, method, args);
+                if (!(result instanceof PreparedStatement statement)) {
+                    return result;
+                }
+                return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {PreparedStatement.class},
+                    (statementProxy, statementMethod, statementArgs) -> {
+                        if (statementMethod.getName().equals("executeQuery")) {
+                            fetchSizes.add(statement.getFetchSize());
+                        }
+                        return invoke(statement, statementMethod, statementArgs);
+                    });
+            });
+        MetadataExtractors.create("oracle", fetchSize, new SymbolTable()).extractDatabaseSchema(recording, "APP");
+        return fetchSizes;
+    }
+    
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+    
+    @Test
+    void testSnapshotIsReusedOnlyWhileFingerprintMatches() throws Exception {
+        OracleMetadataExtractor extractor = new OracleMetadataExtractor();
+        SchemaSnapshotStore store = new SchemaSnapshotStore(tempDir);
+        
+        String fingerprint = extractor.computeFingerprint(connection, "APP");
+        assertEquals(fingerprint, extractor.computeFingerprint(connection, "APP"), "Fingerprint should be stable");
+        assertTrue(store.load(JDBC_URL, "APP").isEmpty(), "No snapshot should exist yet");
+        
+        DatabaseSchema extracted = extractor.extractDatabaseSchema(connection, "APP");
+        store.save(JDBC_URL, "APP", new SchemaSnapshotStore.StoredSnapshot(fingerprint, extracted, null));
+        SchemaSnapshotFile snapshot = store.load(JDBC_URL, "APP").orElseThrow();
+        assertEquals(fingerprint, snapshot.fingerprint());
+        assertEquals(List.copyOf(extracted.tables().keySet()), List.copyOf(snapshot.schema().tables().keySet()));
+        extracted.tables().forEach((table, columns) ->
+            assertEquals(List.copyOf(columns), List.copyOf(snapshot.schema().tables().get(table)), "Columns of " + table.value()));
+        
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE APP.TABLE_7 RENAME COLUMN NAME TO FULL_NAME");
+        }
+        String changedFingerprint = extractor.computeFingerprint(connection, "APP");
+        assertNotEquals(fingerprint, changedFingerprint, "Renaming a column should change the fingerprint");
+        assertNotEquals(changedFingerprint, store.load(JDBC_URL, "APP").orElseThrow().fingerprint(),
+            "Snapshot should not match a changed schema");
+    }
+    
+    @Test
+    void testIncrementalExtractionRereadsOnlyTablesWithChangedDdlTime() throws Exception {
+        OracleMetadataExtractor extractor = new OracleMetadataExtractor();
+        OracleMetadataExtractor.DdlTimes previousDdlTimes = extractor.readDdlTimes(connection, "APP");
+        DatabaseSchema previous = extractor.extractDatabaseSchema(connection, "APP");
+        assertEquals(TABLE_COUNT, previousDdlTimes.lastDdlTimes().size(), "Should read DDL times of all tables");
+        
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE APP.TABLE_7 RENAME COLUMN NAME TO FULL_NAME");
+            statement.execute("UPDATE ALL_OBJECTS SET LAST_DDL_TIME = CURRENT_TIMESTAMP WHERE OBJECT_NAME = 'TABLE_7'");
+            statement.execute("DROP TABLE APP.TABLE_3");
+            statement.execute("DELETE FROM ALL_OBJECTS WHERE OBJECT_NAME = 'TABLE_3'");
+            statement.execute("CREATE TABLE APP.TABLE_NEW (ID NUMBER PRIMARY KEY, CODE VARCHAR2(10))");
+            statement.execute("INSERT INTO ALL_OBJECTS VALUES ('APP', 'TABLE_NEW', 'TABLE', CURRENT_TIMESTAMP)");
+            // Not reflected in LAST_DDL_TIME, so the incremental extraction must not see it
+            statement.execute("ALTER TABLE APP.TABLE_12 RENAME COLUMN NAME TO LABEL");
+        }
+        
+        OracleMetadataExtractor.DdlTimes currentDdlTimes = extractor.readDdlTimes(connection, "APP");
+        DatabaseSchema incremental = extractor.extractChangedTables(connection, "APP", previous, previousDdlTimes, currentDdlTimes);
+        DatabaseSchema full = extractor.extractDatabaseSchema(connection, "APP");
+        
+        assertEquals(List.copyOf(full.tables().keySet()), List.copyOf(incremental.tables().keySet()),
+            "Should drop and add tables like the full extraction, in the same order");
+        TableName untracked = new TableName("TABLE_12");
+        assertEquals(previous.tables().get(untracked), incremental.tables().get(untracked),
+            "Tables with unchanged DDL time should be taken from the previous schema");
+        full.tables().forEach((table, columns) -> {
+            if (!table.equals(untracked)) {
+                assertEquals(List.copyOf(columns), List.copyOf(incremental.tables().get(table)), "Columns of " + table.value());
+            }
+        });
+    }
+}
@@ -0,0 +1,37 @@
+package cz.ememsoft.dbdrift.integration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Emulates the pg_catalog tables read by the PostgreSQL extractor on top of the
+ * INFORMATION_SCHEMA of an H2 database. Object ids are the qualified names of schemas and tables.
+ */
+final class PostgresCatalog {
+    
+    private PostgresCatalog() {
+    }
+    
+    /**
+     * Creates pg_namespace, pg_class and pg_attribute as views in the schema pg_catalog. Tables have
+     * relkind 'r', views 'v'; there are no partitions and no dropped columns.
+     */
+    static void create(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SCHEMA pg_catalog");
+            statement.execute("""
+                CREATE VIEW pg_catalog.pg_namespace AS SELECT schema_name AS oid, schema_name AS nspname
+                FROM information_schema.schemata""");
+            statement.execute("""
+                CREATE VIEW pg_catalog.pg_class AS SELECT table_schema || '.' || table_name AS oid,
+                table_name AS relname, table_schema AS relnamespace,
+                CASE table_type WHEN 'BASE TABLE' THEN 'r' ELSE 'v' END AS relkind, FALSE AS relispartition
+                FROM information_schema.tables""");
+            statement.execute("""
+                CREATE VIEW pg_catalog.pg_attribute AS SELECT table_schema || '.' || table_name AS attrelid,
+                column_name AS attname, ordinal_position AS attnum, FALSE AS attisdropped
+                FROM information_schema.columns""");
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package cz.ememsoft.dbdrift.integration;
+
+import cz.ememsoft.dbdrift.config.ComparisonOptions;
+import cz.ememsoft.dbdrift.model.ColumnName;
+import cz.ememsoft.dbdrift.model.TableName;
+import cz.ememsoft.dbdrift.service.SchemaComparisonService;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the schema comparison service: concurrent entity analysis
+ * must build exactly the same JPA schema as the serial analysis, and a failing half
+ * of the YAML generation must cancel the other one, including a database query that
+ * ignores interrupts as a blocking JDBC read does.
+ */
+public class SchemaComparisonServiceTest {
+    
+    private static final String TEST_CLASSPATH = "target/test-classes";
+    private static final String PACKAGE_NAME = "cz.ememsoft.dbdrift.testentities";
+    
+    @Test
+    void testParallelAnalysisMatchesSerialAnalysis() throws Exception {
+        Map<TableName, Set<ColumnName>> serial = new SchemaComparisonService(
+            ComparisonOptions.builder().analysisThreads(1).build()).buildJpaSchema(TEST_CLASSPATH, PACKAGE_NAME);
+        assertFalse(serial.isEmpty(), "Serial analysis should find tables");
+        
+        for (int threads : new int[] {2, 8}) {
+            Map<TableName, Set<ColumnName>> parallel = new SchemaComparisonService(
+                ComparisonOptions.builder().analysisThreads(threads).build()).buildJpaSchema(TEST_CLASSPATH, PACKAGE_NAME);
+            
+            assertEquals(List.copyOf(serial.keySet()), List.copyOf(parallel.keySet()),
+                "Tables should match in the same order with " + threads + " threads");
+            serial.forEach((table, columns) -> assertEquals(List.copyOf(columns), List.copyOf(parallel.get(table)),
+                "Columns of " + table.value() + " should match with " + threads + " threads"));
+        }
+    }
+    
+    @Test
+    void testFailingJpaBranchCancelsDatabaseBranch() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        // Database half blocks as a slow remote query would, until it is interrupted
+        Connection blockingConnection = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                try {
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                throw new IllegalStateException("Database branch should have been cancelled");
+            });
+        
+        assertThrows(IllegalArgumentException.class, () -> new SchemaComparisonService()
+            .generateSchemaYamls("target/does-not-exist", PACKAGE_NAME, blockingConnection, "TEST"));
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS), "Database branch should be interrupted");
+    }
+    
+    @Test
+    void testFailingJpaBranchCancelsQueryIgnoringInterrupts() throws Exception {
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        // Blocks like a driver waiting on its socket: interrupts are ignored, only Statement.cancel() ends the query
+        PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] {PreparedStatement.class}, (proxy, method, args) -> switch (method.getName()) {
+                case "executeQuery" -> {
+                    queryStarted.countDown();
+                    awaitIgnoringInterrupts(cancelled);
+                    throw new SQLException("ORA-01013: user requested cancel of current operation");
+                }
+                case "cancel" -> {
+                    cancelled.countDown();
+                    yield null;
+                }
+                default -> null;
+            });
+        Connection connection = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                assertEquals("prepareStatement", method.getName());
+                return statement;
+            });
+        // The JPA half fails only once the query is running
+        SchemaComparisonService service = new SchemaComparisonService() {
+            @Override
+            public Map<TableName, Set<ColumnName>> buildJpaSchema(String classpath, String packageName) throws Exception {
+                assertTrue(queryStarted.await(10, TimeUnit.SECONDS), "Database query should start");
+                throw new IllegalStateException("Entity analysis failed");
+            }
+        };
+        
+        long start = System.nanoTime();
+        IllegalStateException failure = assertThrows(IllegalStateException.class,
+            () -> service.generateSchemaYamls(TEST_CLASSPATH, PACKAGE_NAME, connection, "TEST"));
+        assertEquals("Entity analysis failed", failure.getMessage(), "The first failure should be rethrown");
+        assertEquals(0, cancelled.getCount(), "Running query should be cancelled");
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "Generation should fail without waiting for the query");
+    }
+    
+    private static void awaitIgnoringInterrupts(CountDownLatch latch) {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+        while (latch.getCount() > 0 && System.nanoTime() < deadline) {
+            try {
+                latch.await(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                // A blocking socket read does not react to interrupts either
+            }
+        }
+    }
+}
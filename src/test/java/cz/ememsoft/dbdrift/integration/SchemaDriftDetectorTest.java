@@ -0,0 +1,88 @@
+package cz.ememsoft.dbdrift.integration;
+
+import cz.ememsoft.dbdrift.generator.YamlSchemaGenerator;
+import cz.ememsoft.dbdrift.model.ColumnName;
+import cz.ememsoft.dbdrift.model.SchemaDrift;
+import cz.ememsoft.dbdrift.model.TableName;
+import cz.ememsoft.dbdrift.service.SchemaDriftDetector;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the built-in drift detection between JPA and database schemas.
+ */
+public class SchemaDriftDetectorTest {
+    
+    private final SchemaDriftDetector detector = new SchemaDriftDetector();
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testDetectsMissingAndExtraTablesAndColumns() throws Exception {
+        Map<TableName, Set<ColumnName>> jpaSchema = new LinkedHashMap<>();
+        jpaSchema.put(new TableName("person"), columns("id", "first_name", "last_name", "nickname"));
+        jpaSchema.put(new TableName("person_document"), columns("ID", "DOCUMENT_NUMBER"));
+        jpaSchema.put(new TableName("audit_log"), columns("id", "message"));
+        
+        Map<TableName, Set<ColumnName>> dbSchema = new LinkedHashMap<>();
+        dbSchema.put(new TableName("PERSON_DOCUMENT"), columns("ID", "DOCUMENT_NUMBER"));
+        dbSchema.put(new TableName("PERSON"), columns("ID", "FIRST_NAME", "LAST_NAME", "DTYPE"));
+        dbSchema.put(new TableName("FLYWAY_SCHEMA_HISTORY"), columns("INSTALLED_RANK"));
+        
+        SchemaDrift drift = detector.compare(jpaSchema, dbSchema);
+        
+        assertTrue(drift.hasDrift());
+        assertEquals(List.of(new TableName("AUDIT_LOG")), drift.missingTables());
+        assertEquals(List.of(new TableName("FLYWAY_SCHEMA_HISTORY")), drift.extraTables());
+        assertEquals(Set.of(new TableName("PERSON")), drift.changedTables().keySet(),
+            "Tables differing only in name case should not be reported");
+        
+        SchemaDrift.TableDrift person = drift.changedTables().get(new TableName("PERSON"));
+        assertEquals(List.of(new ColumnName("NICKNAME")), person.missingColumns());
+        assertEquals(List.of(new ColumnName("DTYPE")), person.extraColumns());
+        
+        Path driftFile = tempDir.resolve("drift.yaml");
+        new YamlSchemaGenerator().generateDriftYaml(drift, driftFile.toString());
+        String yaml = Files.readString(driftFile);
+        System.out.println(yaml);
+        assertTrue(yaml.contains("SCHEMA_DRIFT:"), "Should contain SCHEMA_DRIFT root");
+        assertTrue(yaml.contains("- AUDIT_LOG"), "Should list the missing table");
+        assertTrue(yaml.contains("- NICKNAME"), "Should list the missing column");
+    }
+    
+    @Test
+    void testIdenticalLargeSchemasHaveNoDrift() {
+        Map<TableName, Set<ColumnName>> jpaSchema = new LinkedHashMap<>();
+        Map<TableName, Set<ColumnName>> dbSchema = new LinkedHashMap<>();
+        for (int table = 0; table < 50_000; table++) {
+            jpaSchema.put(new TableName("table_" + table), columns("id", "name", "created_at"));
+        }
+        // Database returns the tables in a different order and upper-cased
+        for (int table = 49_999; table >= 0; table--) {
+            dbSchema.put(new TableName("TABLE_" + table), columns("CREATED_AT", "NAME", "ID"));
+        }
+        
+        SchemaDrift drift = detector.compare(jpaSchema, dbSchema);
+        
+        assertFalse(drift.hasDrift(), "Identical schemas should have no drift");
+    }
+    
+    private Set<ColumnName> columns(String... names) {
+        Set<ColumnName> columns = new LinkedHashSet<>();
+        for (String name : names) {
+            columns.add(new ColumnName(name));
+        }
+        return columns;
+    }
+}
@@ -0,0 +1,106 @@
+package cz.ememsoft.dbdrift.integration;
+
+import cz.ememsoft.dbdrift.db.OracleMetadataExtractor;
+import cz.ememsoft.dbdrift.db.SchemaSnapshotFile;
+import cz.ememsoft.dbdrift.db.SchemaSnapshotStore;
+import cz.ememsoft.dbdrift.model.ColumnName;
+import cz.ememsoft.dbdrift.model.CompactSchema;
+import cz.ememsoft.dbdrift.model.DatabaseSchema;
+import cz.ememsoft.dbdrift.model.SymbolTable;
+import cz.ememsoft.dbdrift.model.TableName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the binary snapshot format: schema, fingerprint and DDL times round-trip,
+ * a changed byte fails the checksum, an opened snapshot does not hold on to its file, and the
+ * snapshot store reuses an opened snapshot until its file changes.
+ */
+public class SchemaSnapshotFileTest {
+    
+    private static final String DATABASE = "jdbc:oracle:thin:@//db.example.com:1521/APP";
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testBinarySnapshotRoundTripsAndDetectsCorruption() throws Exception {
+        DatabaseSchema schema = schema(60);
+        OracleMetadataExtractor.DdlTimes ddlTimes = new OracleMetadataExtractor.DdlTimes(
+            Map.of("TABLE_0", 1_577_836_800_000L, "TABLE_7", 1_700_000_000_000L), 1_700_000_100_000L);
+        Path file = tempDir.resolve("app.snapshot");
+        SchemaSnapshotFile.write(file, DATABASE, "APP", "60:42", schema, ddlTimes);
+        
+        SchemaSnapshotFile snapshot = SchemaSnapshotFile.open(file, new SymbolTable());
+        assertEquals(DATABASE, snapshot.database());
+        assertEquals("APP", snapshot.schemaName());
+        assertEquals("60:42", snapshot.fingerprint());
+        assertEquals(ddlTimes, snapshot.ddlTimes(), "DDL times should round-trip");
+        assertEquals(schema.tables(), snapshot.schema().tables(), "Tables and columns should round-trip");
+        
+        SchemaSnapshotFile.write(file, DATABASE, "APP", "60:42", schema, null);
+        assertNull(SchemaSnapshotFile.open(file, new SymbolTable()).ddlTimes(), "Missing DDL times should round-trip");
+        
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 1;
+        Path corrupted = tempDir.resolve("corrupted.snapshot");
+        Files.write(corrupted, bytes);
+        assertThrows(IOException.class, () -> SchemaSnapshotFile.open(corrupted, new SymbolTable()),
+            "A changed byte should fail the checksum");
+    }
+    
+    @Test
+    void testOpenedSnapshotDoesNotHoldItsFile() throws Exception {
+        Path file = tempDir.resolve("app.snapshot");
+        SchemaSnapshotFile.write(file, DATABASE, "APP", "3:1", schema(3), null);
+        SchemaSnapshotFile opened = SchemaSnapshotFile.open(file, new SymbolTable());
+        
+        // The snapshot store replaces the file this way while the daemon keeps the opened snapshot
+        Path replacement = tempDir.resolve("replacement.tmp");
+        SchemaSnapshotFile.write(replacement, DATABASE, "APP", "5:2", schema(5), null);
+        Files.move(replacement, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        
+        assertEquals(3, opened.schema().tables().size(), "Opened snapshot should keep its own content");
+        assertEquals("5:2", SchemaSnapshotFile.open(file, new SymbolTable()).fingerprint());
+        Files.delete(file);
+        assertEquals(schema(3).tables(), opened.schema().tables());
+    }
+    
+    @Test
+    void testStoreReusesOpenedSnapshotUntilItsFileChanges() {
+        Path directory = tempDir.resolve("snapshots");
+        SchemaSnapshotStore store = new SchemaSnapshotStore(directory);
+        store.save(DATABASE, "APP", new SchemaSnapshotStore.StoredSnapshot("3:1", schema(3), null));
+        SchemaSnapshotFile opened = store.load(DATABASE, "APP").orElseThrow();
+        assertSame(opened, store.load(DATABASE, "APP").orElseThrow(), "Unchanged snapshot should not be opened again");
+        assertTrue(store.load(DATABASE, "HR").isEmpty());
+        
+        // Another process, e.g. a single run next to the daemon, replaces the file
+        new SchemaSnapshotStore(directory).save(DATABASE, "APP", new SchemaSnapshotStore.StoredSnapshot("5:2", schema(5), null));
+        SchemaSnapshotFile replaced = store.load(DATABASE, "APP").orElseThrow();
+        assertNotSame(opened, replaced, "Replaced file should be opened again");
+        assertEquals("5:2", replaced.fingerprint());
+        assertSame(replaced, store.load(DATABASE, "APP").orElseThrow());
+        
+        store.save(DATABASE, "APP", new SchemaSnapshotStore.StoredSnapshot("3:3", schema(3), null));
+        assertEquals("3:3", store.load(DATABASE, "APP").orElseThrow().fingerprint(), "Saved snapshot should be opened again");
+    }
+    
+    private DatabaseSchema schema(int tableCount) {
+        CompactSchema.Builder builder = CompactSchema.builder();
+        for (int table = 0; table < tableCount; table++) {
+            TableName tableName = new TableName("TABLE_" + table);
+            builder.add(tableName, new ColumnName("ID")).add(tableName, new ColumnName("NAME"))
+                .add(tableName, new ColumnName("COLUMN_" + table));
+        }
+        return DatabaseSchema.of(builder.build());
+    }
+}
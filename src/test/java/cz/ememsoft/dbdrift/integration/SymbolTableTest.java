@@ -0,0 +1,48 @@
+package cz.ememsoft.dbdrift.integration;
+
+import cz.ememsoft.dbdrift.model.SymbolTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the symbol table shared by the JPA and database schemas: names are interned
+ * once to dense ids, also when many threads intern them concurrently.
+ */
+public class SymbolTableTest {
+    
+    @Test
+    void testSymbolTableInternsNamesToDenseIdsAcrossThreads() {
+        SymbolTable symbols = new SymbolTable();
+        List<String> names = IntStream.range(0, 20_000).mapToObj(i -> "COLUMN_" + (i % 5_000)).toList();
+        
+        Map<String, Integer> ids = names.parallelStream()
+            .collect(Collectors.toConcurrentMap(name -> name, symbols::id, (first, second) -> {
+                assertEquals(first, second, "The same name should always get the same id");
+                return first;
+            }));
+        
+        assertEquals(5_000, symbols.size(), "Each distinct name should be interned once");
+        assertEquals(Set.copyOf(IntStream.range(0, 5_000).boxed().toList()), Set.copyOf(ids.values()), "Ids should be dense");
+        ids.forEach((name, id) -> assertEquals(name, symbols.name(id)));
+        assertSame(symbols.columnName(new String("COLUMN_42")), symbols.columnName("COLUMN_42"),
+            "Equal names should share a single ColumnName instance");
+    }
+    
+    @Test
+    void testTableAndColumnNamesShareIds() {
+        SymbolTable symbols = new SymbolTable();
+        int id = symbols.id("CUSTOMER");
+        
+        assertSame(symbols.tableName("CUSTOMER"), symbols.tableName(id));
+        assertSame(symbols.columnName("CUSTOMER"), symbols.columnName(id));
+        assertEquals("CUSTOMER", symbols.tableName(id).value());
+        assertThrows(IllegalArgumentException.class, () -> symbols.name(id + 1), "Unknown ids should be rejected");
+    }
+}
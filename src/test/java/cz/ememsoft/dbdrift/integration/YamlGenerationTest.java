@@ -1,9 +1,14 @@
 package cz.ememsoft.dbdrift.integration;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator;
 import cz.ememsoft.dbdrift.jpa.EntityDiscovery;
 import cz.ememsoft.dbdrift.jpa.JpaEntityAnalyzer;
 import cz.ememsoft.dbdrift.generator.YamlSchemaGenerator;
 import cz.ememsoft.dbdrift.model.ColumnName;
+import cz.ememsoft.dbdrift.model.CompactSchema;
+import cz.ememsoft.dbdrift.model.DatabaseSchema;
 import cz.ememsoft.dbdrift.model.TableName;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,8 +17,12 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -85,6 +94,79 @@ public class YamlGenerationTest {
         assertTrue(yamlContent.contains("LAST_MODIFIED"), "Should contain last_modified from AbstractAuditEntity");
     }
     
+    @Test
+    void testStreamingOutputMatchesMapBasedOutput() throws Exception {
+        Map<TableName, Set<ColumnName>> schema = new LinkedHashMap<>();
+        schema.put(new TableName("orders"), columns("total", "ID", "customer_id"));
+        schema.put(new TableName("Customer"), columns("name", "Id", "ID"));
+        schema.put(new TableName("ADDRESS"), columns("street", "city"));
+        // Tables differing only in case collapse into one entry
+        schema.put(new TableName("CUSTOMER"), columns("EMAIL", "ID"));
+        schema.put(new TableName("empty_table"), columns());
+        schema.put(new TableName("zone-2"), columns("yes", "null", "123", "a: b"));
+        
+        Path streamed = tempDir.resolve("streamed.yaml");
+        yamlGenerator.generateDatabaseSchemaYaml(new DatabaseSchema(schema), streamed.toString());
+        
+        Path mapBased = tempDir.resolve("map-based.yaml");
+        writeMapBasedYaml(schema, "DATABASE_TABLES", mapBased.toFile());
+        
+        assertEquals(Files.readString(mapBased), Files.readString(streamed), "Streaming output should be byte-identical");
+    }
+    
+    @Test
+    void testExtractedSchemaIsStreamedInStoredOrder() throws Exception {
+        // Added as an extractor would, with upper-cased names but not in sorted order
+        CompactSchema.Builder builder = CompactSchema.builder()
+            .addTable(new TableName("ORDERS"), columns("TOTAL", "ID", "CUSTOMER_ID"))
+            .addTable(new TableName("CUSTOMER"), columns("NAME", "ID", "EMAIL"))
+            .addTable(new TableName("ADDRESS"), columns("STREET", "CITY"))
+            .addTable(new TableName("ZONE-2"), columns("YES", "NULL", "123", "A: B"));
+        DatabaseSchema schema = DatabaseSchema.of(builder.build());
+        assertTrue(CompactSchema.isView(schema.tables()), "Extracted schema should be the compact view");
+        
+        Path streamed = tempDir.resolve("streamed.yaml");
+        yamlGenerator.generateDatabaseSchemaYaml(schema, streamed.toString());
+        
+        Path mapBased = tempDir.resolve("map-based.yaml");
+        writeMapBasedYaml(schema.tables(), "DATABASE_TABLES", mapBased.toFile());
+        
+        assertEquals(Files.readString(mapBased), Files.readString(streamed), "Streaming output should be byte-identical");
+    }
+    
+    private Set<ColumnName> columns(String... names) {
+        Set<ColumnName> columns = new LinkedHashSet<>();
+        for (String name : names) {
+            columns.add(new ColumnName(name));
+        }
+        return columns;
+    }
+    
+    /**
+     * The original generator: builds the sorted map tree first and serializes it at once.
+     */
+    private void writeMapBasedYaml(Map<TableName, Set<ColumnName>> schema, String rootKey, File outputFile) throws Exception {
+        ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory()
+            .disable(YAMLGenerator.Feature.WRITE_DOC_START_MARKER)
+            .enable(YAMLGenerator.Feature.MINIMIZE_QUOTES)
+            .enable(YAMLGenerator.Feature.INDENT_ARRAYS_WITH_INDICATOR));
+        
+        Map<String, Object> tables = new LinkedHashMap<>();
+        schema.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey((t1, t2) -> t1.value().toUpperCase().compareTo(t2.value().toUpperCase())))
+            .forEach(entry -> {
+                List<String> sortedColumns = entry.getValue().stream()
+                    .map(column -> column.value().toUpperCase())
+                    .sorted()
+                    .collect(Collectors.toList());
+                Map<String, Object> tableData = new LinkedHashMap<>();
+                tableData.put("COLUMNS", sortedColumns);
+                tables.put(entry.getKey().value().toUpperCase(), tableData);
+            });
+        
+        yamlMapper.writeValue(outputFile, Map.of(rootKey, tables));
+    }
+    
     private Map<TableName, Set<ColumnName>> analyzeEntities(Set<Class<?>> entities) {
         Map<TableName, Set<ColumnName>> jpaSchema = new java.util.LinkedHashMap<>();
         
@@ -0,0 +1,23 @@
+package cz.ememsoft.dbdrift.testorders;
+
+import cz.ememsoft.dbdrift.testentities.Address;
+import cz.ememsoft.dbdrift.testentities.BaseEntity;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embedded;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+
+/**
+ * Entity in its own package whose mapped superclass and embeddable live in another package,
+ * as with a shared {@code common.BaseEntity}.
+ */
+@Entity
+@Table(name = "PURCHASE_ORDER")
+public class PurchaseOrder extends BaseEntity {
+
+    @Column(name = "order_number")
+    private String orderNumber;
+
+    @Embedded
+    private Address deliveryAddress;
+}